@@ -0,0 +1,287 @@
+package ru.yandex.money.api;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Журнал выполненных команд API, который пишется не в потоке запроса.</p>
+ * <p>Поток, выполнивший команду, только кладет запись {@link AuditEvent} в кольцевой буфер без блокировок.
+ * Скрытие секретных данных, форматирование и запись в {@link AuditSink} выполняет отдельный поток журнала.
+ * Если буфер заполнен, запись отбрасывается ({@link #getDropped()}), а запрос не ждет.</p>
+ * <p>Успешные команды можно записывать выборочно ({@link Builder#sampleRate(double)}),
+ * ошибки по умолчанию записываются всегда. Ошибкой считается и ответ, в котором сервер отказал
+ * в выполнении команды ({@code isSuccess()} равен false).</p>
+ * <p>Журнал подключается к транспорту через {@link YamoneyApiClient#setAuditLog(ApiAuditLog)}.
+ * С подключенным журналом транспорт не пишет параметры запросов и ответы в лог в потоке запроса.</p>
+ */
+public class ApiAuditLog implements Closeable {
+
+    private static final Log LOGGER = LogFactory.getLog(ApiAuditLog.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Метод {@code Boolean isSuccess()} класса ответа или null, если его нет
+     */
+    private static final ClassValue<Method> IS_SUCCESS = new ClassValue<Method>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                Method method = type.getMethod("isSuccess");
+                return method.getReturnType() == Boolean.class ? method : null;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    private final AuditSink sink;
+    private final double sampleRate;
+    private final boolean allErrors;
+
+    /**
+     * Кольцевой буфер для нескольких писателей и одного читателя. Номер ячейки показывает,
+     * какую позицию в ней можно записать (номер == позиция) или прочитать (номер == позиция + 1)
+     */
+    private final int mask;
+    private final AtomicReferenceArray<AuditEvent> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private ApiAuditLog(Builder builder) {
+        this.sink = builder.sink;
+        this.sampleRate = builder.sampleRate;
+        this.allErrors = builder.allErrors;
+
+        int capacity = Integer.highestOneBit(builder.capacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<AuditEvent>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "yamolib-audit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Записывает выполненную команду, если она попала в выборку
+     */
+    void record(String commandName, URI uri, Map<String, String> params, String accessToken,
+                Object response, Throwable error, long latencyNanos) {
+        boolean failed = error != null || isRefused(response);
+        if (closed || !isSampled(failed)) {
+            return;
+        }
+        // параметры команд неизменяемы, а свою карту (например, параметры магазина) вызывающий код может изменить
+        Map<String, String> snapshot = params instanceof FormParams
+                ? params : FormParams.builder().putAll(params).build();
+        AuditEvent event = new AuditEvent(System.currentTimeMillis(), commandName, uri, snapshot, accessToken,
+                response, error, failed, latencyNanos);
+        if (!offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private boolean isSampled(boolean failed) {
+        if (failed && allErrors) {
+            return true;
+        }
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Ошибки API (например, отказ в проведении платежа) приходят с кодом 200 и полем error,
+     * у таких ответов {@code isSuccess()} возвращает {@link Boolean#FALSE}
+     */
+    private static boolean isRefused(Object response) {
+        if (response == null) {
+            return false;
+        }
+        Method isSuccess = IS_SUCCESS.get(response.getClass());
+        if (isSuccess == null) {
+            return false;
+        }
+        try {
+            return Boolean.FALSE.equals(isSuccess.invoke(response));
+        } catch (IllegalAccessException e) {
+            return false;
+        } catch (InvocationTargetException e) {
+            return false;
+        }
+    }
+
+    private boolean offer(AuditEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // ячейка еще не прочитана: буфер заполнен
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Читает одну запись. Вызывается только из потока журнала
+     */
+    private AuditEvent poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        AuditEvent event = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return event;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            AuditEvent event = poll();
+            if (event != null) {
+                write(event);
+                continue;
+            }
+            if (closed) {
+                return;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(AuditEvent event) {
+        try {
+            sink.write(event);
+            written.incrementAndGet();
+        } catch (RuntimeException e) {
+            LOGGER.warn("audit sink failed", e);
+        }
+    }
+
+    /**
+     * @return количество записей, переданных в {@link AuditSink}
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return количество записей, отброшенных из-за заполненного буфера
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Прекращает прием записей и дожидается записи накопленных (не дольше 5 секунд)
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static final class Builder {
+        private AuditSink sink = AuditSink.COMMONS_LOGGING;
+        private int capacity = 8192;
+        private double sampleRate = 1;
+        private boolean allErrors = true;
+
+        private Builder() {
+        }
+
+        /**
+         * @param sink получатель записей. По умолчанию {@link AuditSink#COMMONS_LOGGING}
+         */
+        public Builder sink(AuditSink sink) {
+            if (sink == null) {
+                throw new IllegalArgumentException("sink is null");
+            }
+            this.sink = sink;
+            return this;
+        }
+
+        /**
+         * @param capacity размер буфера записей, округляется вверх до степени двойки. По умолчанию 8192
+         */
+        public Builder capacity(int capacity) {
+            if (capacity < 2 || capacity > 1 << 24) {
+                throw new IllegalArgumentException("capacity should be in [2, 2^24]: " + capacity);
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * @param sampleRate доля записываемых успешных команд. По умолчанию 1 - записываются все
+         */
+        public Builder sampleRate(double sampleRate) {
+            if (!(sampleRate >= 0 && sampleRate <= 1)) {
+                throw new IllegalArgumentException("sampleRate should be in [0, 1]: " + sampleRate);
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * @param allErrors записывать ли все ошибки независимо от {@link #sampleRate(double)}. По умолчанию true
+         */
+        public Builder allErrors(boolean allErrors) {
+            this.allErrors = allErrors;
+            return this;
+        }
+
+        /**
+         * Создает журнал и запускает его поток
+         */
+        public ApiAuditLog build() {
+            return new ApiAuditLog(this);
+        }
+    }
+}
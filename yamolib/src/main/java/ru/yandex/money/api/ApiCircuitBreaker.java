@@ -0,0 +1,331 @@
+package ru.yandex.money.api;
+
+import com.google.common.base.Ticker;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Предохранитель (circuit breaker) для команд API. Состояние ведется отдельно для каждой команды.</p>
+ * <p>В состоянии {@link State#CLOSED} запросы выполняются, а их результаты записываются в окно последних
+ * <code>windowSize</code> вызовов. Когда в окне набирается хотя бы <code>minimumCalls</code> вызовов и доля
+ * ошибок или медленных вызовов достигает порога, предохранитель размыкается ({@link State#OPEN}):
+ * запросы команды сразу завершаются {@link CircuitBreakerOpenException}, не занимая потоков и соединений.</p>
+ * <p>Через <code>openDuration</code> предохранитель пропускает <code>halfOpenCalls</code> пробных запросов
+ * ({@link State#HALF_OPEN}). Если по их результатам пороги не превышены, он замыкается, иначе снова размыкается.</p>
+ * <p>Ошибкой считается {@link IOException}, в том числе {@link InternalServerErrorException} и таймауты.
+ * Ответы 401 и 403 ошибками сервера не считаются.</p>
+ * <p>Предохранитель подключается к транспорту через {@link YamoneyApiClient#setCircuitBreaker(ApiCircuitBreaker)}.</p>
+ */
+public class ApiCircuitBreaker {
+
+    private static final Log LOGGER = LogFactory.getLog(ApiCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Получает уведомления о переключении предохранителя. Вызывается в потоке, завершившем вызов
+     */
+    public interface Listener {
+        void onStateTransition(String commandName, State from, State to);
+    }
+
+    private final Ticker ticker;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Listener listener;
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+
+    private ApiCircuitBreaker(Builder builder) {
+        this.ticker = builder.ticker;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = builder.slowCallNanos;
+        this.openNanos = builder.openNanos;
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.listener = builder.listener;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return текущее состояние предохранителя команды. Переход из {@link State#OPEN} в {@link State#HALF_OPEN}
+     * происходит при первом запросе после <code>openDuration</code>
+     */
+    public State getState(String commandName) {
+        Circuit circuit = circuits.get(commandName);
+        return circuit == null ? State.CLOSED : circuit.getState();
+    }
+
+    /**
+     * Разрешает вызов команды.
+     *
+     * @throws CircuitBreakerOpenException предохранитель команды разомкнут
+     */
+    Call acquire(String commandName) throws CircuitBreakerOpenException {
+        Circuit circuit = circuits.get(commandName);
+        if (circuit == null) {
+            Circuit created = new Circuit(commandName);
+            circuit = circuits.putIfAbsent(commandName, created);
+            if (circuit == null) {
+                circuit = created;
+            }
+        }
+        return circuit.acquire();
+    }
+
+    long now() {
+        return ticker.read();
+    }
+
+    static boolean isFailure(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof IOException
+                && !(error instanceof CircuitBreakerOpenException)
+                && !(error instanceof RateLimitExceededException)
+                && !(error instanceof InterruptedIOException && Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Разрешенный вызов команды. Результат нужно передать в {@link #complete(Throwable)} ровно один раз
+     */
+    final class Call {
+        private final Circuit circuit;
+        private final int generation;
+        private final long started;
+
+        private Call(Circuit circuit, int generation) {
+            this.circuit = circuit;
+            this.generation = generation;
+            this.started = now();
+        }
+
+        /**
+         * @param error исключение вызова, либо null при успехе
+         */
+        void complete(Throwable error) {
+            circuit.record(generation, isFailure(error), now() - started >= slowCallNanos);
+        }
+    }
+
+    private final class Circuit {
+        private final String commandName;
+        private final boolean[] failures = new boolean[windowSize];
+        private final boolean[] slows = new boolean[windowSize];
+        private int position;
+        private int calls;
+        private int failureCount;
+        private int slowCount;
+
+        private State state = State.CLOSED;
+        /**
+         * Номер периода состояния. Результаты вызовов, начатых в другом периоде, не учитываются
+         */
+        private int generation;
+        private long openedAt;
+        private int halfOpenPermits;
+
+        Circuit(String commandName) {
+            this.commandName = commandName;
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        Call acquire() throws CircuitBreakerOpenException {
+            State from;
+            State to;
+            Call call;
+            synchronized (this) {
+                from = state;
+                if (state == State.OPEN) {
+                    if (now() - openedAt < openNanos) {
+                        throw new CircuitBreakerOpenException(commandName);
+                    }
+                    transition(State.HALF_OPEN);
+                }
+                if (state == State.HALF_OPEN) {
+                    if (halfOpenPermits == 0) {
+                        throw new CircuitBreakerOpenException(commandName);
+                    }
+                    halfOpenPermits--;
+                }
+                call = new Call(this, generation);
+                to = state;
+            }
+            notifyTransition(from, to);
+            return call;
+        }
+
+        void record(int callGeneration, boolean failure, boolean slow) {
+            State from;
+            State to;
+            synchronized (this) {
+                if (callGeneration != generation) {
+                    return;
+                }
+                from = state;
+                if (calls == windowSize) {
+                    failureCount -= failures[position] ? 1 : 0;
+                    slowCount -= slows[position] ? 1 : 0;
+                } else {
+                    calls++;
+                }
+                failures[position] = failure;
+                slows[position] = slow;
+                failureCount += failure ? 1 : 0;
+                slowCount += slow ? 1 : 0;
+                position = (position + 1) % windowSize;
+
+                int required = state == State.HALF_OPEN ? Math.min(halfOpenCalls, windowSize) : minimumCalls;
+                if (calls >= required) {
+                    if (exceeded()) {
+                        transition(State.OPEN);
+                    } else if (state == State.HALF_OPEN) {
+                        transition(State.CLOSED);
+                    }
+                }
+                to = state;
+            }
+            notifyTransition(from, to);
+        }
+
+        private boolean exceeded() {
+            return failureCount * 100f >= failureRateThreshold * calls
+                    || slowCount * 100f >= slowCallRateThreshold * calls;
+        }
+
+        private void transition(State to) {
+            state = to;
+            generation++;
+            position = 0;
+            calls = 0;
+            failureCount = 0;
+            slowCount = 0;
+            if (to == State.OPEN) {
+                openedAt = now();
+            } else if (to == State.HALF_OPEN) {
+                halfOpenPermits = halfOpenCalls;
+            }
+        }
+
+        private void notifyTransition(State from, State to) {
+            if (from == to) {
+                return;
+            }
+            LOGGER.info("circuit breaker for '" + commandName + "': " + from + " -> " + to);
+            if (listener != null) {
+                listener.onStateTransition(commandName, from, to);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private Ticker ticker = Ticker.systemTicker();
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 100;
+        private long slowCallNanos = TimeUnit.SECONDS.toNanos(10);
+        private long openNanos = TimeUnit.SECONDS.toNanos(30);
+        private int halfOpenCalls = 5;
+        private Listener listener;
+
+        private Builder() {
+        }
+
+        /**
+         * @param windowSize количество последних вызовов, по которым считаются доли ошибок. По умолчанию 100
+         * @param minimumCalls сколько вызовов нужно, чтобы предохранитель мог разомкнуться. По умолчанию 20
+         */
+        public Builder window(int windowSize, int minimumCalls) {
+            if (windowSize < 1 || minimumCalls < 1) {
+                throw new IllegalArgumentException("window size and minimum calls should be positive");
+            }
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * @param percent доля ошибок в процентах, при которой предохранитель размыкается. По умолчанию 50
+         */
+        public Builder failureRateThreshold(float percent) {
+            this.failureRateThreshold = checkPercent(percent);
+            return this;
+        }
+
+        /**
+         * @param percent  доля медленных вызовов в процентах, при которой предохранитель размыкается.
+         *                 По умолчанию 100
+         * @param duration вызов не короче этого времени считается медленным. По умолчанию 10 секунд
+         */
+        public Builder slowCallRateThreshold(float percent, long duration, TimeUnit unit) {
+            this.slowCallRateThreshold = checkPercent(percent);
+            this.slowCallNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * @param duration сколько предохранитель остается разомкнутым до пробных вызовов. По умолчанию 30 секунд
+         */
+        public Builder openDuration(long duration, TimeUnit unit) {
+            this.openNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * @param calls количество пробных вызовов в состоянии {@link State#HALF_OPEN}. По умолчанию 5
+         */
+        public Builder halfOpenCalls(int calls) {
+            if (calls < 1) {
+                throw new IllegalArgumentException("half-open calls should be positive: " + calls);
+            }
+            this.halfOpenCalls = calls;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        Builder ticker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public ApiCircuitBreaker build() {
+            return new ApiCircuitBreaker(this);
+        }
+
+        private static float checkPercent(float percent) {
+            if (!(percent > 0 && percent <= 100)) {
+                throw new IllegalArgumentException("percent should be in (0, 100]: " + percent);
+            }
+            return percent;
+        }
+    }
+}
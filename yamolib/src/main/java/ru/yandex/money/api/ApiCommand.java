@@ -0,0 +1,142 @@
+package ru.yandex.money.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.TypeAdapter;
+import ru.yandex.money.api.json.JsonDecoders;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.FundraisingStatsResponse;
+import ru.yandex.money.api.response.OperationDetailResponse;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+import ru.yandex.money.api.response.RequestPaymentResponse;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static ru.yandex.money.api.ApiCommandsFacadeImpl.*;
+
+/**
+ * <p>Описание команды API, которое не меняется от вызова к вызову: имя команды, постоянные параметры,
+ * декодер ответа и можно ли безопасно повторять запрос.</p>
+ * <p>Все команды с JSON-ответом описаны константами этого класса, фасады берут описание отсюда,
+ * а не собирают его при каждом вызове.</p>
+ */
+final class ApiCommand<T> {
+
+    /**
+     * Можно ли повторить запрос команды
+     */
+    enum Idempotency {
+        /**
+         * Команда ничего не меняет на сервере: запрос можно повторять, дублировать и объединять с одинаковыми
+         */
+        READ_ONLY,
+        /**
+         * Повтор запроса с теми же параметрами не выполняет действие второй раз (process-payment с тем же request_id)
+         */
+        IDEMPOTENT,
+        /**
+         * Каждый запрос - новое действие на сервере
+         */
+        NOT_IDEMPOTENT
+    }
+
+    static final ApiCommand<AccountInfoResponse> ACCOUNT_INFO = new ApiCommand<AccountInfoResponse>(
+            ACCOUNT_INFO_COMMAND_NAME, AccountInfoResponse.class, Idempotency.READ_ONLY, FormParams.EMPTY);
+
+    static final ApiCommand<OperationHistoryResponse> OPERATION_HISTORY = new ApiCommand<OperationHistoryResponse>(
+            OPERATION_HISTORY_COMMAND_NAME, OperationHistoryResponse.class, Idempotency.READ_ONLY, FormParams.EMPTY);
+
+    static final ApiCommand<OperationDetailResponse> OPERATION_DETAILS = new ApiCommand<OperationDetailResponse>(
+            OPERATION_DETAILS_COMMAND_NAME, OperationDetailResponse.class, Idempotency.READ_ONLY, FormParams.EMPTY);
+
+    static final ApiCommand<FundraisingStatsResponse> FUNDRAISING_STATS = new ApiCommand<FundraisingStatsResponse>(
+            FUNDRAISING_STATS_COMMAND_NAME, FundraisingStatsResponse.class, Idempotency.READ_ONLY, FormParams.EMPTY);
+
+    /**
+     * request-payment с произвольным pattern_id (платеж в магазин)
+     */
+    static final ApiCommand<RequestPaymentResponse> REQUEST_PAYMENT = new ApiCommand<RequestPaymentResponse>(
+            REQUEST_PAYMENT_COMMAND_NAME, RequestPaymentResponse.class, Idempotency.NOT_IDEMPOTENT, FormParams.EMPTY);
+
+    static final ApiCommand<RequestPaymentResponse> REQUEST_PAYMENT_P2P = new ApiCommand<RequestPaymentResponse>(
+            REQUEST_PAYMENT_COMMAND_NAME, RequestPaymentResponse.class, Idempotency.NOT_IDEMPOTENT,
+            FormParams.builder().put("pattern_id", "p2p").build());
+
+    static final ApiCommand<RequestPaymentResponse> REQUEST_PAYMENT_PHONE = new ApiCommand<RequestPaymentResponse>(
+            REQUEST_PAYMENT_COMMAND_NAME, RequestPaymentResponse.class, Idempotency.NOT_IDEMPOTENT,
+            FormParams.builder().put("pattern_id", "phone-topup").build());
+
+    static final ApiCommand<ProcessPaymentResponse> PROCESS_PAYMENT = new ApiCommand<ProcessPaymentResponse>(
+            PROCESS_PAYMENT_COMMAND_NAME, ProcessPaymentResponse.class, Idempotency.IDEMPOTENT, FormParams.EMPTY);
+
+    private static final Map<String, ApiCommand<?>> BY_NAME = ImmutableMap.<String, ApiCommand<?>>builder()
+            .put(ACCOUNT_INFO.name, ACCOUNT_INFO)
+            .put(OPERATION_HISTORY.name, OPERATION_HISTORY)
+            .put(OPERATION_DETAILS.name, OPERATION_DETAILS)
+            .put(FUNDRAISING_STATS.name, FUNDRAISING_STATS)
+            .put(REQUEST_PAYMENT.name, REQUEST_PAYMENT)
+            .put(PROCESS_PAYMENT.name, PROCESS_PAYMENT)
+            .build();
+
+    private final String name;
+    private final Class<T> responseClass;
+    private final TypeAdapter<T> decoder;
+    private final Idempotency idempotency;
+    private final FormParams staticParams;
+
+    private ApiCommand(String name, Class<T> responseClass, Idempotency idempotency, FormParams staticParams) {
+        this.name = name;
+        this.responseClass = responseClass;
+        this.decoder = JsonDecoders.forClass(responseClass);
+        this.idempotency = idempotency;
+        this.staticParams = staticParams;
+    }
+
+    /**
+     * @return описание команды по имени или null, если команда не описана.
+     * Для request-payment возвращается описание без постоянных параметров
+     */
+    static ApiCommand<?> forName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * @return описания всех команд, по одному на имя команды
+     */
+    static Collection<ApiCommand<?>> all() {
+        return BY_NAME.values();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Class<T> getResponseClass() {
+        return responseClass;
+    }
+
+    TypeAdapter<T> getDecoder() {
+        return decoder;
+    }
+
+    Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    boolean isReadOnly() {
+        return idempotency == Idempotency.READ_ONLY;
+    }
+
+    /**
+     * @return начало построения параметров запроса: постоянные параметры команды
+     */
+    FormParams.Builder params() {
+        return FormParams.builder(staticParams);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.money.api;
+
+import ru.yandex.money.api.enums.MoneySource;
+import ru.yandex.money.api.enums.OperationHistoryType;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Формирование параметров команд API. Общий код для синхронного и асинхронного фасадов.
+ * Параметры начинаются с постоянных параметров команды из {@link ApiCommand}.
+ */
+final class ApiCommandParams {
+
+    private static final ThreadLocal<SimpleDateFormat> RFC_3339 = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+        }
+    };
+
+    private ApiCommandParams() {
+    }
+
+    static FormParams operationHistory(Integer startRecord, Integer records,
+                                       OperationHistoryType operationsType, Boolean fetchDetails,
+                                       Date from, Date till, String label) {
+        return ApiCommand.OPERATION_HISTORY.params()
+                .putIfNotNull("start_record", startRecord)
+                .putIfNotNull("records", records)
+                .putIfNotNull("type", operationsType == null ? null : operationsType.getCode())
+                .putIfNotNull("details", fetchDetails)
+                .putIfNotNull("from", from == null ? null : formatDate(from))
+                .putIfNotNull("till", till == null ? null : formatDate(till))
+                .putIfNotNull("label", label)
+                .build();
+    }
+
+    static FormParams fundraisingStats(String label) {
+        return ApiCommand.FUNDRAISING_STATS.params().put("label", label).build();
+    }
+
+    static FormParams operationDetail(String operationId) {
+        return ApiCommand.OPERATION_DETAILS.params().put("operation_id", operationId).build();
+    }
+
+    static FormParams requestPaymentP2P(String to, IdentifierType identifierType, BigDecimal amount,
+                                        String comment, String message, String label) {
+        FormParams.Builder params = ApiCommand.REQUEST_PAYMENT_P2P.params()
+                .put("amount", String.valueOf(amount));
+        return requestPaymentP2P(to, identifierType, comment, message, label, params);
+    }
+
+    static FormParams requestPaymentP2PDue(String to, IdentifierType identifierType, BigDecimal amountDue,
+                                           String comment, String message, String label) {
+        FormParams.Builder params = ApiCommand.REQUEST_PAYMENT_P2P.params()
+                .put("amount_due", String.valueOf(amountDue));
+        return requestPaymentP2P(to, identifierType, comment, message, label, params);
+    }
+
+    private static FormParams requestPaymentP2P(String to, IdentifierType identifierType, String comment,
+                                                String message, String label, FormParams.Builder params) {
+        return params
+                .putIfNotNull("identifier_type", identifierType)
+                .put("to", to)
+                .putIfNotNull("comment", comment)
+                .putIfNotNull("message", message)
+                .putIfNotNull("label", label)
+                .build();
+    }
+
+    static FormParams requestPaymentToPhone(String phone, BigDecimal amount) {
+        return ApiCommand.REQUEST_PAYMENT_PHONE.params()
+                .put("phone-number", phone)
+                .put("amount", String.valueOf(amount))
+                .build();
+    }
+
+    static FormParams requestPaymentShop(String patternId, Map<String, String> params,
+                                         boolean showContractDetails) {
+        FormParams.Builder pars = ApiCommand.REQUEST_PAYMENT.params()
+                .put("pattern_id", patternId)
+                .putAll(params);
+        if (showContractDetails) {
+            pars.put("show_contract_details", "true");
+        }
+        return pars.build();
+    }
+
+    static FormParams processPayment(String requestId, MoneySource moneySource, String csc) {
+        FormParams.Builder params = ApiCommand.PROCESS_PAYMENT.params()
+                .put("request_id", requestId)
+                .put("money_source", moneySource.toString());
+        if (csc != null && (moneySource.equals(MoneySource.card))) {
+            params.put("csc", csc);
+        }
+        return params.build();
+    }
+
+    static String formatDate(Date date) {
+        return RFC_3339.get().format(date).replaceAll("(\\d\\d)(\\d\\d)$", "$1:$2");
+    }
+}
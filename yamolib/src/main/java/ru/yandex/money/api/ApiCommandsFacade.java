@@ -2,12 +2,14 @@ package ru.yandex.money.api;
 
 import ru.yandex.money.api.enums.OperationHistoryType;
 import ru.yandex.money.api.response.*;
+import ru.yandex.money.api.response.util.Operation;
 import ru.yandex.money.api.rights.IdentifierType;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Команды, использующие авторизационный токен для выполнения действий от имени пользователя.
@@ -172,6 +174,36 @@ public interface ApiCommandsFacade {
                                               Date from, Date till, String label) throws IOException,
             InvalidTokenException, InsufficientScopeException;
 
+    /**
+     * <p>Запрос страницы истории операций с потоковой обработкой.
+     * Операции передаются в <code>consumer</code> по одной, по мере разбора ответа сервера,
+     * и не накапливаются в списке. Номер следующей записи и ошибка возвращаются в ответе.</p>
+     * <p>В {@link ApiCommandsFacadeImpl} список операций в ответе пустой, а обработчик вызывается
+     * в потоке, выполняющем запрос, поэтому он не должен выполнять долгих действий. Тело ответа
+     * читается из соединения по мере разбора, кроме транспорта {@link YamoneyJdkHttpApiClient},
+     * который сначала получает тело целиком.</p>
+     * <p>Реализация по умолчанию загружает страницу обычным запросом и передает обработчику
+     * операции из полученного ответа; список операций в ответе при этом остается.</p>
+     *
+     * @param consumer обработчик операций
+     * @see #operationHistory(String, Integer, Integer, OperationHistoryType, Boolean, Date, Date, String)
+     */
+    default OperationHistoryResponse operationHistory(String accessToken,
+                                                      Integer startRecord, Integer records,
+                                                      OperationHistoryType operationsType, Boolean fetchDetails,
+                                                      Date from, Date till, String label,
+                                                      Consumer<? super Operation> consumer) throws IOException,
+            InvalidTokenException, InsufficientScopeException {
+        OperationHistoryResponse response = operationHistory(accessToken, startRecord, records, operationsType,
+                fetchDetails, from, till, label);
+        if (response.getOperations() != null) {
+            for (Operation operation : response.getOperations()) {
+                consumer.accept(operation);
+            }
+        }
+        return response;
+    }
+
     /**
      * Команда запроса статистики по входящим платежам пользователя, выполненных с определенной меткой.
      * Требует права токена operation-details
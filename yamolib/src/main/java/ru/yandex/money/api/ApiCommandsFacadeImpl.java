@@ -1,20 +1,19 @@
 package ru.yandex.money.api;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import ru.yandex.money.api.enums.MoneySource;
 import ru.yandex.money.api.enums.OperationHistoryType;
 import ru.yandex.money.api.response.*;
+import ru.yandex.money.api.response.util.Operation;
 import ru.yandex.money.api.rights.IdentifierType;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * <p>Класс для работы с командами API Яндекс.Деньги. </p>
@@ -39,15 +38,9 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
     public static final String REVOKE_COMMAND_NAME = "revoke";
     public static final String FUNDRAISING_STATS_COMMAND_NAME = "fundraising-stats";
 
-    private static final ThreadLocal<SimpleDateFormat> RFC_3339 = new ThreadLocal<SimpleDateFormat>() {
-        @Override
-        protected SimpleDateFormat initialValue() {
-            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
-        }
-    };
-
     private final CommandUrlHolder uri;
     private final YamoneyApiClient<?, ?> yamoneyApiClient;
+    private final SingleFlight singleFlight;
 
     /**
      * Создает экземпляр класса.
@@ -68,8 +61,7 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
      *               c таймаутом до 60 секунд.
      */
     public ApiCommandsFacadeImpl(HttpClient client, CommandUrlHolder urlHolder) {
-        this.yamoneyApiClient = new YamoneyApiHttpClient(client);
-        this.uri = urlHolder;
+        this(new YamoneyApiHttpClient(client), urlHolder);
     }
 
     /**
@@ -87,6 +79,53 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
         this(client, new CommandUrlHolder.ConstantUrlHolder(yandexMoneyTestUrl));
     }
 
+    /**
+     * Создает экземпляр класса, работающий через произвольный транспорт.
+     *
+     * @param client транспорт для взаимодействия с сервером Яндекс.Деньги: {@link YamoneyApiHttpClient},
+     *               {@link YamoneyOkApiClient}, {@link YamoneyJdkHttpApiClient} и т.д.
+     *               Подходящий транспорт можно выбрать через {@link ru.yandex.money.api.transport.YamoneyTransports}
+     */
+    public ApiCommandsFacadeImpl(YamoneyApiClient<?, ?> client) {
+        this(client, URI_YM_API);
+    }
+
+    /**
+     * Создает экземпляр класса, работающий через произвольный транспорт.
+     *
+     * @param client    транспорт для взаимодействия с сервером Яндекс.Деньги
+     * @param urlHolder источник адресов команд
+     */
+    public ApiCommandsFacadeImpl(YamoneyApiClient<?, ?> client, CommandUrlHolder urlHolder) {
+        this(client, urlHolder, false);
+    }
+
+    /**
+     * Создает экземпляр класса, работающий через произвольный транспорт.
+     *
+     * @param client        транспорт для взаимодействия с сервером Яндекс.Деньги
+     * @param urlHolder     источник адресов команд
+     * @param coalesceReads объединять одновременные одинаковые запросы account-info, operation-history,
+     *                      operation-details и fundraising-stats: потоки получают ответ (или исключение)
+     *                      одного запроса к серверу. Ответ в таком случае - общий объект, менять его нельзя
+     */
+    public ApiCommandsFacadeImpl(YamoneyApiClient<?, ?> client, CommandUrlHolder urlHolder, boolean coalesceReads) {
+        this.yamoneyApiClient = client;
+        this.uri = urlHolder;
+        this.singleFlight = coalesceReads ? new SingleFlight() : null;
+    }
+
+    /**
+     * Создает экземпляр класса, работающий через произвольный транспорт.
+     *
+     * @param client             транспорт для взаимодействия с сервером Яндекс.Деньги
+     * @param yandexMoneyTestUrl адрес тестововго хоста. Используйте для отладки,
+     *                           если у вас есть "эмулятор" Яндекс.Денег
+     */
+    public ApiCommandsFacadeImpl(YamoneyApiClient<?, ?> client, String yandexMoneyTestUrl) {
+        this(client, new CommandUrlHolder.ConstantUrlHolder(yandexMoneyTestUrl));
+    }
+
     /**
      * Запрос данных о счете. Баланс, статус идентифицированнности, является ли профессиональным счетом.
      *
@@ -99,7 +138,7 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
     @Override
     public AccountInfoResponse accountInfo(String accessToken)
             throws IOException, InvalidTokenException, InsufficientScopeException {
-        return yamoneyApiClient.executeForJsonObjectFunc(uri, ACCOUNT_INFO_COMMAND_NAME, Collections.<String, String>emptyMap(), accessToken, AccountInfoResponse.class);
+        return execute(ApiCommand.ACCOUNT_INFO, FormParams.EMPTY, accessToken);
     }
 
     @Override
@@ -135,29 +174,32 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
                                                      Date from, Date till, String label) throws IOException,
             InvalidTokenException, InsufficientScopeException {
 
-        Map<String, String> params = Maps.newHashMap();
+        Map<String, String> params = ApiCommandParams.operationHistory(
+                startRecord, records, operationsType, fetchDetails, from, till, label);
 
-        addParamIfNotNull("start_record", startRecord, params);
-        addParamIfNotNull("records", records, params);
-        addParamIfNotNull("type", operationsType.getCode(), params);
-        addParamIfNotNull("details", fetchDetails, params);
-        addParamIfNotNull("from", from, params);
-        addParamIfNotNull("till", till, params);
-        addParamIfNotNull("label", label, params);
+        return execute(ApiCommand.OPERATION_HISTORY, params, accessToken);
+    }
 
-        return yamoneyApiClient.executeForJsonObjectFunc(
-                uri, OPERATION_HISTORY_COMMAND_NAME, params, accessToken, OperationHistoryResponse.class);
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken,
+                                                     Integer startRecord, Integer records,
+                                                     OperationHistoryType operationsType, Boolean fetchDetails,
+                                                     Date from, Date till, String label,
+                                                     Consumer<? super Operation> consumer) throws IOException,
+            InvalidTokenException, InsufficientScopeException {
+
+        Map<String, String> params = ApiCommandParams.operationHistory(
+                startRecord, records, operationsType, fetchDetails, from, till, label);
+
+        return yamoneyApiClient.executeForJsonObjectFunc(uri, OPERATION_HISTORY_COMMAND_NAME, params, accessToken,
+                new OperationHistoryResponse.JsonAdapter(consumer));
     }
 
     @Override
     public FundraisingStatsResponse fundraisingStats(String accessToken, String label)
             throws IOException, InvalidTokenException, InsufficientScopeException {
 
-        Map<String, String> params = ImmutableMap.of(
-                "label", label
-        );
-        return yamoneyApiClient.executeForJsonObjectFunc(
-                uri, FUNDRAISING_STATS_COMMAND_NAME, params, accessToken, FundraisingStatsResponse.class);
+        return execute(ApiCommand.FUNDRAISING_STATS, ApiCommandParams.fundraisingStats(label), accessToken);
     }
 
     @Override
@@ -165,11 +207,7 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
                                                    String operationId) throws IOException, InvalidTokenException,
             InsufficientScopeException {
 
-        Map<String, String> params = ImmutableMap.of(
-                "operation_id", operationId
-        );
-        return yamoneyApiClient.executeForJsonObjectFunc(
-                uri, OPERATION_DETAILS_COMMAND_NAME, params, accessToken, OperationDetailResponse.class);
+        return execute(ApiCommand.OPERATION_DETAILS, ApiCommandParams.operationDetail(operationId), accessToken);
     }
 
     @Override
@@ -177,9 +215,7 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
                                                     BigDecimal amount, String comment, String message)
             throws IOException, InvalidTokenException, InsufficientScopeException {
 
-        Map<String, String> params = Maps.newHashMap();
-        params.put("amount", String.valueOf(amount));
-        return requestPaymentP2P(accessToken, to, comment, message, null, params);
+        return requestPaymentP2P(accessToken, to, null, amount, comment, message, null);
     }
 
     @Override
@@ -187,10 +223,9 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
                                                     BigDecimal amount, String comment, String message, String label)
             throws IOException, InvalidTokenException, InsufficientScopeException {
 
-        Map<String, String> params = Maps.newHashMap();
-        params.put("amount", String.valueOf(amount));
-        addParamIfNotNull("identifier_type", identifierType, params);
-        return requestPaymentP2P(accessToken, to, comment, message, label, params);
+        Map<String, String> params = ApiCommandParams.requestPaymentP2P(
+                to, identifierType, amount, comment, message, label);
+        return execute(ApiCommand.REQUEST_PAYMENT_P2P, params, accessToken);
     }
 
     @Override
@@ -199,38 +234,17 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
                                                        String label)
             throws IOException, InvalidTokenException, InsufficientScopeException {
 
-        Map<String, String> params = Maps.newHashMap();
-        params.put("amount_due", String.valueOf(amountDue));
-        addParamIfNotNull("identifier_type", identifierType, params);
-        return requestPaymentP2P(accessToken, to, comment, message, label, params);
-    }
-
-    private RequestPaymentResponse requestPaymentP2P(String accessToken, String to,
-                                                     String comment, String message, String label,
-                                                     Map<String, String> params)
-            throws IOException, InvalidTokenException, InsufficientScopeException {
-
-        params.put("pattern_id", "p2p");
-        params.put("to", to);
-        addParamIfNotNull("comment", comment, params);
-        addParamIfNotNull("message", message, params);
-        addParamIfNotNull("label", label, params);
-
-        return yamoneyApiClient.executeForJsonObjectFunc(
-                uri, REQUEST_PAYMENT_COMMAND_NAME, params, accessToken, RequestPaymentResponse.class);
+        Map<String, String> params = ApiCommandParams.requestPaymentP2PDue(
+                to, identifierType, amountDue, comment, message, label);
+        return execute(ApiCommand.REQUEST_PAYMENT_P2P, params, accessToken);
     }
 
     @Override
     public RequestPaymentResponse requestPaymentToPhone(String accessToken, String phone, BigDecimal amount)
             throws InsufficientScopeException, InvalidTokenException, IOException {
 
-        Map<String, String> params = ImmutableMap.of(
-                "pattern_id", "phone-topup",
-                "phone-number", phone,
-                "amount", String.valueOf(amount));
-
-        return yamoneyApiClient.executeForJsonObjectFunc(
-                uri, REQUEST_PAYMENT_COMMAND_NAME, params, accessToken, RequestPaymentResponse.class);
+        return execute(ApiCommand.REQUEST_PAYMENT_PHONE,
+                ApiCommandParams.requestPaymentToPhone(phone, amount), accessToken);
     }
 
     @Override
@@ -246,17 +260,8 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
                                                      Map<String, String> params, boolean showContractDetails) throws IOException,
             InvalidTokenException, InsufficientScopeException {
 
-        Map<String, String> pars = Maps.newHashMap();
-        pars.put("pattern_id", patternId);
-        for (String name : params.keySet()) {
-            pars.put(name, params.get(name));
-        }
-        if (showContractDetails) {
-            pars.put("show_contract_details", "true");
-        }
-
-        return yamoneyApiClient.executeForJsonObjectFunc(
-                uri, REQUEST_PAYMENT_COMMAND_NAME, pars, accessToken, RequestPaymentResponse.class);
+        Map<String, String> pars = ApiCommandParams.requestPaymentShop(patternId, params, showContractDetails);
+        return execute(ApiCommand.REQUEST_PAYMENT, pars, accessToken);
     }
 
     @Override
@@ -278,14 +283,8 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
             throws IOException, InsufficientScopeException,
             InvalidTokenException {
 
-        Map<String, String> params = Maps.newHashMap();
-        params.put("request_id", requestId);
-        params.put("money_source", moneySource.toString());
-        if (csc != null && (moneySource.equals(MoneySource.card))) {
-            params.put("csc", csc);
-        }
-        return yamoneyApiClient.executeForJsonObjectFunc(
-                uri, PROCESS_PAYMENT_COMMAND_NAME, params, accessToken, ProcessPaymentResponse.class);
+        return execute(ApiCommand.PROCESS_PAYMENT,
+                ApiCommandParams.processPayment(requestId, moneySource, csc), accessToken);
     }
 
     @Override
@@ -312,20 +311,25 @@ public class ApiCommandsFacadeImpl implements ApiCommandsFacade {
         }
     }
 
-    private void addParamIfNotNull(String paramName, Object value, Map<String, String> params) {
-        if (value != null) {
-            params.put(paramName, String.valueOf(value));
-        }
-    }
+    /**
+     * Выполняет команду. Если включено объединение запросов, одновременные одинаковые вызовы команд,
+     * которые ничего не меняют на сервере, выполняются одним запросом
+     */
+    private <T> T execute(final ApiCommand<T> command, final Map<String, String> params, final String accessToken)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
 
-    private void addParamIfNotNull(String paramName, Date date, Map<String, String> params) {
-        if (date == null) {
-            return;
+        if (singleFlight == null || !command.isReadOnly()) {
+            return yamoneyApiClient.executeCommand(uri, command, params, accessToken);
         }
-        params.put(paramName, formatDate(date));
+        return singleFlight.execute(command.getName(), accessToken, params, new SingleFlight.Call<T>() {
+            @Override
+            public T call() throws IOException, InvalidTokenException, InsufficientScopeException {
+                return yamoneyApiClient.executeCommand(uri, command, params, accessToken);
+            }
+        });
     }
 
     String formatDate(Date date) {
-        return RFC_3339.get().format(date).replaceAll("(\\d\\d)(\\d\\d)$", "$1:$2");
+        return ApiCommandParams.formatDate(date);
     }
 }
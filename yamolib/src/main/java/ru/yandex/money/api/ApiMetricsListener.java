@@ -0,0 +1,13 @@
+package ru.yandex.money.api;
+
+/**
+ * <p>Получатель измерений выполненных команд API: время выполнения, http-статус, ошибка, объем ответа.</p>
+ * <p>Вызывается после каждой команды, в потоке, который ее завершил (для асинхронного транспорта - в потоке
+ * http-клиента), поэтому не должен блокироваться. Исключения получателя пишутся в лог и не влияют на команду.</p>
+ * <p>Подключается к транспорту через {@link YamoneyApiClient#setMetricsListener(ApiMetricsListener)}.
+ * Готовая реализация с гистограммами времени ответа - {@link ru.yandex.money.api.metrics.CommandLatencyRecorder}.</p>
+ */
+public interface ApiMetricsListener {
+
+    void onCommand(CommandMetrics metrics);
+}
@@ -0,0 +1,304 @@
+package ru.yandex.money.api;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Ограничение частоты запросов к API на стороне клиента, по алгоритму token bucket.</p>
+ * <p>Каждый запрос берет по одному разрешению из каждой подходящей "корзины": общей для приложения,
+ * корзины токена и корзины команды. Корзина пополняется с постоянной скоростью
+ * <code>permitsPerSecond</code> и вмещает не больше <code>burst</code> разрешений.
+ * Если в какой-то корзине разрешения кончились, запрос ждет, пока они появятся во всех корзинах.</p>
+ * <p>Общий лимит действует на все запросы, прошедшие через этот экземпляр: чтобы соблюдать лимит
+ * на client_id приложения, используйте один экземпляр во всех транспортах приложения
+ * ({@link YamoneyApiClient#setRateLimiter(ApiRateLimiter)}).</p>
+ *
+ * <pre>
+ * ApiRateLimiter limiter = ApiRateLimiter.builder()
+ *         .global(50, 100)
+ *         .perToken(5, 10)
+ *         .perCommand(ApiCommandsFacadeImpl.PROCESS_PAYMENT_COMMAND_NAME, 2, 2)
+ *         .mode(ApiRateLimiter.Mode.WAIT)
+ *         .build();
+ * </pre>
+ */
+public class ApiRateLimiter {
+
+    /**
+     * Поведение транспорта, когда разрешений нет
+     */
+    public enum Mode {
+        /**
+         * Дождаться разрешения. Асинхронный транспорт откладывает отправку запроса, не занимая поток
+         */
+        WAIT,
+        /**
+         * Не отправлять запрос и сразу выбросить {@link RateLimitExceededException}
+         */
+        FAIL_FAST
+    }
+
+    private final Ticker ticker;
+    private final Mode mode;
+    private final TokenBucket global;
+    private final Map<String, TokenBucket> commands;
+    private final LoadingCache<String, TokenBucket> tokens;
+
+    private ApiRateLimiter(Builder builder) {
+        this.ticker = builder.ticker;
+        this.mode = builder.mode;
+        this.global = builder.global == null ? null : builder.global.newBucket(ticker.read());
+        this.commands = new HashMap<String, TokenBucket>();
+        for (Map.Entry<String, Limit> entry : builder.commands.entrySet()) {
+            commands.put(entry.getKey(), entry.getValue().newBucket(ticker.read()));
+        }
+        final Limit perToken = builder.perToken;
+        // корзина, которой не пользовались дольше времени полного пополнения, снова полна:
+        // ее можно удалить и при следующем запросе создать заново
+        this.tokens = perToken == null ? null : CacheBuilder.newBuilder()
+                .expireAfterAccess(Math.max(perToken.refillNanos(), TimeUnit.MINUTES.toNanos(1)), TimeUnit.NANOSECONDS)
+                .build(new CacheLoader<String, TokenBucket>() {
+                    @Override
+                    public TokenBucket load(String accessToken) {
+                        return perToken.newBucket(ticker.read());
+                    }
+                });
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Ждет разрешения на запрос.
+     *
+     * @param accessToken токен запроса, может быть null
+     * @param commandName имя команды API
+     */
+    public void acquire(String accessToken, String commandName) throws InterruptedException {
+        long waitNanos = reserve(accessToken, commandName, false);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Берет разрешение на запрос, если оно есть прямо сейчас.
+     *
+     * @return false, если разрешения нет. В этом случае разрешения ни из одной корзины не берутся
+     */
+    public boolean tryAcquire(String accessToken, String commandName) {
+        return reserve(accessToken, commandName, true) == 0;
+    }
+
+    /**
+     * Резервирует разрешение на запрос, не блокируя поток.
+     *
+     * @return future, которое завершится, когда запрос можно будет отправить
+     */
+    public CompletableFuture<Void> acquireAsync(String accessToken, String commandName) {
+        long waitNanos = reserve(accessToken, commandName, false);
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Получает разрешение перед отправкой запроса синхронным транспортом, в соответствии с {@link #getMode()}
+     */
+    void beforeRequest(String accessToken, String commandName) throws IOException {
+        if (mode == Mode.FAIL_FAST) {
+            if (!tryAcquire(accessToken, commandName)) {
+                throw new RateLimitExceededException("rate limit exceeded: " + commandName);
+            }
+            return;
+        }
+        try {
+            acquire(accessToken, commandName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for rate limit");
+        }
+    }
+
+    /**
+     * Получает разрешение перед отправкой запроса асинхронным транспортом, в соответствии с {@link #getMode()}
+     */
+    CompletableFuture<Void> beforeRequestAsync(String accessToken, String commandName) {
+        if (mode == Mode.FAIL_FAST) {
+            if (!tryAcquire(accessToken, commandName)) {
+                CompletableFuture<Void> result = new CompletableFuture<Void>();
+                result.completeExceptionally(new RateLimitExceededException("rate limit exceeded: " + commandName));
+                return result;
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        return acquireAsync(accessToken, commandName);
+    }
+
+    /**
+     * Берет по разрешению из всех подходящих корзин. Разрешение может быть взято "в долг":
+     * корзина уходит в минус, а запрос ждет, пока долг не будет погашен пополнением.
+     *
+     * @param onlyIfAvailable не брать разрешения, если их нет хотя бы в одной корзине
+     * @return сколько наносекунд нужно подождать перед запросом, либо -1, если разрешения не взяты
+     */
+    private long reserve(String accessToken, String commandName, boolean onlyIfAvailable) {
+        List<TokenBucket> buckets = new ArrayList<TokenBucket>(3);
+        if (global != null) {
+            buckets.add(global);
+        }
+        TokenBucket command = commands.get(commandName);
+        if (command != null) {
+            buckets.add(command);
+        }
+        if (tokens != null && accessToken != null) {
+            buckets.add(tokens.getUnchecked(accessToken));
+        }
+
+        synchronized (this) {
+            long now = ticker.read();
+            long waitNanos = 0;
+            for (TokenBucket bucket : buckets) {
+                waitNanos = Math.max(waitNanos, bucket.waitNanos(now));
+            }
+            if (onlyIfAvailable && waitNanos > 0) {
+                return -1;
+            }
+            for (TokenBucket bucket : buckets) {
+                bucket.take();
+            }
+            return waitNanos;
+        }
+    }
+
+    /**
+     * Лимит запросов
+     */
+    static final class Limit {
+        private final double permitsPerSecond;
+        private final int burst;
+
+        Limit(double permitsPerSecond, int burst) {
+            if (!(permitsPerSecond > 0)) {
+                throw new IllegalArgumentException("permitsPerSecond should be positive: " + permitsPerSecond);
+            }
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst should be positive: " + burst);
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        long refillNanos() {
+            return (long) (burst / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        TokenBucket newBucket(long now) {
+            return new TokenBucket(permitsPerSecond / TimeUnit.SECONDS.toNanos(1), burst, now);
+        }
+    }
+
+    /**
+     * Корзина разрешений. Методы вызываются под блокировкой {@link ApiRateLimiter}
+     */
+    static final class TokenBucket {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double permits;
+        private long updated;
+
+        TokenBucket(double permitsPerNano, double capacity, long now) {
+            this.permitsPerNano = permitsPerNano;
+            this.capacity = capacity;
+            this.permits = capacity;
+            this.updated = now;
+        }
+
+        /**
+         * Пополняет корзину на момент <code>now</code>
+         *
+         * @return сколько наносекунд ждать появления разрешения
+         */
+        long waitNanos(long now) {
+            if (now > updated) {
+                permits = Math.min(capacity, permits + (now - updated) * permitsPerNano);
+                updated = now;
+            }
+            return permits >= 1 ? 0 : (long) Math.ceil((1 - permits) / permitsPerNano);
+        }
+
+        void take() {
+            permits -= 1;
+        }
+    }
+
+    public static final class Builder {
+        private Ticker ticker = Ticker.systemTicker();
+        private Mode mode = Mode.WAIT;
+        private Limit global;
+        private Limit perToken;
+        private final Map<String, Limit> commands = new HashMap<String, Limit>();
+
+        private Builder() {
+        }
+
+        /**
+         * Общий лимит на все запросы
+         */
+        public Builder global(double permitsPerSecond, int burst) {
+            this.global = new Limit(permitsPerSecond, burst);
+            return this;
+        }
+
+        /**
+         * Лимит на запросы с одним токеном
+         */
+        public Builder perToken(double permitsPerSecond, int burst) {
+            this.perToken = new Limit(permitsPerSecond, burst);
+            return this;
+        }
+
+        /**
+         * Лимит на запросы команды <code>commandName</code>, со всеми токенами
+         */
+        public Builder perCommand(String commandName, double permitsPerSecond, int burst) {
+            commands.put(commandName, new Limit(permitsPerSecond, burst));
+            return this;
+        }
+
+        public Builder mode(Mode mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        Builder ticker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public ApiRateLimiter build() {
+            return new ApiRateLimiter(this);
+        }
+    }
+}
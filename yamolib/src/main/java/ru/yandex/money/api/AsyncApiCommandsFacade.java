@@ -0,0 +1,122 @@
+package ru.yandex.money.api;
+
+import ru.yandex.money.api.enums.OperationHistoryType;
+import ru.yandex.money.api.response.*;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>Асинхронный вариант {@link ApiCommandsFacade}. Методы не блокируют вызывающий поток,
+ * а сразу возвращают {@link CompletableFuture}, который будет завершен ответом сервера.</p>
+ * <p>При ошибке future завершается теми же исключениями, что и соответствующий
+ * синхронный метод: {@link java.io.IOException}, {@link InvalidTokenException},
+ * {@link InsufficientScopeException}. Отмена future прерывает выполнение запроса.</p>
+ * <p>Описание параметров и возвращаемых значений см. в {@link ApiCommandsFacade}.</p>
+ */
+public interface AsyncApiCommandsFacade {
+
+    /**
+     * @see ApiCommandsFacade#revokeOAuthToken(String)
+     */
+    CompletableFuture<Void> revokeOAuthToken(String accessToken);
+
+    /**
+     * @see ApiCommandsFacade#accountInfo(String)
+     */
+    CompletableFuture<AccountInfoResponse> accountInfo(String accessToken);
+
+    /**
+     * @see ApiCommandsFacade#operationHistory(String)
+     */
+    CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken);
+
+    /**
+     * @see ApiCommandsFacade#operationHistory(String, Integer)
+     */
+    CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken, Integer startRecord);
+
+    /**
+     * @see ApiCommandsFacade#operationHistory(String, Integer, Integer)
+     */
+    CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken,
+                                                                 Integer startRecord, Integer records);
+
+    /**
+     * @see ApiCommandsFacade#operationHistory(String, Integer, Integer, OperationHistoryType)
+     */
+    CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken,
+                                                                 Integer startRecord, Integer records,
+                                                                 OperationHistoryType operationsType);
+
+    /**
+     * @see ApiCommandsFacade#operationHistory(String, Integer, Integer, OperationHistoryType, Boolean, Date, Date, String)
+     */
+    CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken,
+                                                                 Integer startRecord, Integer records,
+                                                                 OperationHistoryType operationsType,
+                                                                 Boolean fetchDetails,
+                                                                 Date from, Date till, String label);
+
+    /**
+     * @see ApiCommandsFacade#operationDetail(String, String)
+     */
+    CompletableFuture<OperationDetailResponse> operationDetail(String accessToken, String operationId);
+
+    /**
+     * @see ApiCommandsFacade#fundraisingStats(String, String)
+     */
+    CompletableFuture<FundraisingStatsResponse> fundraisingStats(String accessToken, String label);
+
+    /**
+     * @see ApiCommandsFacade#requestPaymentP2P(String, String, BigDecimal, String, String)
+     */
+    CompletableFuture<RequestPaymentResponse> requestPaymentP2P(String accessToken, String to, BigDecimal amount,
+                                                                String comment, String message);
+
+    /**
+     * @see ApiCommandsFacade#requestPaymentP2P(String, String, IdentifierType, BigDecimal, String, String, String)
+     */
+    CompletableFuture<RequestPaymentResponse> requestPaymentP2P(String accessToken, String to,
+                                                                IdentifierType identifierType, BigDecimal amount,
+                                                                String comment, String message, String label);
+
+    /**
+     * @see ApiCommandsFacade#requestPaymentP2PDue(String, String, IdentifierType, BigDecimal, String, String, String)
+     */
+    CompletableFuture<RequestPaymentResponse> requestPaymentP2PDue(String accessToken, String to,
+                                                                   IdentifierType identifierType, BigDecimal amountDue,
+                                                                   String comment, String message, String label);
+
+    /**
+     * @see ApiCommandsFacade#requestPaymentShop(String, String, Map)
+     */
+    CompletableFuture<RequestPaymentResponse> requestPaymentShop(String accessToken, String patternId,
+                                                                 Map<String, String> params);
+
+    /**
+     * @see ApiCommandsFacade#requestPaymentShop(String, String, Map, boolean)
+     */
+    CompletableFuture<RequestPaymentResponse> requestPaymentShop(String accessToken, String patternId,
+                                                                 Map<String, String> params,
+                                                                 boolean showContractDetails);
+
+    /**
+     * @see ApiCommandsFacade#requestPaymentToPhone(String, String, BigDecimal)
+     */
+    CompletableFuture<RequestPaymentResponse> requestPaymentToPhone(String accessToken, String phone,
+                                                                    BigDecimal amount);
+
+    /**
+     * @see ApiCommandsFacade#processPaymentByCard(String, String, String)
+     */
+    CompletableFuture<ProcessPaymentResponse> processPaymentByCard(String accessToken, String requestId, String csc);
+
+    /**
+     * @see ApiCommandsFacade#processPaymentByWallet(String, String)
+     */
+    CompletableFuture<ProcessPaymentResponse> processPaymentByWallet(String accessToken, String requestId);
+}
@@ -0,0 +1,204 @@
+package ru.yandex.money.api;
+
+import org.apache.http.HttpStatus;
+import ru.yandex.money.api.enums.MoneySource;
+import ru.yandex.money.api.enums.OperationHistoryType;
+import ru.yandex.money.api.response.*;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.yandex.money.api.ApiCommandsFacadeImpl.*;
+
+/**
+ * <p>Асинхронная реализация команд API Яндекс.Деньги.</p>
+ * <p>Работает поверх неблокирующего транспорта ({@link YamoneyAsyncApiClient}),
+ * поэтому количество одновременно выполняемых запросов не ограничено числом потоков приложения.</p>
+ */
+public class AsyncApiCommandsFacadeImpl implements AsyncApiCommandsFacade {
+
+    private final CommandUrlHolder uri;
+    private final YamoneyAsyncApiClient<?, ?> yamoneyApiClient;
+
+    /**
+     * Создает экземпляр класса.
+     *
+     * @param client неблокирующий транспорт, например {@link YamoneyApiAsyncHttpClient}
+     */
+    public AsyncApiCommandsFacadeImpl(YamoneyAsyncApiClient<?, ?> client) {
+        this(client, ApiCommandsFacade.URI_YM_API);
+    }
+
+    /**
+     * Создает экземпляр класса.
+     *
+     * @param client    неблокирующий транспорт, например {@link YamoneyApiAsyncHttpClient}
+     * @param urlHolder источник адресов команд
+     */
+    public AsyncApiCommandsFacadeImpl(YamoneyAsyncApiClient<?, ?> client, CommandUrlHolder urlHolder) {
+        this.yamoneyApiClient = client;
+        this.uri = urlHolder;
+    }
+
+    /**
+     * Создает экземпляр класса.
+     *
+     * @param client             неблокирующий транспорт, например {@link YamoneyApiAsyncHttpClient}
+     * @param yandexMoneyTestUrl адрес тестововго хоста. Используйте для отладки,
+     *                           если у вас есть "эмулятор" Яндекс.Денег
+     */
+    public AsyncApiCommandsFacadeImpl(YamoneyAsyncApiClient<?, ?> client, String yandexMoneyTestUrl) {
+        this(client, new CommandUrlHolder.ConstantUrlHolder(yandexMoneyTestUrl));
+    }
+
+    @Override
+    public CompletableFuture<AccountInfoResponse> accountInfo(String accessToken) {
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.ACCOUNT_INFO, FormParams.EMPTY, accessToken);
+    }
+
+    @Override
+    public CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken) {
+        return operationHistory(accessToken, null, null);
+    }
+
+    @Override
+    public CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken, Integer startRecord) {
+        return operationHistory(accessToken, startRecord, null);
+    }
+
+    @Override
+    public CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken,
+                                                                        Integer startRecord, Integer records) {
+        return operationHistory(accessToken, startRecord, records, null);
+    }
+
+    @Override
+    public CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken,
+                                                                        Integer startRecord, Integer records,
+                                                                        OperationHistoryType operationsType) {
+        return operationHistory(accessToken, startRecord, records, operationsType, null, null, null, null);
+    }
+
+    @Override
+    public CompletableFuture<OperationHistoryResponse> operationHistory(String accessToken,
+                                                                        Integer startRecord, Integer records,
+                                                                        OperationHistoryType operationsType,
+                                                                        Boolean fetchDetails,
+                                                                        Date from, Date till, String label) {
+
+        Map<String, String> params = ApiCommandParams.operationHistory(
+                startRecord, records, operationsType, fetchDetails, from, till, label);
+
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.OPERATION_HISTORY, params, accessToken);
+    }
+
+    @Override
+    public CompletableFuture<OperationDetailResponse> operationDetail(String accessToken, String operationId) {
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.OPERATION_DETAILS,
+                ApiCommandParams.operationDetail(operationId), accessToken);
+    }
+
+    @Override
+    public CompletableFuture<FundraisingStatsResponse> fundraisingStats(String accessToken, String label) {
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.FUNDRAISING_STATS,
+                ApiCommandParams.fundraisingStats(label), accessToken);
+    }
+
+    @Override
+    public CompletableFuture<RequestPaymentResponse> requestPaymentP2P(String accessToken, String to,
+                                                                       BigDecimal amount, String comment,
+                                                                       String message) {
+        return requestPaymentP2P(accessToken, to, null, amount, comment, message, null);
+    }
+
+    @Override
+    public CompletableFuture<RequestPaymentResponse> requestPaymentP2P(String accessToken, String to,
+                                                                       IdentifierType identifierType,
+                                                                       BigDecimal amount, String comment,
+                                                                       String message, String label) {
+
+        Map<String, String> params = ApiCommandParams.requestPaymentP2P(
+                to, identifierType, amount, comment, message, label);
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.REQUEST_PAYMENT_P2P, params, accessToken);
+    }
+
+    @Override
+    public CompletableFuture<RequestPaymentResponse> requestPaymentP2PDue(String accessToken, String to,
+                                                                          IdentifierType identifierType,
+                                                                          BigDecimal amountDue, String comment,
+                                                                          String message, String label) {
+
+        Map<String, String> params = ApiCommandParams.requestPaymentP2PDue(
+                to, identifierType, amountDue, comment, message, label);
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.REQUEST_PAYMENT_P2P, params, accessToken);
+    }
+
+    @Override
+    public CompletableFuture<RequestPaymentResponse> requestPaymentShop(String accessToken, String patternId,
+                                                                        Map<String, String> params) {
+        return requestPaymentShop(accessToken, patternId, params, false);
+    }
+
+    @Override
+    public CompletableFuture<RequestPaymentResponse> requestPaymentShop(String accessToken, String patternId,
+                                                                        Map<String, String> params,
+                                                                        boolean showContractDetails) {
+
+        Map<String, String> pars = ApiCommandParams.requestPaymentShop(patternId, params, showContractDetails);
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.REQUEST_PAYMENT, pars, accessToken);
+    }
+
+    @Override
+    public CompletableFuture<RequestPaymentResponse> requestPaymentToPhone(String accessToken, String phone,
+                                                                           BigDecimal amount) {
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.REQUEST_PAYMENT_PHONE,
+                ApiCommandParams.requestPaymentToPhone(phone, amount), accessToken);
+    }
+
+    @Override
+    public CompletableFuture<ProcessPaymentResponse> processPaymentByWallet(String accessToken, String requestId) {
+        return processPayment(accessToken, requestId, MoneySource.wallet, null);
+    }
+
+    @Override
+    public CompletableFuture<ProcessPaymentResponse> processPaymentByCard(String accessToken, String requestId,
+                                                                          String csc) {
+        return processPayment(accessToken, requestId, MoneySource.card, csc);
+    }
+
+    private CompletableFuture<ProcessPaymentResponse> processPayment(String accessToken, String requestId,
+                                                                     MoneySource moneySource, String csc) {
+        return yamoneyApiClient.executeCommandAsync(uri, ApiCommand.PROCESS_PAYMENT,
+                ApiCommandParams.processPayment(requestId, moneySource, csc), accessToken);
+    }
+
+    @Override
+    public CompletableFuture<Void> revokeOAuthToken(String accessToken) {
+        return revokeToken(yamoneyApiClient, accessToken);
+    }
+
+    private <Resp> CompletableFuture<Void> revokeToken(final YamoneyAsyncApiClient<?, Resp> yamoneyApiClient,
+                                                       String accessToken) {
+        CompletableFuture<Resp> response = yamoneyApiClient.execPostRequestAsync(
+                uri.getUrlForCommand(REVOKE_COMMAND_NAME), accessToken, Collections.<String, String>emptyMap());
+
+        return yamoneyApiClient.handleResponse(response, new YamoneyAsyncApiClient.ResponseHandler<Resp, Void>() {
+            @Override
+            public Void handle(Resp response) throws Exception {
+                switch (yamoneyApiClient.getStatusCodeFromResponse(response)) {
+                    case HttpStatus.SC_UNAUTHORIZED:
+                        throw new InvalidTokenException("invalid token");
+                    case HttpStatus.SC_BAD_REQUEST:
+                        throw new ProtocolRequestException("invalid request");
+                    case HttpStatus.SC_INTERNAL_SERVER_ERROR:
+                        throw new InternalServerErrorException("internal yandex.money server error");
+                }
+                return null;
+            }
+        });
+    }
+}
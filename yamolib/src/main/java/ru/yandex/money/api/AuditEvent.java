@@ -0,0 +1,106 @@
+package ru.yandex.money.api;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Запись журнала запросов: одна выполненная команда API.</p>
+ * <p>Событие хранит копию параметров и ссылку на ответ. Секретные данные скрываются при чтении
+ * (в потоке, который пишет журнал), а не в потоке, выполнившем запрос.</p>
+ */
+public final class AuditEvent {
+
+    private final long timestamp;
+    private final String commandName;
+    private final URI uri;
+    private final Map<String, String> params;
+    private final String accessToken;
+    private final Object response;
+    private final Throwable error;
+    private final boolean failed;
+    private final long latencyNanos;
+
+    AuditEvent(long timestamp, String commandName, URI uri, Map<String, String> params, String accessToken,
+               Object response, Throwable error, boolean failed, long latencyNanos) {
+        this.timestamp = timestamp;
+        this.commandName = commandName;
+        this.uri = uri;
+        this.params = params;
+        this.accessToken = accessToken;
+        this.response = response;
+        this.error = error;
+        this.failed = failed;
+        this.latencyNanos = latencyNanos;
+    }
+
+    /**
+     * @return время завершения команды, мс с начала эпохи
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * @return параметры команды, код карты, код авторизации, секреты, токены и номера карт скрыты
+     */
+    public Map<String, String> getParams() {
+        return AuditMasker.maskParams(params);
+    }
+
+    /**
+     * @return начало и конец токена авторизации или null, если команда выполнялась без токена
+     */
+    public String getAccessToken() {
+        return AuditMasker.maskToken(accessToken);
+    }
+
+    /**
+     * @return ответ сервера в виде строки (номера карт скрыты) или null, если команда завершилась ошибкой
+     */
+    public String getResponse() {
+        return response == null ? null : AuditMasker.maskPans(response.toString());
+    }
+
+    /**
+     * @return ошибка выполнения команды или null
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return true, если команда завершилась ошибкой или сервер отказал в ее выполнении
+     */
+    public boolean isError() {
+        return failed;
+    }
+
+    public long getLatency(TimeUnit unit) {
+        return unit.convert(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder()
+                .append(commandName).append(" '").append(uri).append("' with parameters: ").append(getParams());
+        if (accessToken != null) {
+            result.append(", token ").append(getAccessToken());
+        }
+        result.append(" (").append(getLatency(TimeUnit.MILLISECONDS)).append(" ms) ");
+        if (error == null) {
+            result.append("result: ").append(getResponse());
+        } else {
+            result.append("failed: ").append(AuditMasker.maskPans(String.valueOf(error)));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.money.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Скрывает в журнале запросов секретные данные: код карты (csc), код авторизации и секрет приложения
+ * при получении токена, токены и номера карт.
+ * Номером карты считается последовательность из 13-19 цифр, которая проходит проверку по алгоритму Луна;
+ * от нее остаются первые 6 и последние 4 цифры.
+ */
+final class AuditMasker {
+
+    private static final int MIN_PAN_LENGTH = 13;
+    private static final int MAX_PAN_LENGTH = 19;
+
+    private AuditMasker() {
+    }
+
+    static Map<String, String> maskParams(Map<String, String> params) {
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            result.put(entry.getKey(), maskParam(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    static String maskParam(String name, String value) {
+        if (name.equalsIgnoreCase("csc") || name.equalsIgnoreCase("code") || name.toLowerCase().contains("secret")) {
+            return "***";
+        }
+        if (name.toLowerCase().contains("token")) {
+            return maskToken(value);
+        }
+        return maskPans(value);
+    }
+
+    /**
+     * @return первые и последние 4 символа токена; короткий токен скрывается целиком
+     */
+    static String maskToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        if (token.length() < 16) {
+            return "***";
+        }
+        return token.substring(0, 4) + "..." + token.substring(token.length() - 4);
+    }
+
+    static String maskPans(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder result = null;
+        int size = text.length();
+        int start = -1;
+        for (int i = 0; i <= size; i++) {
+            boolean digit = i < size && text.charAt(i) >= '0' && text.charAt(i) <= '9';
+            if (digit && start < 0) {
+                start = i;
+            } else if (!digit && start >= 0) {
+                if (isPan(text, start, i)) {
+                    if (result == null) {
+                        result = new StringBuilder(text);
+                    }
+                    for (int j = start + 6; j < i - 4; j++) {
+                        result.setCharAt(j, '*');
+                    }
+                }
+                start = -1;
+            }
+        }
+        return result == null ? text : result.toString();
+    }
+
+    private static boolean isPan(String text, int start, int end) {
+        int length = end - start;
+        if (length < MIN_PAN_LENGTH || length > MAX_PAN_LENGTH) {
+            return false;
+        }
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = end - 1; i >= start; i--) {
+            int digit = text.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+}
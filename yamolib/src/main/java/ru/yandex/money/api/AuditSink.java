@@ -0,0 +1,33 @@
+package ru.yandex.money.api;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Получатель записей журнала запросов. Вызывается из одного потока журнала {@link ApiAuditLog},
+ * поэтому может быть медленным (писать в файл, отправлять по сети), но не должен блокироваться надолго:
+ * пока он занят, новые записи копятся в буфере журнала.
+ */
+public interface AuditSink {
+
+    /**
+     * Пишет записи через commons-logging: успешные команды - с уровнем INFO, ошибки - с уровнем WARN
+     */
+    AuditSink COMMONS_LOGGING = new AuditSink() {
+
+        private final Log log = LogFactory.getLog(ApiAuditLog.class);
+
+        @Override
+        public void write(AuditEvent event) {
+            if (event.isError()) {
+                if (log.isWarnEnabled()) {
+                    log.warn(event);
+                }
+            } else if (log.isInfoEnabled()) {
+                log.info(event);
+            }
+        }
+    };
+
+    void write(AuditEvent event);
+}
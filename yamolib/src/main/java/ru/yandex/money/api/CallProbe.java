@@ -0,0 +1,55 @@
+package ru.yandex.money.api;
+
+import com.google.common.io.CountingInputStream;
+
+import java.io.InputStream;
+
+/**
+ * Измерения одного выполнения команды, которые собирает транспорт.
+ * Исходный и дублирующий запросы измеряются отдельно, см. {@link #copyFrom(CallProbe)}
+ */
+final class CallProbe {
+
+    private volatile boolean sent;
+    private volatile int httpStatus;
+    private volatile long responseNanos;
+    private volatile CountingInputStream body;
+
+    /**
+     * @return момент отправки запроса для {@link #onResponse(int, long)}
+     */
+    long onSend() {
+        sent = true;
+        return System.nanoTime();
+    }
+
+    void onResponse(int httpStatus, long sentAt) {
+        this.httpStatus = httpStatus;
+        this.responseNanos = System.nanoTime() - sentAt;
+    }
+
+    /**
+     * @return поток тела ответа, считающий прочитанные байты
+     */
+    InputStream count(InputStream input) {
+        CountingInputStream counting = new CountingInputStream(input);
+        body = counting;
+        return counting;
+    }
+
+    /**
+     * Копирует измерения запроса, который определил результат команды
+     */
+    void copyFrom(CallProbe attempt) {
+        sent = attempt.sent;
+        httpStatus = attempt.httpStatus;
+        responseNanos = attempt.responseNanos;
+        body = attempt.body;
+    }
+
+    CommandMetrics toMetrics(String commandName, Throwable error, long latencyNanos) {
+        CountingInputStream counting = body;
+        return new CommandMetrics(commandName, sent, httpStatus, error == null ? null : error.getClass(),
+                counting == null ? 0 : counting.getCount(), latencyNanos, responseNanos);
+    }
+}
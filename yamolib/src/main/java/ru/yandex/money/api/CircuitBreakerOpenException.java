@@ -0,0 +1,21 @@
+package ru.yandex.money.api;
+
+import java.io.IOException;
+
+/**
+ * Запрос не отправлен: {@link ApiCircuitBreaker} для команды разомкнут после серии ошибок
+ * или медленных ответов сервера. Запрос можно повторить позже.
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    private final String commandName;
+
+    CircuitBreakerOpenException(String commandName) {
+        super("circuit breaker is open: " + commandName);
+        this.commandName = commandName;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.money.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измерения одной выполненной команды API
+ */
+public final class CommandMetrics {
+
+    private final String commandName;
+    private final boolean sent;
+    private final int httpStatus;
+    private final Class<? extends Throwable> errorType;
+    private final long bytesRead;
+    private final long latencyNanos;
+    private final long responseNanos;
+
+    CommandMetrics(String commandName, boolean sent, int httpStatus, Class<? extends Throwable> errorType,
+                   long bytesRead, long latencyNanos, long responseNanos) {
+        this.commandName = commandName;
+        this.sent = sent;
+        this.httpStatus = httpStatus;
+        this.errorType = errorType;
+        this.bytesRead = bytesRead;
+        this.latencyNanos = latencyNanos;
+        this.responseNanos = responseNanos;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * @return false, если запрос не отправлялся: его не пропустили ограничение частоты или предохранитель
+     */
+    public boolean isSent() {
+        return sent;
+    }
+
+    /**
+     * @return http-статус ответа или 0, если ответ не получен
+     */
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    /**
+     * @return класс исключения, которым завершилась команда, или null при успехе
+     */
+    public Class<? extends Throwable> getErrorType() {
+        return errorType;
+    }
+
+    public boolean isError() {
+        return errorType != null;
+    }
+
+    /**
+     * @return сколько байт тела ответа прочитано при разборе ответа
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return полное время выполнения команды, включая ожидание разрешения ограничителя частоты
+     */
+    public long getLatency(TimeUnit unit) {
+        return unit.convert(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return время от отправки запроса до получения ответа (без разбора тела ответа), 0 - если ответ не получен
+     */
+    public long getResponseTime(TimeUnit unit) {
+        return unit.convert(responseNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "CommandMetrics{" +
+                "commandName='" + commandName + '\'' +
+                ", sent=" + sent +
+                ", httpStatus=" + httpStatus +
+                ", errorType=" + (errorType == null ? null : errorType.getSimpleName()) +
+                ", bytesRead=" + bytesRead +
+                ", latencyNanos=" + latencyNanos +
+                ", responseNanos=" + responseNanos +
+                '}';
+    }
+}
@@ -3,6 +3,8 @@ package ru.yandex.money.api;
 import java.net.URI;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * <p/>
@@ -20,9 +22,13 @@ public interface CommandUrlHolder {
 
     Map<String, String> getAdditionalParams();
 
+    /**
+     * Адреса команд относительно постоянного адреса API. Адрес каждой команды разбирается один раз
+     */
     class ConstantUrlHolder implements CommandUrlHolder {
 
         private final String uriYmApi;
+        private final ConcurrentMap<String, URI> urls = new ConcurrentHashMap<String, URI>();
 
         public ConstantUrlHolder(String uriYmApi1) {
             uriYmApi = uriYmApi1;
@@ -30,7 +36,12 @@ public interface CommandUrlHolder {
 
         @Override
         public URI getUrlForCommand(String commandName) {
-            return URI.create(uriYmApi + '/' + commandName);
+            URI url = urls.get(commandName);
+            if (url == null) {
+                url = URI.create(uriYmApi + '/' + commandName);
+                urls.putIfAbsent(commandName, url);
+            }
+            return url;
         }
 
         @Override
@@ -0,0 +1,183 @@
+package ru.yandex.money.api;
+
+import java.util.Map;
+
+/**
+ * <p>Кодирует параметры запроса в тело формата application/x-www-form-urlencoded (UTF-8)
+ * так же, как {@link java.net.URLEncoder}, но без промежуточных строк: сначала считается точная длина тела,
+ * затем байты пишутся в массив этой длины за один проход.</p>
+ * <p>Общий для всех транспортов: тело запроса получается одинаковым независимо от http-клиента.
+ * Параметр со значением null передается с пустым значением (<code>name=</code>).</p>
+ */
+final class FormEncoder {
+
+    static final String CONTENT_TYPE = "application/x-www-form-urlencoded; charset=UTF-8";
+
+    private static final byte[] HEX = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    /**
+     * Символы ASCII, которые не кодируются
+     */
+    private static final boolean[] SAFE = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            SAFE[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            SAFE[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            SAFE[c] = true;
+        }
+        SAFE['.'] = true;
+        SAFE['-'] = true;
+        SAFE['*'] = true;
+        SAFE['_'] = true;
+    }
+
+    private FormEncoder() {
+    }
+
+    /**
+     * @return тело запроса, массив ровно по длине тела
+     */
+    static byte[] encode(Map<String, String> params) {
+        byte[] body = new byte[contentLength(params)];
+        encode(params, body, 0);
+        return body;
+    }
+
+    /**
+     * @return длина тела запроса в байтах
+     */
+    static int contentLength(Map<String, String> params) {
+        if (params instanceof FormParams) {
+            return contentLength((FormParams) params);
+        }
+        int length = 0;
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (length > 0) {
+                length++;
+            }
+            length += encodedLength(entry.getKey()) + 1 + encodedLength(entry.getValue());
+        }
+        return length;
+    }
+
+    /**
+     * Пишет тело запроса в <code>target</code>, начиная с <code>offset</code>.
+     * В массиве должно быть не меньше {@link #contentLength(Map)} байт.
+     *
+     * @return позиция после тела запроса
+     */
+    static int encode(Map<String, String> params, byte[] target, int offset) {
+        if (params instanceof FormParams) {
+            return encode((FormParams) params, target, offset);
+        }
+        int position = offset;
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (position > offset) {
+                target[position++] = '&';
+            }
+            position = encode(entry.getKey(), target, position);
+            target[position++] = '=';
+            position = encode(entry.getValue(), target, position);
+        }
+        return position;
+    }
+
+    /**
+     * Параметры команд читаются прямо из массива, без итератора и объектов Map.Entry
+     */
+    private static int contentLength(FormParams params) {
+        int count = params.count();
+        int length = Math.max(0, count - 1);
+        for (int i = 0; i < count; i++) {
+            length += encodedLength(params.name(i)) + 1 + encodedLength(params.value(i));
+        }
+        return length;
+    }
+
+    private static int encode(FormParams params, byte[] target, int offset) {
+        int position = offset;
+        int count = params.count();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                target[position++] = '&';
+            }
+            position = encode(params.name(i), target, position);
+            target[position++] = '=';
+            position = encode(params.value(i), target, position);
+        }
+        return position;
+    }
+
+    private static int encodedLength(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = 0;
+        int size = value.length();
+        for (int i = 0; i < size; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += SAFE[c] || c == ' ' ? 1 : 3;
+            } else if (c < 0x800) {
+                length += 6;
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 12;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // непарный суррогат URLEncoder заменяет на '?'
+                length += 3;
+            } else {
+                length += 9;
+            }
+        }
+        return length;
+    }
+
+    private static int encode(String value, byte[] target, int position) {
+        if (value == null) {
+            return position;
+        }
+        int size = value.length();
+        for (int i = 0; i < size; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (SAFE[c]) {
+                    target[position++] = (byte) c;
+                } else if (c == ' ') {
+                    target[position++] = '+';
+                } else {
+                    position = percent(c, target, position);
+                }
+            } else if (c < 0x800) {
+                position = percent(0xC0 | (c >> 6), target, position);
+                position = percent(0x80 | (c & 0x3F), target, position);
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                position = percent(0xF0 | (codePoint >> 18), target, position);
+                position = percent(0x80 | ((codePoint >> 12) & 0x3F), target, position);
+                position = percent(0x80 | ((codePoint >> 6) & 0x3F), target, position);
+                position = percent(0x80 | (codePoint & 0x3F), target, position);
+            } else if (Character.isSurrogate(c)) {
+                position = percent('?', target, position);
+            } else {
+                position = percent(0xE0 | (c >> 12), target, position);
+                position = percent(0x80 | ((c >> 6) & 0x3F), target, position);
+                position = percent(0x80 | (c & 0x3F), target, position);
+            }
+        }
+        return position;
+    }
+
+    private static int percent(int b, byte[] target, int position) {
+        target[position] = '%';
+        target[position + 1] = HEX[(b >> 4) & 0xF];
+        target[position + 2] = HEX[b & 0xF];
+        return position + 3;
+    }
+}
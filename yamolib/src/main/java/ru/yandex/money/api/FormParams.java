@@ -0,0 +1,176 @@
+package ru.yandex.money.api;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>Параметры запроса команды: неизменяемый массив пар имя-значение в порядке добавления.</p>
+ * <p>В отличие от HashMap не создает узлов на каждый параметр, а {@link FormEncoder} пишет такие параметры
+ * в тело запроса прямо из массива. Для остального кода (логирование, ключи объединения запросов)
+ * это обычный {@link Map}.</p>
+ */
+final class FormParams extends AbstractMap<String, String> {
+
+    static final FormParams EMPTY = new FormParams(new String[0]);
+
+    /**
+     * Имена на четных позициях, значения - на нечетных
+     */
+    private final String[] pairs;
+
+    private FormParams(String[] pairs) {
+        this.pairs = pairs;
+    }
+
+    static Builder builder() {
+        return new Builder(EMPTY);
+    }
+
+    /**
+     * @param base параметры, с которых начинается построение (например, постоянные параметры команды)
+     */
+    static Builder builder(FormParams base) {
+        return new Builder(base);
+    }
+
+    /**
+     * Добавляет к параметрам команды дополнительные параметры (например, {@link CommandUrlHolder#getAdditionalParams()}).
+     * Дополнительный параметр заменяет параметр команды с тем же именем
+     */
+    static Map<String, String> merge(Map<String, String> params, Map<String, String> additional) {
+        if (additional.isEmpty()) {
+            return params;
+        }
+        Builder builder = params instanceof FormParams ? builder((FormParams) params) : builder().putAll(params);
+        return builder.putAll(additional).build();
+    }
+
+    int count() {
+        return pairs.length >> 1;
+    }
+
+    String name(int index) {
+        return pairs[index << 1];
+    }
+
+    String value(int index) {
+        return pairs[(index << 1) + 1];
+    }
+
+    @Override
+    public int size() {
+        return count();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(pairs, pairs.length, key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(pairs, pairs.length, key);
+        return index < 0 ? null : pairs[index + 1];
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+                    private int position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < pairs.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry =
+                                new SimpleImmutableEntry<String, String>(pairs[position], pairs[position + 1]);
+                        position += 2;
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count();
+            }
+        };
+    }
+
+    private static int indexOf(String[] pairs, int length, Object name) {
+        for (int i = 0; i < length; i += 2) {
+            if (pairs[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static final class Builder {
+        private String[] pairs;
+        private int length;
+
+        private Builder(FormParams base) {
+            this.pairs = Arrays.copyOf(base.pairs, base.pairs.length + 8);
+            this.length = base.pairs.length;
+        }
+
+        /**
+         * Добавляет параметр или заменяет значение параметра с тем же именем.
+         * Значение может быть null: такой параметр передается с пустым значением
+         */
+        Builder put(String name, String value) {
+            if (name == null) {
+                throw new IllegalArgumentException("null parameter name, value: " + value);
+            }
+            int index = indexOf(pairs, length, name);
+            if (index >= 0) {
+                pairs[index + 1] = value;
+                return this;
+            }
+            if (length == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[length++] = name;
+            pairs[length++] = value;
+            return this;
+        }
+
+        /**
+         * Добавляет параметр, если значение не null
+         */
+        Builder putIfNotNull(String name, Object value) {
+            return value == null ? this : put(name, String.valueOf(value));
+        }
+
+        Builder putAll(Map<String, String> params) {
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        FormParams build() {
+            return length == 0 ? EMPTY : new FormParams(Arrays.copyOf(pairs, length));
+        }
+    }
+}
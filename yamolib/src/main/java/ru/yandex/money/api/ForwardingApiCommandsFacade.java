@@ -0,0 +1,143 @@
+package ru.yandex.money.api;
+
+import com.google.common.collect.ForwardingObject;
+import ru.yandex.money.api.enums.OperationHistoryType;
+import ru.yandex.money.api.response.*;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Основа декораторов {@link ApiCommandsFacade}: все команды передаются фасаду {@link #delegate()}.
+ * Наследники переопределяют только те команды, которые нужно изменить.
+ */
+public abstract class ForwardingApiCommandsFacade extends ForwardingObject implements ApiCommandsFacade {
+
+    @Override
+    protected abstract ApiCommandsFacade delegate();
+
+    @Override
+    public void revokeOAuthToken(String accessToken) throws IOException, InvalidTokenException {
+        delegate().revokeOAuthToken(accessToken);
+    }
+
+    @Override
+    public AccountInfoResponse accountInfo(String accessToken)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().accountInfo(accessToken);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord, Integer records,
+                                                     OperationHistoryType operationsType)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().operationHistory(accessToken, startRecord, records, operationsType);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().operationHistory(accessToken);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().operationHistory(accessToken, startRecord);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord, Integer records)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().operationHistory(accessToken, startRecord, records);
+    }
+
+    @Override
+    public OperationDetailResponse operationDetail(String accessToken, String operationId)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().operationDetail(accessToken, operationId);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord, Integer records,
+                                                     OperationHistoryType operationsType, Boolean fetchDetails,
+                                                     Date from, Date till, String label)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().operationHistory(accessToken, startRecord, records, operationsType, fetchDetails,
+                from, till, label);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord, Integer records,
+                                                     OperationHistoryType operationsType, Boolean fetchDetails,
+                                                     Date from, Date till, String label,
+                                                     Consumer<? super Operation> consumer)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().operationHistory(accessToken, startRecord, records, operationsType, fetchDetails,
+                from, till, label, consumer);
+    }
+
+    @Override
+    public FundraisingStatsResponse fundraisingStats(String accessToken, String label)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().fundraisingStats(accessToken, label);
+    }
+
+    @Override
+    public RequestPaymentResponse requestPaymentP2P(String accessToken, String to, BigDecimal amount,
+                                                    String comment, String message)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().requestPaymentP2P(accessToken, to, amount, comment, message);
+    }
+
+    @Override
+    public RequestPaymentResponse requestPaymentP2P(String accessToken, String to, IdentifierType identifierType,
+                                                    BigDecimal amount, String comment, String message, String label)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().requestPaymentP2P(accessToken, to, identifierType, amount, comment, message, label);
+    }
+
+    @Override
+    public RequestPaymentResponse requestPaymentP2PDue(String accessToken, String to, IdentifierType identifierType,
+                                                       BigDecimal amountDue, String comment, String message,
+                                                       String label)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().requestPaymentP2PDue(accessToken, to, identifierType, amountDue, comment, message, label);
+    }
+
+    @Override
+    public RequestPaymentResponse requestPaymentShop(String accessToken, String patternId, Map<String, String> params)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().requestPaymentShop(accessToken, patternId, params);
+    }
+
+    @Override
+    public RequestPaymentResponse requestPaymentShop(String accessToken, String patternId, Map<String, String> params,
+                                                     boolean showContractDetails)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return delegate().requestPaymentShop(accessToken, patternId, params, showContractDetails);
+    }
+
+    @Override
+    public RequestPaymentResponse requestPaymentToPhone(String accessToken, String phone, BigDecimal amount)
+            throws InsufficientScopeException, InvalidTokenException, IOException {
+        return delegate().requestPaymentToPhone(accessToken, phone, amount);
+    }
+
+    @Override
+    public ProcessPaymentResponse processPaymentByCard(String accessToken, String requestId, String csc)
+            throws IOException, InsufficientScopeException, InvalidTokenException {
+        return delegate().processPaymentByCard(accessToken, requestId, csc);
+    }
+
+    @Override
+    public ProcessPaymentResponse processPaymentByWallet(String accessToken, String requestId)
+            throws IOException, InsufficientScopeException, InvalidTokenException {
+        return delegate().processPaymentByWallet(accessToken, requestId);
+    }
+}
@@ -0,0 +1,225 @@
+package ru.yandex.money.api;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Политика дублирующих (hedged) запросов для команд, которые ничего не меняют на сервере.</p>
+ * <p>Если ответ на запрос не пришел за время, за которое обычно приходят <code>percentile</code>% ответов
+ * этой команды, транспорт отправляет второй такой же запрос (по другому соединению из пула) и возвращает
+ * тот ответ, который придет первым. Второй запрос отменяется.</p>
+ * <p>Доля дублирующих запросов ограничена: каждый запрос добавляет <code>maxHedgeRatio</code> в бюджет,
+ * дублирующий запрос забирает из него единицу.</p>
+ * <p>Потоковый запрос истории с обработчиком операций не дублируется: обработчик получил бы операции
+ * обоих ответов.</p>
+ * <p>Политика подключается к асинхронному транспорту через
+ * {@link YamoneyAsyncApiClient#setHedgingPolicy(HedgingPolicy)}.</p>
+ */
+public class HedgingPolicy {
+
+    /**
+     * Сколько последних времен ответа команды учитывается при расчете задержки
+     */
+    private static final int WINDOW_SIZE = 1000;
+    /**
+     * Через сколько новых времен ответа пересчитывается задержка
+     */
+    private static final int RECALCULATE_EVERY = 100;
+    private static final int MAX_BUDGET = 10;
+
+    private final Set<String> commands;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+    private final double maxHedgeRatio;
+    private final ConcurrentMap<String, LatencyWindow> latencies = new ConcurrentHashMap<String, LatencyWindow>();
+
+    private double budget = MAX_BUDGET;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private HedgingPolicy(Builder builder) {
+        this.commands = builder.commands;
+        this.percentile = builder.percentile;
+        this.minDelayNanos = builder.minDelayNanos;
+        this.initialDelayNanos = builder.initialDelayNanos;
+        this.maxHedgeRatio = builder.maxHedgeRatio;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    boolean isHedged(String commandName) {
+        return commands.contains(commandName);
+    }
+
+    /**
+     * @return через сколько наносекунд без ответа отправлять дублирующий запрос
+     */
+    long delayNanos(String commandName) {
+        LatencyWindow window = latencies.get(commandName);
+        return window == null ? initialDelayNanos : window.getDelay();
+    }
+
+    void recordLatency(String commandName, long nanos) {
+        LatencyWindow window = latencies.get(commandName);
+        if (window == null) {
+            LatencyWindow created = new LatencyWindow();
+            window = latencies.putIfAbsent(commandName, created);
+            if (window == null) {
+                window = created;
+            }
+        }
+        window.record(nanos);
+    }
+
+    synchronized void onRequest() {
+        requests.incrementAndGet();
+        budget = Math.min(MAX_BUDGET, budget + maxHedgeRatio);
+    }
+
+    /**
+     * @return true, если бюджет разрешает дублирующий запрос. Разрешение списывается из бюджета
+     */
+    synchronized boolean tryHedge() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    void onHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    /**
+     * @return количество запросов команд, для которых разрешены дублирующие запросы
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return количество отправленных дублирующих запросов
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * @return сколько раз дублирующий запрос ответил раньше исходного
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    private final class LatencyWindow {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+        private int position;
+        private int sinceCalculation;
+        private volatile long delay = initialDelayNanos;
+
+        synchronized void record(long nanos) {
+            samples[position] = nanos;
+            position = (position + 1) % WINDOW_SIZE;
+            count = Math.min(count + 1, WINDOW_SIZE);
+            if (++sinceCalculation >= RECALCULATE_EVERY) {
+                sinceCalculation = 0;
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100 * count) - 1;
+                delay = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+            }
+        }
+
+        long getDelay() {
+            return delay;
+        }
+    }
+
+    public static final class Builder {
+        private Set<String> commands = readOnlyCommands();
+        private double percentile = 95;
+        private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private long initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(500);
+        private double maxHedgeRatio = 0.05;
+
+        private Builder() {
+        }
+
+        /**
+         * @param commandNames команды, для которых отправляются дублирующие запросы. По умолчанию account-info,
+         *                     operation-history, operation-details и fundraising-stats
+         * @throws IllegalArgumentException если команда может что-то изменить на сервере
+         *                                  (или неизвестна): ее нельзя отправлять дважды
+         */
+        public Builder commands(String... commandNames) {
+            for (String commandName : commandNames) {
+                ApiCommand<?> command = ApiCommand.forName(commandName);
+                if (command == null || !command.isReadOnly()) {
+                    throw new IllegalArgumentException("command can not be hedged: " + commandName);
+                }
+            }
+            this.commands = ImmutableSet.copyOf(commandNames);
+            return this;
+        }
+
+        /**
+         * @param percentile процентиль времени ответа, после которого отправляется дублирующий запрос.
+         *                   По умолчанию 95
+         */
+        public Builder percentile(double percentile) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile should be in (0, 100]: " + percentile);
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * @param minDelay минимальная задержка дублирующего запроса. По умолчанию 10 мс
+         * @param initialDelay задержка, пока времена ответа команды еще не набраны. По умолчанию 500 мс
+         */
+        public Builder delay(long minDelay, long initialDelay, TimeUnit unit) {
+            this.minDelayNanos = unit.toNanos(minDelay);
+            this.initialDelayNanos = Math.max(minDelayNanos, unit.toNanos(initialDelay));
+            return this;
+        }
+
+        /**
+         * @param maxHedgeRatio максимальная доля дублирующих запросов. По умолчанию 0.05
+         */
+        public Builder maxHedgeRatio(double maxHedgeRatio) {
+            if (!(maxHedgeRatio >= 0 && maxHedgeRatio <= 1)) {
+                throw new IllegalArgumentException("maxHedgeRatio should be in [0, 1]: " + maxHedgeRatio);
+            }
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+
+        private static Set<String> readOnlyCommands() {
+            ImmutableSet.Builder<String> result = ImmutableSet.builder();
+            for (ApiCommand<?> command : ApiCommand.all()) {
+                if (command.isReadOnly()) {
+                    result.add(command.getName());
+                }
+            }
+            return result.build();
+        }
+    }
+}
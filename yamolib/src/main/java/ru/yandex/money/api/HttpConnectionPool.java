@@ -0,0 +1,219 @@
+package ru.yandex.money.api;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Http-клиент с пулом постоянных (keep-alive) соединений к серверам Яндекс.Денег.</p>
+ * <p>Соединения переиспользуются между запросами и потоками, поэтому TLS-рукопожатие
+ * выполняется только при открытии нового соединения. Фоновый поток закрывает
+ * простаивающие и просроченные соединения, чтобы запрос не попал на соединение,
+ * уже закрытое сервером.</p>
+ * <p>Экземпляр нужно закрыть после использования. Пример:</p>
+ * <pre>
+ *     HttpConnectionPool pool = new HttpConnectionPool(60000, 50, 20);
+ *     ApiCommandsFacade facade = new ApiCommandsFacadeImpl(pool.getHttpClient());
+ * </pre>
+ */
+public class HttpConnectionPool implements Closeable {
+
+    private static final Log LOGGER = LogFactory.getLog(HttpConnectionPool.class);
+
+    /**
+     * Время жизни простаивающего соединения к серверу Яндекс.Денег, если сервер не прислал заголовок Keep-Alive.
+     * Должно быть меньше таймаута, после которого сервер сам закрывает соединение.
+     */
+    public static final long API_HOST_KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Время жизни простаивающего соединения к прочим хостам
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final long EVICTION_PERIOD_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final IdleConnectionEvictor evictor;
+
+    /**
+     * @param socketTimeout     таймаут ожидания данных, в миллисекундах.
+     *                          Для request-payment и process-payment может понадобиться таймаут до 60 секунд
+     * @param maxTotal          максимальное число соединений в пуле
+     * @param maxPerRoute       максимальное число соединений к одному хосту
+     */
+    public HttpConnectionPool(int socketTimeout, int maxTotal, int maxPerRoute) {
+        this(socketTimeout, maxTotal, maxPerRoute, API_HOST_KEEP_ALIVE_MILLIS);
+    }
+
+    /**
+     * @param socketTimeout     таймаут ожидания данных, в миллисекундах
+     * @param maxTotal          максимальное число соединений в пуле
+     * @param maxPerRoute       максимальное число соединений к одному хосту
+     * @param apiHostKeepAlive  время жизни простаивающего соединения к серверам Яндекс.Денег, в миллисекундах
+     */
+    public HttpConnectionPool(int socketTimeout, int maxTotal, int maxPerRoute, long apiHostKeepAlive) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(4000)
+                .setConnectionRequestTimeout(socketTimeout)
+                .setSocketTimeout(socketTimeout)
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(new ApiHostKeepAliveStrategy(apiHostKeepAlive))
+                .setDefaultRequestConfig(requestConfig)
+                .setUserAgent(YamoneyApiClient.USER_AGENT)
+                .build();
+
+        evictor = new IdleConnectionEvictor(connectionManager, Math.max(apiHostKeepAlive, DEFAULT_KEEP_ALIVE_MILLIS));
+        evictor.start();
+    }
+
+    /**
+     * @return http-клиент, работающий через пул. Его можно передавать в
+     * {@link ApiCommandsFacadeImpl} и {@link TokenRequesterImpl}
+     */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * @return статистика по всему пулу: число выданных (leased), свободных (available)
+     * соединений и запросов, ожидающих соединения (pending)
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * @param uri адрес сервера, например {@link ApiCommandsFacade#URI_YM_API}
+     * @return статистика соединений к хосту из указанного адреса
+     */
+    public PoolStats getStats(URI uri) {
+        return connectionManager.getStats(routeFor(uri));
+    }
+
+    /**
+     * Устанавливает максимальное число соединений к хосту из указанного адреса
+     */
+    public void setMaxPerRoute(URI uri, int max) {
+        connectionManager.setMaxPerRoute(routeFor(uri), max);
+    }
+
+    private static HttpRoute routeFor(URI uri) {
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+    }
+
+    @Override
+    public void close() throws IOException {
+        evictor.shutdown();
+        httpClient.close();
+    }
+
+    /**
+     * Использует время жизни соединения из заголовка Keep-Alive ответа.
+     * Если заголовка нет, соединения к серверам Яндекс.Денег держатся дольше, чем к остальным хостам.
+     */
+    static class ApiHostKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+        private final long apiHostKeepAlive;
+
+        ApiHostKeepAliveStrategy(long apiHostKeepAlive) {
+            this.apiHostKeepAlive = apiHostKeepAlive;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (NumberFormatException ignore) {
+                    }
+                }
+            }
+
+            HttpHost target = HttpClientContext.adapt(context).getTargetHost();
+            if (target != null && isApiHost(target.getHostName())) {
+                return apiHostKeepAlive;
+            }
+            return DEFAULT_KEEP_ALIVE_MILLIS;
+        }
+
+        private boolean isApiHost(String hostName) {
+            String host = hostName.toLowerCase();
+            return host.equals("money.yandex.ru") || host.endsWith(".money.yandex.ru")
+                    || host.equals("sp-money.yandex.ru") || host.endsWith(".sp-money.yandex.ru");
+        }
+    }
+
+    /**
+     * Фоновый поток, закрывающий просроченные и долго простаивающие соединения
+     */
+    private static class IdleConnectionEvictor extends Thread {
+
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final long maxIdleTime;
+        private volatile boolean shutdown;
+
+        IdleConnectionEvictor(PoolingHttpClientConnectionManager connectionManager, long maxIdleTime) {
+            super("yamolib-idle-connection-evictor");
+            this.connectionManager = connectionManager;
+            this.maxIdleTime = maxIdleTime;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    synchronized (this) {
+                        wait(EVICTION_PERIOD_MILLIS);
+                    }
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("connection pool stats: " + connectionManager.getTotalStats());
+                    }
+                }
+            } catch (InterruptedException ignore) {
+            }
+        }
+
+        void shutdown() {
+            shutdown = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+}
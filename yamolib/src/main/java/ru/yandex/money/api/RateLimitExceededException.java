@@ -0,0 +1,14 @@
+package ru.yandex.money.api;
+
+import java.io.IOException;
+
+/**
+ * Запрос не отправлен: превышен лимит запросов, заданный {@link ApiRateLimiter}
+ * в режиме {@link ApiRateLimiter.Mode#FAIL_FAST}. Запрос можно повторить позже.
+ */
+public class RateLimitExceededException extends IOException {
+
+    RateLimitExceededException(String message) {
+        super(message);
+    }
+}
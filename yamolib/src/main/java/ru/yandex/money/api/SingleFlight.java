@@ -0,0 +1,69 @@
+package ru.yandex.money.api;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Объединяет одновременные одинаковые запросы: пока запрос с теми же командой, токеном и параметрами
+ * выполняется, остальные потоки ждут его ответа или исключения, а не отправляют свой запрос.
+ * Подходит только для команд, которые ничего не меняют на сервере.
+ */
+final class SingleFlight {
+
+    private final ConcurrentMap<List<Object>, FutureTask<Object>> inFlight =
+            new ConcurrentHashMap<List<Object>, FutureTask<Object>>();
+
+    @SuppressWarnings("unchecked")
+    <T> T execute(String commandName, String accessToken, Map<String, String> params, final Call<T> call)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+
+        List<Object> key = Arrays.<Object>asList(commandName, accessToken, params);
+        FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return call.call();
+            }
+        });
+        FutureTask<Object> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            running = task;
+        }
+
+        try {
+            return (T) Uninterruptibles.getUninterruptibly(running);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InvalidTokenException) {
+                throw (InvalidTokenException) cause;
+            }
+            if (cause instanceof InsufficientScopeException) {
+                throw (InsufficientScopeException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    interface Call<T> {
+        T call() throws IOException, InvalidTokenException, InsufficientScopeException;
+    }
+}
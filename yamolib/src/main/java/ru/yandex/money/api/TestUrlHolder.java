@@ -4,7 +4,6 @@ import ru.yandex.money.api.response.util.PaymentErrorCode;
 
 import java.net.URI;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,23 +25,27 @@ public class TestUrlHolder implements CommandUrlHolder {
         }
     };
 
-    private final String url;
+    private final CommandUrlHolder urls;
 
     private volatile boolean testPayment = true;
     private volatile String testCard = null;
     private volatile PaymentErrorCode testResult = null;
+    /**
+     * Дополнительные параметры пересобираются при изменении настроек, а не при каждом запросе
+     */
+    private volatile Map<String, String> additionalParams = additionalParams();
 
     public TestUrlHolder() {
         this(ApiCommandsFacade.URI_YM_API);
     }
 
     public TestUrlHolder(String url) {
-        this.url = url;
+        this.urls = new ConstantUrlHolder(url);
     }
 
     @Override
     public URI getUrlForCommand(String commandName) {
-        return URI.create(url + '/' + commandName);
+        return urls.getUrlForCommand(commandName);
     }
 
     public boolean isTestPayment() {
@@ -53,8 +56,9 @@ public class TestUrlHolder implements CommandUrlHolder {
      *
      * @param testPayment true, если платеж должен быть тестовым
      */
-    public void setTestPayment(boolean testPayment) {
+    public synchronized void setTestPayment(boolean testPayment) {
         this.testPayment = testPayment;
+        this.additionalParams = additionalParams();
     }
 
     public String getTestCard() {
@@ -64,8 +68,9 @@ public class TestUrlHolder implements CommandUrlHolder {
     /**
      * Отдавать ли признак наличия привязанной к счету карты
      */
-    public void setTestCard(String testCard) {
+    public synchronized void setTestCard(String testCard) {
         this.testCard = testCard;
+        this.additionalParams = additionalParams();
     }
 
     public PaymentErrorCode getTestResult() {
@@ -76,25 +81,24 @@ public class TestUrlHolder implements CommandUrlHolder {
      * @param testResult Код ошибки, которую должен вернуть метод Яндекс.Денег
      *                   Чтобы возвращался успех, установите "success" или null
      */
-    public void setTestResult(PaymentErrorCode testResult) {
+    public synchronized void setTestResult(PaymentErrorCode testResult) {
         this.testResult = testResult;
+        this.additionalParams = additionalParams();
     }
 
     @Override
     public Map<String, String> getAdditionalParams() {
+        return additionalParams;
+    }
+
+    private Map<String, String> additionalParams() {
         if (!testPayment) {
             return Collections.emptyMap();
         }
-
-        Map<String, String> result = new HashMap<String, String>();
-        result.put("test_payment", "true");
-
-        if (testCard != null) {
-            result.put("test_card", testCard);
-        }
-        if (testResult != null) {
-            result.put("test_result", testResult.getCode());
-        }
-        return result;
+        return FormParams.builder()
+                .put("test_payment", "true")
+                .putIfNotNull("test_card", testCard)
+                .putIfNotNull("test_result", testResult == null ? null : testResult.getCode())
+                .build();
     }
 }
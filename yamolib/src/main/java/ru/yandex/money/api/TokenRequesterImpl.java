@@ -33,7 +33,7 @@ public class TokenRequesterImpl implements TokenRequester {
 
     private final String clientId;
 
-    private final YamoneyApiHttpClient client;
+    private final YamoneyApiClient<?, ?> client;
 
     /**
      * Создает экземпляр класса.
@@ -44,11 +44,22 @@ public class TokenRequesterImpl implements TokenRequester {
      *                 c таймаутом до 60 секунд
      */
     public TokenRequesterImpl(final String clientId, HttpClient client) {
+        this(clientId, new YamoneyApiHttpClient(client));
+    }
+
+    /**
+     * Создает экземпляр класса, работающий через произвольный транспорт.
+     *
+     * @param clientId идентификатор приложения в системе Яндекс.Деньги
+     * @param client   транспорт для взаимодействия с сервером Яндекс.Деньги: {@link YamoneyApiHttpClient},
+     *                 {@link YamoneyOkApiClient}, {@link YamoneyJdkHttpApiClient} и т.д.
+     */
+    public TokenRequesterImpl(final String clientId, YamoneyApiClient<?, ?> client) {
         if (clientId == null || (clientId.equals(""))) {
             throw new IllegalArgumentException("client_id is empty");
         }
         this.clientId = clientId;
-        this.client = new YamoneyApiHttpClient(client);
+        this.client = client;
     }
 
     @Override
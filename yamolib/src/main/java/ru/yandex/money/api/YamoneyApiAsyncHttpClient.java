@@ -0,0 +1,135 @@
+package ru.yandex.money.api;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * Неблокирующий транспорт на Apache HttpAsyncClient.
+ * Запросы обслуживаются реактором на java.nio: несколько потоков ввода-вывода
+ * держат одновременно тысячи запросов, не блокируясь на ожидании ответа.
+ */
+public class YamoneyApiAsyncHttpClient extends YamoneyAsyncApiClient<HttpPost, HttpResponse> {
+
+    private final HttpAsyncClient httpClient;
+
+    /**
+     * @param httpClient запущенный ({@link CloseableHttpAsyncClient#start()}) http-клиент
+     */
+    public YamoneyApiAsyncHttpClient(HttpAsyncClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Создает и запускает асинхронный http-клиент. Клиент нужно закрыть после использования.
+     *
+     * @param socketTimeout  таймаут ожидания данных, в миллисекундах.
+     *                       Для request-payment и process-payment может понадобиться таймаут до 60 секунд
+     * @param maxConnections максимальное число одновременных соединений с сервером Яндекс.Денег
+     */
+    public static CloseableHttpAsyncClient createHttpAsyncClient(int socketTimeout, int maxConnections) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(4000)
+                .setSocketTimeout(socketTimeout)
+                .build();
+
+        CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+                .setUserAgent(USER_AGENT)
+                .setDefaultRequestConfig(requestConfig)
+                .setMaxConnPerRoute(maxConnections)
+                .setMaxConnTotal(maxConnections)
+                .build();
+        httpClient.start();
+        return httpClient;
+    }
+
+    @Override
+    protected CompletableFuture<HttpResponse> execPostRequestAsync(URI uri, String accessToken,
+                                                                    Map<String, String> params) {
+        logParameters(uri, params);
+        HttpPost httpPost = YamoneyApiHttpClient.createHttpPost(uri, accessToken, params);
+
+        final CompletableFuture<HttpResponse> result = new CompletableFuture<HttpResponse>();
+        final Future<HttpResponse> future = httpClient.execute(httpPost, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                logWWWAuthenticate(response);
+                result.complete(response);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                result.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        result.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(HttpResponse response, Throwable throwable) {
+                if (result.isCancelled()) {
+                    future.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    @Override
+    protected int getStatusCodeFromResponse(HttpResponse httpResp) {
+        return httpResp.getStatusLine().getStatusCode();
+    }
+
+    @Override
+    protected void checkResponseNonEmpty(HttpResponse httpResp) {
+        if (httpResp.getEntity() == null) {
+            throw new IllegalStateException("response http entity is empty");
+        }
+    }
+
+    @Override
+    protected void closeResponse(HttpResponse response) throws IOException {
+        if (response != null) {
+            EntityUtils.consume(response.getEntity());
+        }
+    }
+
+    /**
+     * Закрывает http-клиент, если он поддерживает закрытие
+     */
+    @Override
+    public void close() throws IOException {
+        if (httpClient instanceof Closeable) {
+            ((Closeable) httpClient).close();
+        }
+    }
+
+    @Override
+    protected String getHeaderValue(HttpResponse response) {
+        Header header = response.getFirstHeader("WWW-Authenticate");
+        return header == null ? null : header.getValue();
+    }
+
+    @Override
+    protected InputStream getInputStreamFromResponse(HttpResponse response) throws IOException {
+        return response.getEntity().getContent();
+    }
+}
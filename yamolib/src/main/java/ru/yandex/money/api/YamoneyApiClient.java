@@ -1,19 +1,18 @@
 package ru.yandex.money.api;
 
 import com.google.common.collect.Maps;
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpStatus;
+import ru.yandex.money.api.json.JsonDecoders;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 import static com.google.common.collect.Maps.transformEntries;
@@ -26,7 +25,7 @@ import static com.google.common.collect.Maps.transformEntries;
  *
  * @author OneHalf
  */
-public abstract class YamoneyApiClient<Req, Resp> {
+public abstract class YamoneyApiClient<Req, Resp> implements Closeable {
 
     private static final Log LOGGER = LogFactory.getLog(YamoneyApiClient.class);
 
@@ -36,6 +35,11 @@ public abstract class YamoneyApiClient<Req, Resp> {
     protected static final String CHARSET = "UTF-8";
     protected static final String USER_AGENT = "yamolib";
 
+    private volatile ApiRateLimiter rateLimiter;
+    private volatile ApiCircuitBreaker circuitBreaker;
+    private volatile ApiAuditLog auditLog;
+    private volatile ApiMetricsListener metricsListener;
+
     public static final Maps.EntryTransformer<String, String, String> CARD_CODE_MASKER = new Maps.EntryTransformer<String, String, String>() {
         @Override
         public String transformEntry(String key, String value) {
@@ -46,8 +50,75 @@ public abstract class YamoneyApiClient<Req, Resp> {
         }
     };
 
+    /**
+     * Задает ограничение частоты запросов команд API. По умолчанию частота не ограничивается.
+     *
+     * @param rateLimiter ограничитель, может быть общим для нескольких транспортов; null - без ограничений
+     */
+    public void setRateLimiter(ApiRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    ApiRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Задает предохранитель команд API. По умолчанию предохранителя нет.
+     * Ограничение частоты ({@link #setRateLimiter(ApiRateLimiter)}) проверяется раньше предохранителя,
+     * поэтому время ожидания разрешения не считается временем вызова.
+     *
+     * @param circuitBreaker предохранитель, может быть общим для нескольких транспортов; null - без предохранителя
+     */
+    public void setCircuitBreaker(ApiCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    ApiCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Подключает журнал выполненных команд. Журнал пишется в отдельном потоке; пока он подключен,
+     * параметры запросов и ответы не пишутся в лог в потоке запроса.
+     *
+     * @param auditLog журнал, может быть общим для нескольких транспортов; null - писать в лог как раньше
+     */
+    public void setAuditLog(ApiAuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    ApiAuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    /**
+     * Подключает получателя измерений выполненных команд (время, http-статус, ошибка, объем ответа).
+     *
+     * @param metricsListener получатель, например {@link ru.yandex.money.api.metrics.CommandLatencyRecorder};
+     *                        null - без измерений
+     */
+    public void setMetricsListener(ApiMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    ApiMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Передает измерения команды получателю. Ошибка получателя не должна ломать команду
+     */
+    static void notifyMetrics(ApiMetricsListener listener, CommandMetrics metrics) {
+        try {
+            listener.onCommand(metrics);
+        } catch (RuntimeException e) {
+            LOGGER.warn("metrics listener failed", e);
+        }
+    }
+
     protected void logParameters(URI uri, Map<String, String> params) {
-        if (!LOGGER.isInfoEnabled()) {
+        if (auditLog != null || !LOGGER.isInfoEnabled()) {
             return;
         }
         // Пишем в логи все параметры, кроме кода карточки
@@ -56,14 +127,41 @@ public abstract class YamoneyApiClient<Req, Resp> {
 
     <T> T executeForJsonObjectCommon(URI url, Map<String, String> params, Class<T> classOfT) throws IOException {
 
+        ApiAuditLog audit = auditLog;
+        ApiMetricsListener metrics = metricsListener;
+        CallProbe probe = metrics == null ? null : new CallProbe();
+        long started = System.nanoTime();
         Resp response = null;
+        T result = null;
+        Throwable error = null;
         try {
+            long sentAt = probe == null ? 0 : probe.onSend();
             response = execPostRequest(url, params);
+            if (probe != null) {
+                probe.onResponse(getStatusCodeFromResponse(response), sentAt);
+            }
             checkCommonResponse(response);
 
-            return parseJson(classOfT, getInputStreamFromResponse(response));
+            InputStream input = getInputStreamFromResponse(response);
+            result = parseJson(classOfT, probe == null ? input : probe.count(input));
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
         } finally {
             closeResponse(response);
+            if (audit != null || probe != null) {
+                long latency = System.nanoTime() - started;
+                String path = url.getPath();
+                String commandName = path.substring(path.lastIndexOf('/') + 1);
+                if (audit != null) {
+                    // обмен кода на токен: код, client_secret и токен в ответе скрываются при записи журнала
+                    audit.record(commandName, url, params, null, result, error, latency);
+                }
+                if (probe != null) {
+                    notifyMetrics(metrics, probe.toMetrics(commandName, error, latency));
+                }
+            }
         }
     }
 
@@ -86,12 +184,14 @@ public abstract class YamoneyApiClient<Req, Resp> {
     protected abstract Resp execPostRequest(URI httpPost, String accessToken, Map<String, String> params) throws IOException;
 
     <T> T parseJson(Class<T> classOfT, InputStream inputStream) throws IOException {
+        return parseJson(JsonDecoders.forClass(classOfT), inputStream);
+    }
+
+    <T> T parseJson(TypeAdapter<T> decoder, InputStream inputStream) throws IOException {
 
         try {
-            Gson gson = new GsonBuilder().setFieldNamingPolicy(
-                    FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create();
-            T result = gson.fromJson(new InputStreamReader(inputStream, CHARSET), classOfT);
-            if (LOGGER.isInfoEnabled()) {
+            T result = JsonDecoders.decode(new InputStreamReader(inputStream, CHARSET), decoder);
+            if (auditLog == null && LOGGER.isInfoEnabled()) {
                 LOGGER.info("result: " + result);
             }
             return result;
@@ -126,33 +226,129 @@ public abstract class YamoneyApiClient<Req, Resp> {
 
     protected abstract void checkResponseNonEmpty(Resp httpResp);
 
+    /**
+     * Выполняет команду по ее описанию: декодер ответа берется из описания
+     */
+    <T> T executeCommand(CommandUrlHolder urlHolder, ApiCommand<T> command, Map<String, String> params,
+                         String accessToken)
+            throws InsufficientScopeException, IOException, InvalidTokenException {
+        return executeForJsonObjectFunc(urlHolder, command.getName(), params, accessToken, command.getDecoder());
+    }
+
     <T> T executeForJsonObjectFunc(CommandUrlHolder urlHolder, String commandName, Map<String, String> params,
                                    String accessToken, Class<T> classOfT)
             throws InsufficientScopeException, IOException, InvalidTokenException {
+        return executeForJsonObjectFunc(urlHolder, commandName, params, accessToken, JsonDecoders.forClass(classOfT));
+    }
+
+    /**
+     * Выполняет команду и разбирает ответ указанным декодером.
+     * Декодер читает ответ прямо из потока, пока соединение с сервером открыто.
+     */
+    <T> T executeForJsonObjectFunc(CommandUrlHolder urlHolder, String commandName, Map<String, String> params,
+                                   String accessToken, TypeAdapter<T> decoder)
+            throws InsufficientScopeException, IOException, InvalidTokenException {
+
+        ApiAuditLog audit = auditLog;
+        ApiMetricsListener metrics = metricsListener;
+        if (audit == null && metrics == null) {
+            return executeGuarded(urlHolder, commandName, params, accessToken, decoder, null);
+        }
+        CallProbe probe = metrics == null ? null : new CallProbe();
+        long started = System.nanoTime();
+        T result = null;
+        Throwable error = null;
+        try {
+            result = executeGuarded(urlHolder, commandName, params, accessToken, decoder, probe);
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            long latency = System.nanoTime() - started;
+            if (audit != null) {
+                audit.record(commandName, urlHolder.getUrlForCommand(commandName), params, accessToken,
+                        result, error, latency);
+            }
+            if (probe != null) {
+                notifyMetrics(metrics, probe.toMetrics(commandName, error, latency));
+            }
+        }
+    }
+
+    /**
+     * Выполняет команду с учетом ограничения частоты и предохранителя
+     */
+    private <T> T executeGuarded(CommandUrlHolder urlHolder, String commandName, Map<String, String> params,
+                                 String accessToken, TypeAdapter<T> decoder, CallProbe probe)
+            throws InsufficientScopeException, IOException, InvalidTokenException {
+
+        ApiRateLimiter limiter = rateLimiter;
+        if (limiter != null) {
+            limiter.beforeRequest(accessToken, commandName);
+        }
+
+        ApiCircuitBreaker breaker = circuitBreaker;
+        if (breaker == null) {
+            return executeRequest(urlHolder, commandName, params, accessToken, decoder, probe);
+        }
+        ApiCircuitBreaker.Call call = breaker.acquire(commandName);
+        Throwable error = null;
+        try {
+            return executeRequest(urlHolder, commandName, params, accessToken, decoder, probe);
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            call.complete(error);
+        }
+    }
+
+    /**
+     * @param probe измерения команды или null, если они не нужны
+     */
+    <T> T executeRequest(CommandUrlHolder urlHolder, String commandName, Map<String, String> params,
+                         String accessToken, TypeAdapter<T> decoder, CallProbe probe)
+            throws InsufficientScopeException, IOException, InvalidTokenException {
 
         Resp response = null;
 
         try {
 
+            long sentAt = probe == null ? 0 : probe.onSend();
             response = execPostRequest(urlHolder.getUrlForCommand(commandName),
                     accessToken, params(params, urlHolder));
+            if (probe != null) {
+                probe.onResponse(getStatusCodeFromResponse(response), sentAt);
+            }
 
             checkApiCommandResponse(response);
 
-            return parseJson(classOfT, getInputStreamFromResponse(response));
+            InputStream input = getInputStreamFromResponse(response);
+            return parseJson(decoder, probe == null ? input : probe.count(input));
 
         } finally {
             closeResponse(response);
         }
     }
 
-    private Map<String, String> params(Map<String, String> params, CommandUrlHolder urlHolder) {
-        HashMap<String, String> result = Maps.newHashMap(params);
-        result.putAll(urlHolder.getAdditionalParams());
-        return result;
+    /**
+     * Параметры запроса с дополнительными параметрами источника адресов.
+     * Если дополнительных параметров нет, параметры команды не копируются
+     */
+    Map<String, String> params(Map<String, String> params, CommandUrlHolder urlHolder) {
+        return FormParams.merge(params, urlHolder.getAdditionalParams());
     }
 
     protected abstract void closeResponse(Resp response) throws IOException;
 
     protected abstract int getStatusCodeFromResponse(Resp httpResp);
+
+    /**
+     * Освобождает ресурсы транспорта (соединения, потоки ввода-вывода).
+     * По умолчанию ничего не делает.
+     */
+    @Override
+    public void close() throws IOException {
+    }
 }
@@ -1,36 +1,30 @@
 package ru.yandex.money.api;
 
-import com.google.common.base.Function;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.params.CoreProtocolPNames;
 import org.apache.http.params.HttpConnectionParams;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.Map;
 
-import static com.google.common.collect.Collections2.transform;
-import static com.google.common.collect.Lists.newArrayList;
 
 public class YamoneyApiHttpClient extends YamoneyApiClient<HttpPost, HttpResponse> {
 
     private static final Log LOGGER = LogFactory.getLog(YamoneyApiHttpClient.class);
-    private static final Function<Map.Entry<String,String>,NameValuePair> TO_NAME_VALUE_PAIR = new Function<Map.Entry<String, String>, NameValuePair>() {
-        @Override
-        public NameValuePair apply(Map.Entry<String, String> input) {
-            return new BasicNameValuePair(input.getKey(), input.getValue());
-        }
-    };
+
+    private static final ContentType FORM_CONTENT_TYPE = ContentType.parse(FormEncoder.CONTENT_TYPE);
 
     private final HttpClient httpClient;
 
@@ -38,6 +32,12 @@ public class YamoneyApiHttpClient extends YamoneyApiClient<HttpPost, HttpRespons
         this.httpClient = httpClient;
     }
 
+    /**
+     * Создает http-клиент с одним соединением. Для многопоточной работы
+     * используйте пул соединений {@link HttpConnectionPool}.
+     *
+     * @param socketTimeout таймаут ожидания данных, в миллисекундах
+     */
     public static HttpClient createHttpClient(int socketTimeout) {
         DefaultHttpClient httpClient = new DefaultHttpClient();
         httpClient.getParams().setParameter(CoreProtocolPNames.USER_AGENT, USER_AGENT);
@@ -88,11 +88,7 @@ public class YamoneyApiHttpClient extends YamoneyApiClient<HttpPost, HttpRespons
     protected HttpResponse execPostRequest(URI uri, String accessToken, Map<String, String> params) throws IOException {
 
         logParameters(uri, params);
-        HttpPost httpPost = new HttpPost(uri);
-        if (accessToken != null) {
-            httpPost.addHeader("Authorization", "Bearer " + accessToken);
-        }
-        httpPost.setEntity(new UrlEncodedFormEntity(newArrayList(transform(params.entrySet(), TO_NAME_VALUE_PAIR)), CHARSET));
+        HttpPost httpPost = createHttpPost(uri, accessToken, params);
 
         try {
             HttpResponse response = httpClient.execute(httpPost);
@@ -105,6 +101,15 @@ public class YamoneyApiHttpClient extends YamoneyApiClient<HttpPost, HttpRespons
         }
     }
 
+    static HttpPost createHttpPost(URI uri, String accessToken, Map<String, String> params) {
+        HttpPost httpPost = new HttpPost(uri);
+        if (accessToken != null) {
+            httpPost.addHeader("Authorization", "Bearer " + accessToken);
+        }
+        httpPost.setEntity(new ByteArrayEntity(FormEncoder.encode(params), FORM_CONTENT_TYPE));
+        return httpPost;
+    }
+
     @Override
     protected void closeResponse(HttpResponse response) throws IOException {
         if (response != null) {
@@ -112,9 +117,20 @@ public class YamoneyApiHttpClient extends YamoneyApiClient<HttpPost, HttpRespons
         }
     }
 
+    /**
+     * Закрывает http-клиент, если он поддерживает закрытие
+     */
+    @Override
+    public void close() throws IOException {
+        if (httpClient instanceof Closeable) {
+            ((Closeable) httpClient).close();
+        }
+    }
+
     @Override
     protected String getHeaderValue(HttpResponse response) {
-        return response.getFirstHeader("WWW-Authenticate").getValue();
+        Header header = response.getFirstHeader("WWW-Authenticate");
+        return header == null ? null : header.getValue();
     }
 
     @Override
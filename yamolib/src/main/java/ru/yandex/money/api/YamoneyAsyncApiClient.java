@@ -0,0 +1,439 @@
+package ru.yandex.money.api;
+
+import com.google.gson.TypeAdapter;
+import ru.yandex.money.api.json.JsonDecoders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * <p>Транспорт с неблокирующим выполнением запросов. Поток, отправивший запрос, не ждет ответа сервера:
+ * результат приходит через {@link CompletableFuture}, а ожидание ответа не занимает потоков
+ * (этим занимается реактор ввода-вывода http-клиента).</p>
+ * <p>Синхронные методы {@link YamoneyApiClient} реализованы через ожидание асинхронного результата,
+ * поэтому такой транспорт можно использовать и с синхронным фасадом.</p>
+ *
+ * @see AsyncApiCommandsFacadeImpl
+ */
+public abstract class YamoneyAsyncApiClient<Req, Resp> extends YamoneyApiClient<Req, Resp> {
+
+    private volatile HedgingPolicy hedgingPolicy;
+
+    /**
+     * Асинхронно отправляет POST-запрос.
+     * Отмена возвращенного future должна прерывать выполнение запроса.
+     */
+    protected abstract CompletableFuture<Resp> execPostRequestAsync(URI uri, String accessToken,
+                                                                     Map<String, String> params);
+
+    /**
+     * Асинхронно отправляет дублирующий запрос ({@link HedgingPolicy}). Дублирующий запрос полезен, только если
+     * он идет по другому соединению, чем исходный: по умолчанию это так для транспортов с пулом соединений
+     * HTTP/1.1, где исходный запрос занимает свое соединение. Транспорт, который мультиплексирует запросы
+     * в одном соединении (HTTP/2), должен переопределить метод.
+     */
+    protected CompletableFuture<Resp> execHedgeRequestAsync(URI uri, String accessToken, Map<String, String> params) {
+        return execPostRequestAsync(uri, accessToken, params);
+    }
+
+    @Override
+    protected Resp execPostRequest(URI uri, String accessToken, Map<String, String> params) throws IOException {
+        return await(execPostRequestAsync(uri, accessToken, params));
+    }
+
+    /**
+     * Асинхронно выполняет команду по ее описанию: декодер ответа берется из описания
+     */
+    <T> CompletableFuture<T> executeCommandAsync(CommandUrlHolder urlHolder, ApiCommand<T> command,
+                                                Map<String, String> params, String accessToken) {
+        return executeForJsonObjectFuncAsync(urlHolder, command.getName(), params, accessToken, command.getDecoder());
+    }
+
+    <T> CompletableFuture<T> executeForJsonObjectFuncAsync(CommandUrlHolder urlHolder, String commandName,
+                                                          Map<String, String> params, String accessToken,
+                                                          Class<T> classOfT) {
+        return executeForJsonObjectFuncAsync(urlHolder, commandName, params, accessToken,
+                JsonDecoders.forClass(classOfT));
+    }
+
+    <T> CompletableFuture<T> executeForJsonObjectFuncAsync(CommandUrlHolder urlHolder, final String commandName,
+                                                          Map<String, String> params, final String accessToken,
+                                                          final TypeAdapter<T> decoder) {
+
+        final ApiAuditLog audit = getAuditLog();
+        final ApiMetricsListener metrics = getMetricsListener();
+        if (audit == null && metrics == null) {
+            return executeGuardedAsync(urlHolder, commandName, params, accessToken, decoder, null);
+        }
+        final CallProbe probe = metrics == null ? null : new CallProbe();
+        final URI uri = urlHolder.getUrlForCommand(commandName);
+        final Map<String, String> commandParams = params;
+        final long started = System.nanoTime();
+        CompletableFuture<T> result = executeGuardedAsync(urlHolder, commandName, params, accessToken, decoder, probe);
+        result.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T value, Throwable throwable) {
+                long latency = System.nanoTime() - started;
+                Throwable error = unwrap(throwable);
+                if (audit != null) {
+                    audit.record(commandName, uri, commandParams, accessToken, value, error, latency);
+                }
+                if (probe != null) {
+                    notifyMetrics(metrics, probe.toMetrics(commandName, error, latency));
+                }
+            }
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+    }
+
+    /**
+     * Асинхронно выполняет команду с учетом ограничения частоты и предохранителя
+     */
+    private <T> CompletableFuture<T> executeGuardedAsync(CommandUrlHolder urlHolder, final String commandName,
+                                                         Map<String, String> params, final String accessToken,
+                                                         final TypeAdapter<T> decoder, final CallProbe probe) {
+
+        final URI uri = urlHolder.getUrlForCommand(commandName);
+        final Map<String, String> requestParams = params(params, urlHolder);
+        ApiRateLimiter limiter = getRateLimiter();
+        final ApiCircuitBreaker breaker = getCircuitBreaker();
+        if (limiter == null && breaker == null) {
+            return send(uri, accessToken, requestParams, commandName, decoder, probe);
+        }
+
+        CompletableFuture<Void> permit = limiter == null
+                ? CompletableFuture.<Void>completedFuture(null)
+                : limiter.beforeRequestAsync(accessToken, commandName);
+        final AtomicReference<CompletableFuture<T>> sent = new AtomicReference<CompletableFuture<T>>();
+        final CompletableFuture<T> result = permit.thenCompose(new Function<Void, CompletableFuture<T>>() {
+            @Override
+            public CompletableFuture<T> apply(Void ignored) {
+                if (breaker == null) {
+                    sent.set(send(uri, accessToken, requestParams, commandName, decoder, probe));
+                    return sent.get();
+                }
+                final ApiCircuitBreaker.Call call;
+                try {
+                    call = breaker.acquire(commandName);
+                } catch (CircuitBreakerOpenException e) {
+                    throw new CompletionException(e);
+                }
+                sent.set(send(uri, accessToken, requestParams, commandName, decoder, probe));
+                // результат завершается после записи вызова в предохранитель
+                return sent.get().whenComplete(new BiConsumer<T, Throwable>() {
+                    @Override
+                    public void accept(T t, Throwable throwable) {
+                        call.complete(throwable);
+                    }
+                });
+            }
+        });
+        result.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T t, Throwable throwable) {
+                CompletableFuture<T> request = sent.get();
+                if (result.isCancelled() && request != null) {
+                    request.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Выполняет команду синхронно. Команды, для которых включены дублирующие запросы,
+     * выполняются через асинхронный транспорт с ожиданием результата
+     */
+    @Override
+    <T> T executeRequest(CommandUrlHolder urlHolder, String commandName, Map<String, String> params,
+                         String accessToken, TypeAdapter<T> decoder, CallProbe probe)
+            throws InsufficientScopeException, IOException, InvalidTokenException {
+
+        if (!isHedged(hedgingPolicy, commandName, decoder)) {
+            return super.executeRequest(urlHolder, commandName, params, accessToken, decoder, probe);
+        }
+        CompletableFuture<T> result = send(urlHolder.getUrlForCommand(commandName), accessToken,
+                params(params, urlHolder), commandName, decoder, probe);
+        try {
+            return await(result);
+        } catch (IOException e) {
+            if (e.getCause() instanceof InvalidTokenException) {
+                throw (InvalidTokenException) e.getCause();
+            }
+            if (e.getCause() instanceof InsufficientScopeException) {
+                throw (InsufficientScopeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Задает политику дублирующих запросов. По умолчанию дублирующие запросы не отправляются.
+     *
+     * @param hedgingPolicy политика, null - без дублирующих запросов
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * Отправляет команду, а если для нее включены дублирующие запросы и ответ задерживается,
+     * то и дублирующий запрос. Результат - первый успешный ответ, либо ошибка, если оба запроса неуспешны
+     */
+    private <T> CompletableFuture<T> send(final URI uri, final String accessToken, final Map<String, String> params,
+                                          final String commandName, final TypeAdapter<T> decoder,
+                                          final CallProbe probe) {
+
+        final HedgingPolicy policy = hedgingPolicy;
+        if (!isHedged(policy, commandName, decoder)) {
+            return sendCommand(uri, accessToken, params, decoder, probe, false);
+        }
+        policy.onRequest();
+
+        final HedgedCall<T> call = new HedgedCall<T>(probe);
+        final long started = System.nanoTime();
+        final CallProbe primaryProbe = call.attemptProbe();
+        call.primary = sendCommand(uri, accessToken, params, decoder, primaryProbe, false);
+        call.primary.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T value, Throwable throwable) {
+                if (throwable == null || call.primary.isCancelled()) {
+                    // время отмененного запроса - оценка снизу, но без нее процентиль занижается
+                    policy.recordLatency(commandName, System.nanoTime() - started);
+                }
+                call.onComplete(call.hedge, primaryProbe, value, throwable);
+            }
+        });
+
+        CompletableFuture.delayedExecutor(policy.delayNanos(commandName), TimeUnit.NANOSECONDS).execute(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        ApiRateLimiter limiter = getRateLimiter();
+                        if (!call.startHedge(policy, limiter, accessToken, commandName)) {
+                            return;
+                        }
+                        final CallProbe hedgeProbe = call.attemptProbe();
+                        call.hedge = sendCommand(uri, accessToken, params, decoder, hedgeProbe, true);
+                        call.hedge.whenComplete(new BiConsumer<T, Throwable>() {
+                            @Override
+                            public void accept(T value, Throwable throwable) {
+                                if (throwable == null && !call.result.isDone()) {
+                                    policy.onHedgeWin();
+                                }
+                                call.onComplete(call.primary, hedgeProbe, value, throwable);
+                            }
+                        });
+                        if (call.result.isDone()) {
+                            call.hedge.cancel(true);
+                        }
+                    }
+                });
+
+        call.result.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T value, Throwable throwable) {
+                if (call.result.isCancelled()) {
+                    call.primary.cancel(true);
+                    CompletableFuture<T> hedge = call.hedge;
+                    if (hedge != null) {
+                        hedge.cancel(true);
+                    }
+                }
+            }
+        });
+        return call.result;
+    }
+
+    /**
+     * Дублируется только команда, ответ которой разбирается ее собственным декодером из {@link ApiCommand}:
+     * такой декодер не хранит состояния. Декодер вызывающего кода (например, потоковый разбор истории
+     * с обработчиком операций) при дублировании передал бы обработчику операции обоих ответов
+     */
+    private static boolean isHedged(HedgingPolicy policy, String commandName, TypeAdapter<?> decoder) {
+        if (policy == null || !policy.isHedged(commandName)) {
+            return false;
+        }
+        ApiCommand<?> command = ApiCommand.forName(commandName);
+        return command != null && command.getDecoder() == decoder;
+    }
+
+    private <T> CompletableFuture<T> sendCommand(URI uri, String accessToken, Map<String, String> params,
+                                                 final TypeAdapter<T> decoder, final CallProbe probe,
+                                                 boolean hedge) {
+
+        final long sentAt = probe == null ? 0 : probe.onSend();
+        CompletableFuture<Resp> response = hedge
+                ? execHedgeRequestAsync(uri, accessToken, params)
+                : execPostRequestAsync(uri, accessToken, params);
+        return handleResponse(response, new ResponseHandler<Resp, T>() {
+            @Override
+            public T handle(Resp response) throws Exception {
+                if (probe != null) {
+                    probe.onResponse(getStatusCodeFromResponse(response), sentAt);
+                }
+                checkApiCommandResponse(response);
+                InputStream input = getInputStreamFromResponse(response);
+                return parseJson(decoder, probe == null ? input : probe.count(input));
+            }
+        });
+    }
+
+    /**
+     * Исходный и дублирующий запросы одной команды. У каждого запроса свои измерения,
+     * в измерения команды попадают измерения запроса, который определил результат
+     */
+    private static final class HedgedCall<T> {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        volatile CompletableFuture<T> primary;
+        volatile CompletableFuture<T> hedge;
+        private final CallProbe probe;
+        private int attempts = 1;
+        private int failures;
+        private boolean closed;
+        private boolean succeeded;
+
+        HedgedCall(CallProbe probe) {
+            this.probe = probe;
+        }
+
+        /**
+         * @return измерения очередного запроса или null, если измерения не нужны
+         */
+        CallProbe attemptProbe() {
+            return probe == null ? null : new CallProbe();
+        }
+
+        /**
+         * @return true, если нужно отправить дублирующий запрос
+         */
+        synchronized boolean startHedge(HedgingPolicy policy, ApiRateLimiter limiter,
+                                        String accessToken, String commandName) {
+            if (closed || result.isDone()) {
+                return false;
+            }
+            if (!policy.tryHedge() || (limiter != null && !limiter.tryAcquire(accessToken, commandName))) {
+                return false;
+            }
+            attempts++;
+            return true;
+        }
+
+        /**
+         * Завершение одного из запросов. При успехе второй запрос отменяется
+         */
+        void onComplete(CompletableFuture<T> other, CallProbe attemptProbe, T value, Throwable throwable) {
+            if (throwable == null) {
+                synchronized (this) {
+                    if (succeeded) {
+                        return;
+                    }
+                    succeeded = true;
+                    copyProbe(attemptProbe);
+                }
+                if (result.complete(value) && other != null) {
+                    other.cancel(true);
+                }
+                return;
+            }
+            synchronized (this) {
+                if (++failures < attempts) {
+                    return;
+                }
+                closed = true;
+                copyProbe(attemptProbe);
+            }
+            result.completeExceptionally(unwrap(throwable));
+        }
+
+        private void copyProbe(CallProbe attemptProbe) {
+            if (probe != null) {
+                probe.copyFrom(attemptProbe);
+            }
+        }
+    }
+
+    /**
+     * Обрабатывает ответ сервера, когда он будет получен, и закрывает его.
+     * Отмена результирующего future отменяет и сам запрос.
+     */
+    <T> CompletableFuture<T> handleResponse(final CompletableFuture<Resp> responseFuture,
+                                            final ResponseHandler<Resp, T> handler) {
+
+        final CompletableFuture<T> result = responseFuture.thenApply(new Function<Resp, T>() {
+            @Override
+            public T apply(Resp response) {
+                try {
+                    return handler.handle(response);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    closeResponseQuietly(response);
+                }
+            }
+        });
+        result.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T t, Throwable throwable) {
+                if (result.isCancelled()) {
+                    responseFuture.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    private void closeResponseQuietly(Resp response) {
+        try {
+            closeResponse(response);
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * Ожидает результат асинхронной операции, пробрасывая исходное исключение.
+     */
+    static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("request interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    interface ResponseHandler<Resp, T> {
+        T handle(Resp response) throws Exception;
+    }
+}
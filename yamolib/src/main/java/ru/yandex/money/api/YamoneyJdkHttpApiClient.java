@@ -0,0 +1,174 @@
+package ru.yandex.money.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * <p>Транспорт на {@link HttpClient} из JDK 11.</p>
+ * <p>Клиент договаривается с сервером о протоколе HTTP/2, и тогда все одновременные
+ * запросы мультиплексируются в одном TLS-соединении вместо пула соединений HTTP/1.1.
+ * Если сервер не поддерживает HTTP/2, используется HTTP/1.1.</p>
+ * <p>Дублирующие запросы ({@link HedgingPolicy}) отправляются отдельным http-клиентом по HTTP/1.1,
+ * то есть по другому соединению, а не еще одним потоком в соединении исходного запроса.</p>
+ * <p>Запросы выполняются неблокирующим образом, поэтому транспорт подходит
+ * для {@link AsyncApiCommandsFacadeImpl}.</p>
+ * <p>Тело ответа читается целиком в массив байт, поэтому и при потоковой обработке истории
+ * ({@link ApiCommandsFacade#operationHistory(String, Integer, Integer, ru.yandex.money.api.enums.OperationHistoryType,
+ * Boolean, java.util.Date, java.util.Date, String, java.util.function.Consumer)}) страница ответа
+ * полностью находится в памяти; в памяти не накапливаются только разобранные операции.</p>
+ */
+public class YamoneyJdkHttpApiClient extends YamoneyAsyncApiClient<HttpRequest, HttpResponse<byte[]>> {
+
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private volatile HttpClient hedgeClient;
+
+    /**
+     * @param httpClient    настроенный http-клиент. Один экземпляр следует использовать для всех запросов
+     * @param socketTimeout таймаут ожидания ответа, в миллисекундах.
+     *                      Для request-payment и process-payment может понадобиться таймаут до 60 секунд
+     */
+    public YamoneyJdkHttpApiClient(HttpClient httpClient, int socketTimeout) {
+        this(httpClient, null, socketTimeout);
+    }
+
+    /**
+     * @param httpClient    настроенный http-клиент. Один экземпляр следует использовать для всех запросов
+     * @param hedgeClient   http-клиент для дублирующих запросов ({@link HedgingPolicy}). У каждого
+     *                      {@link HttpClient} свои соединения, поэтому дублирующий запрос не попадет
+     *                      в медленное соединение исходного. null - создать клиент HTTP/1.1 с настройками
+     *                      <code>httpClient</code> при первом дублирующем запросе
+     * @param socketTimeout таймаут ожидания ответа, в миллисекундах
+     */
+    public YamoneyJdkHttpApiClient(HttpClient httpClient, HttpClient hedgeClient, int socketTimeout) {
+        this.httpClient = httpClient;
+        this.hedgeClient = hedgeClient;
+        this.requestTimeout = Duration.ofMillis(socketTimeout);
+    }
+
+    /**
+     * Создает http-клиент, предпочитающий HTTP/2
+     */
+    public static HttpClient createHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(4000))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    protected CompletableFuture<HttpResponse<byte[]>> execPostRequestAsync(URI uri, String accessToken,
+                                                                            Map<String, String> params) {
+        return send(httpClient, uri, accessToken, params);
+    }
+
+    /**
+     * Исходный запрос по HTTP/2 идет потоком в общем соединении, и дублирующий запрос в том же соединении
+     * не поможет, если медленное само соединение. Поэтому дублирующий запрос отправляется отдельным клиентом
+     */
+    @Override
+    protected CompletableFuture<HttpResponse<byte[]>> execHedgeRequestAsync(URI uri, String accessToken,
+                                                                             Map<String, String> params) {
+        return send(getHedgeClient(), uri, accessToken, params);
+    }
+
+    private HttpClient getHedgeClient() {
+        HttpClient client = hedgeClient;
+        if (client == null) {
+            synchronized (this) {
+                client = hedgeClient;
+                if (client == null) {
+                    HttpClient.Builder builder = HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_1_1)
+                            .connectTimeout(httpClient.connectTimeout().orElse(Duration.ofMillis(4000)))
+                            .followRedirects(httpClient.followRedirects())
+                            .sslContext(httpClient.sslContext())
+                            .sslParameters(httpClient.sslParameters());
+                    if (httpClient.proxy().isPresent()) {
+                        builder.proxy(httpClient.proxy().get());
+                    }
+                    if (httpClient.authenticator().isPresent()) {
+                        builder.authenticator(httpClient.authenticator().get());
+                    }
+                    client = builder.build();
+                    hedgeClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpClient httpClient, URI uri, String accessToken,
+                                                         Map<String, String> params) {
+        logParameters(uri, params);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Content-Type", FormEncoder.CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(FormEncoder.encode(params)));
+
+        if (accessToken != null) {
+            request.header("Authorization", "Bearer " + accessToken);
+        }
+
+        final CompletableFuture<HttpResponse<byte[]>> future =
+                httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        final CompletableFuture<HttpResponse<byte[]>> result = future.thenApply(
+                new Function<HttpResponse<byte[]>, HttpResponse<byte[]>>() {
+                    @Override
+                    public HttpResponse<byte[]> apply(HttpResponse<byte[]> response) {
+                        logWWWAuthenticate(response);
+                        return response;
+                    }
+                });
+        result.whenComplete(new BiConsumer<HttpResponse<byte[]>, Throwable>() {
+            @Override
+            public void accept(HttpResponse<byte[]> response, Throwable throwable) {
+                if (result.isCancelled()) {
+                    future.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    @Override
+    protected int getStatusCodeFromResponse(HttpResponse<byte[]> httpResp) {
+        return httpResp.statusCode();
+    }
+
+    @Override
+    protected void checkResponseNonEmpty(HttpResponse<byte[]> httpResp) {
+        if (httpResp.body() == null || httpResp.body().length == 0) {
+            throw new IllegalStateException("response http entity is empty");
+        }
+    }
+
+    @Override
+    protected void closeResponse(HttpResponse<byte[]> response) {
+        // тело ответа уже прочитано целиком, соединение возвращено клиенту
+    }
+
+    @Override
+    protected String getHeaderValue(HttpResponse<byte[]> response) {
+        return response.headers().firstValue("WWW-Authenticate").orElse(null);
+    }
+
+    @Override
+    protected InputStream getInputStreamFromResponse(HttpResponse<byte[]> response) {
+        return new ByteArrayInputStream(response.body());
+    }
+}
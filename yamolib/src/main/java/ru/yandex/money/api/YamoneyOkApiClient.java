@@ -8,8 +8,6 @@ import org.apache.commons.logging.LogFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
-import java.util.Iterator;
 import java.util.Map;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -96,12 +94,12 @@ public class YamoneyOkApiClient extends YamoneyApiClient<Request.Builder, Respon
 
     private static class PostRequestBody extends RequestBody {
 
-        private static final MediaType MEDIA_TYPE = MediaType.parse("application/x-www-form-urlencoded; charset=UTF-8");
+        private static final MediaType MEDIA_TYPE = MediaType.parse(FormEncoder.CONTENT_TYPE);
 
-        private final Map<String, String> params;
+        private final byte[] body;
 
         public PostRequestBody(Map<String, String> params) {
-            this.params = params;
+            this.body = FormEncoder.encode(params);
         }
 
         @Override
@@ -110,17 +108,13 @@ public class YamoneyOkApiClient extends YamoneyApiClient<Request.Builder, Respon
         }
 
         @Override
-        public void writeTo(BufferedSink sink) throws IOException {
-            Iterator<Map.Entry<String, String>> iterator = params.entrySet().iterator();
-            if (!iterator.hasNext()) {
-                return;
-            }
-            Map.Entry<String, String> next = iterator.next();
-            sink.writeString(next.getKey() + "=" + next.getValue(), Charset.forName(CHARSET));
+        public long contentLength() {
+            return body.length;
+        }
 
-            for (; iterator.hasNext(); next = iterator.next()) {
-                sink.writeString(next.getKey() + "=" + next.getValue(), Charset.forName(CHARSET));
-            }
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.write(body);
         }
     }
 }
@@ -0,0 +1,163 @@
+package ru.yandex.money.api.cache;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.AtomicLongMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ForwardingApiCommandsFacade;
+import ru.yandex.money.api.InsufficientScopeException;
+import ru.yandex.money.api.InvalidTokenException;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Кэширует ответы account-info по токену на короткое время.</p>
+ * <p>Успешный process-payment с тем же токеном меняет остаток на счете: если сервер вернул
+ * новый остаток, он записывается в кэш, иначе запись удаляется. Ответ account-info, запрошенный
+ * до платежа (например, фоновым обновлением), после платежа не возвращается, даже если сохранился в кэше.</p>
+ * <p>В режиме stale-while-revalidate устаревший ответ возвращается сразу, а новый запрашивается
+ * в фоне. Ответ старше <code>maxStale</code> не возвращается, вызывающий поток ждет запроса к серверу.</p>
+ */
+public class AccountInfoCachingFacade extends ForwardingApiCommandsFacade {
+
+    private final ApiCommandsFacade delegate;
+    private final LoadingCache<String, Versioned> cache;
+    /**
+     * Номер поколения ответов по токену, увеличивается при каждом платеже и удалении ответа.
+     * Удаление из кэша теряется, если для токена в это время выполняется запрос, поэтому ответ
+     * хранится вместе с поколением, в котором был запрошен
+     */
+    private final AtomicLongMap<String> generations = AtomicLongMap.create();
+
+    /**
+     * @param ttl время жизни ответа
+     */
+    public AccountInfoCachingFacade(ApiCommandsFacade delegate, long ttl, TimeUnit unit) {
+        this(delegate, CacheBuilder.newBuilder().expireAfterWrite(ttl, unit), null);
+    }
+
+    /**
+     * Режим stale-while-revalidate.
+     *
+     * @param ttl             время, через которое ответ обновляется в фоне
+     * @param maxStale        время, через которое ответ удаляется из кэша. Должно быть больше <code>ttl</code>
+     * @param refreshExecutor исполнитель фоновых запросов account-info
+     */
+    public AccountInfoCachingFacade(ApiCommandsFacade delegate, long ttl, long maxStale, TimeUnit unit,
+                                    Executor refreshExecutor) {
+        this(delegate, Ticker.systemTicker(), ttl, maxStale, unit, refreshExecutor);
+    }
+
+    AccountInfoCachingFacade(ApiCommandsFacade delegate, Ticker ticker, long ttl, long maxStale, TimeUnit unit,
+                             Executor refreshExecutor) {
+        this(delegate, CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .refreshAfterWrite(ttl, unit)
+                .expireAfterWrite(maxStale, unit), refreshExecutor);
+        if (maxStale <= ttl) {
+            throw new IllegalArgumentException("maxStale should be greater than ttl");
+        }
+    }
+
+    private AccountInfoCachingFacade(final ApiCommandsFacade delegate, CacheBuilder<Object, Object> builder,
+                                     Executor refreshExecutor) {
+        this.delegate = delegate;
+        CacheLoader<String, Versioned> loader = new CacheLoader<String, Versioned>() {
+            @Override
+            public Versioned load(String accessToken) throws Exception {
+                long generation = generations.get(accessToken);
+                return new Versioned(delegate.accountInfo(accessToken), generation);
+            }
+        };
+        this.cache = builder.build(refreshExecutor == null ? loader : CacheLoader.asyncReloading(loader, refreshExecutor));
+    }
+
+    @Override
+    protected ApiCommandsFacade delegate() {
+        return delegate;
+    }
+
+    @Override
+    public AccountInfoResponse accountInfo(String accessToken)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        try {
+            while (true) {
+                Versioned cached = cache.get(accessToken);
+                if (cached.generation == generations.get(accessToken)) {
+                    return cached.response;
+                }
+                // ответ запрошен до платежа
+                cache.asMap().remove(accessToken, cached);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InvalidTokenException) {
+                throw (InvalidTokenException) cause;
+            }
+            if (cause instanceof InsufficientScopeException) {
+                throw (InsufficientScopeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public ProcessPaymentResponse processPaymentByCard(String accessToken, String requestId, String csc)
+            throws IOException, InsufficientScopeException, InvalidTokenException {
+        return paymentProcessed(accessToken, delegate.processPaymentByCard(accessToken, requestId, csc));
+    }
+
+    @Override
+    public ProcessPaymentResponse processPaymentByWallet(String accessToken, String requestId)
+            throws IOException, InsufficientScopeException, InvalidTokenException {
+        return paymentProcessed(accessToken, delegate.processPaymentByWallet(accessToken, requestId));
+    }
+
+    /**
+     * Удаляет ответ для токена из кэша
+     */
+    public void invalidate(String accessToken) {
+        generations.incrementAndGet(accessToken);
+        cache.invalidate(accessToken);
+    }
+
+    private ProcessPaymentResponse paymentProcessed(String accessToken, ProcessPaymentResponse response) {
+        if (!response.isSuccess()) {
+            return response;
+        }
+        long generation = generations.incrementAndGet(accessToken);
+        Versioned cached = cache.getIfPresent(accessToken);
+        if (cached != null && response.getBalance() != null) {
+            cache.put(accessToken, new Versioned(cached.response.withBalance(response.getBalance()), generation));
+        } else {
+            cache.invalidate(accessToken);
+        }
+        return response;
+    }
+
+    private static final class Versioned {
+        final AccountInfoResponse response;
+        final long generation;
+
+        Versioned(AccountInfoResponse response, long generation) {
+            this.response = response;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ru.yandex.money.api.cache;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ForwardingApiCommandsFacade;
+import ru.yandex.money.api.InsufficientScopeException;
+import ru.yandex.money.api.InvalidTokenException;
+import ru.yandex.money.api.response.OperationDetailResponse;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.io.IOException;
+
+/**
+ * <p>Кэширует ответы operation-details для операций в конечном статусе
+ * ({@link Operation.Status#success} и {@link Operation.Status#refused}): такие операции больше не меняются.
+ * Операции {@link Operation.Status#in_progress} и ответы с ошибкой не кэшируются и запрашиваются каждый раз.</p>
+ * <p>Ответ кэшируется для пары токен + идентификатор операции: разные токены одного пользователя
+ * могут иметь разные права, поэтому их ответы не смешиваются. Когда количество записей
+ * превышает <code>maximumSize</code>, вытесняются давно не использованные.</p>
+ */
+public class OperationDetailCachingFacade extends ForwardingApiCommandsFacade {
+
+    private final ApiCommandsFacade delegate;
+    private final Cache<Key, OperationDetailResponse> cache;
+
+    /**
+     * @param maximumSize максимальное количество операций в кэше
+     */
+    public OperationDetailCachingFacade(ApiCommandsFacade delegate, long maximumSize) {
+        this.delegate = delegate;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    protected ApiCommandsFacade delegate() {
+        return delegate;
+    }
+
+    @Override
+    public OperationDetailResponse operationDetail(String accessToken, String operationId)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+
+        Key key = new Key(accessToken, operationId);
+        OperationDetailResponse response = cache.getIfPresent(key);
+        if (response != null) {
+            return response;
+        }
+        response = delegate.operationDetail(accessToken, operationId);
+        if (isFinal(response)) {
+            cache.put(key, response);
+        }
+        return response;
+    }
+
+    /**
+     * @return статистика попаданий и промахов кэша
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return количество операций в кэше
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    static boolean isFinal(OperationDetailResponse response) {
+        return response.isSuccess()
+                && (response.getStatus() == Operation.Status.success || response.getStatus() == Operation.Status.refused);
+    }
+
+    private static final class Key {
+        private final String accessToken;
+        private final String operationId;
+
+        Key(String accessToken, String operationId) {
+            this.accessToken = accessToken;
+            this.operationId = operationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equal(accessToken, other.accessToken) && Objects.equal(operationId, other.operationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(accessToken, operationId);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.money.api.history;
+
+import java.io.IOException;
+
+/**
+ * Хранилище отметок синхронизации истории по счетам
+ */
+public interface CheckpointStore {
+
+    /**
+     * @param account идентификатор счета (не токен)
+     * @return сохраненная отметка, либо null, если счет еще не синхронизировался
+     */
+    HistoryCheckpoint load(String account) throws IOException;
+
+    /**
+     * Сохраняет отметку атомарно: после сбоя {@link #load(String)} вернет либо прежнюю, либо новую отметку
+     */
+    void save(String account, HistoryCheckpoint checkpoint) throws IOException;
+}
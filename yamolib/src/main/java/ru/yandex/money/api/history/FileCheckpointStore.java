@@ -0,0 +1,88 @@
+package ru.yandex.money.api.history;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * <p>Хранилище отметок в каталоге, по файлу на счет.</p>
+ * <p>Отметка записывается во временный файл, который затем атомарно переименовывается в файл счета,
+ * поэтому прерванная запись не портит прежнюю отметку.</p>
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+    private static final String CHARSET = "UTF-8";
+    private static final String SUFFIX = ".checkpoint";
+
+    private final File directory;
+
+    public FileCheckpointStore(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create directory " + directory);
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public HistoryCheckpoint load(String account) throws IOException {
+        File file = file(account);
+        if (!file.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            properties.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        Set<String> operationIds = new LinkedHashSet<String>(
+                Splitter.on(',').omitEmptyStrings().splitToList(properties.getProperty("operation_ids", "")));
+        return new HistoryCheckpoint(new Date(Long.parseLong(properties.getProperty("datetime"))), operationIds);
+    }
+
+    @Override
+    public void save(String account, HistoryCheckpoint checkpoint) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("datetime", String.valueOf(checkpoint.getDatetime().getTime()));
+        properties.setProperty("operation_ids", Joiner.on(',').join(checkpoint.getOperationIds()));
+
+        File file = file(account);
+        File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            OutputStream outputStream = new FileOutputStream(tmp);
+            try {
+                properties.store(outputStream, account);
+                outputStream.flush();
+                ((FileOutputStream) outputStream).getFD().sync();
+            } finally {
+                outputStream.close();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    private File file(String account) throws IOException {
+        return new File(directory, URLEncoder.encode(account, CHARSET) + SUFFIX);
+    }
+}
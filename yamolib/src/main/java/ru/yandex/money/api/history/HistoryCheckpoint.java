@@ -0,0 +1,82 @@
+package ru.yandex.money.api.history;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>Отметка синхронизации истории операций счета: время самой поздней из полученных операций.</p>
+ * <p>Даты в запросе истории передаются с точностью до секунды, поэтому вместе с временем хранятся
+ * идентификаторы всех полученных операций этой секунды. При следующей синхронизации они
+ * придут снова и будут пропущены.</p>
+ */
+public final class HistoryCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long datetime;
+    private final Set<String> operationIds;
+
+    /**
+     * @param datetime     время самой поздней полученной операции
+     * @param operationIds идентификаторы полученных операций в секунду <code>datetime</code>
+     */
+    public HistoryCheckpoint(Date datetime, Set<String> operationIds) {
+        this.datetime = datetime.getTime();
+        this.operationIds = Collections.unmodifiableSet(new LinkedHashSet<String>(operationIds));
+    }
+
+    public Date getDatetime() {
+        return new Date(datetime);
+    }
+
+    /**
+     * @return начало секунды, с которой нужно запрашивать новые операции
+     */
+    public Date getFrom() {
+        return new Date(truncateToSecond(datetime));
+    }
+
+    public Set<String> getOperationIds() {
+        return operationIds;
+    }
+
+    /**
+     * @return true, если операция уже была получена до этой отметки
+     */
+    public boolean isSeen(String operationId, Date operationDatetime) {
+        return truncateToSecond(operationDatetime.getTime()) < truncateToSecond(datetime)
+                || operationIds.contains(operationId);
+    }
+
+    static long truncateToSecond(long millis) {
+        return Math.floorDiv(millis, 1000L) * 1000L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HistoryCheckpoint that = (HistoryCheckpoint) o;
+        return datetime == that.datetime && operationIds.equals(that.operationIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (datetime ^ (datetime >>> 32)) + operationIds.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "HistoryCheckpoint{" +
+                "datetime=" + getDatetime() +
+                ", operationIds=" + operationIds +
+                '}';
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.money.api.history;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Хранилище отметок в памяти. Для тестов и для процессов, которые синхронизируют историю с начала при запуске
+ */
+public class InMemoryCheckpointStore implements CheckpointStore {
+
+    private final ConcurrentMap<String, HistoryCheckpoint> checkpoints =
+            new ConcurrentHashMap<String, HistoryCheckpoint>();
+
+    @Override
+    public HistoryCheckpoint load(String account) {
+        return checkpoints.get(account);
+    }
+
+    @Override
+    public void save(String account, HistoryCheckpoint checkpoint) {
+        checkpoints.put(account, checkpoint);
+    }
+}
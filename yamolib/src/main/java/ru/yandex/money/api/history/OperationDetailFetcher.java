@@ -0,0 +1,158 @@
+package ru.yandex.money.api.history;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.response.OperationDetailResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>Пакетный запрос деталей операций.</p>
+ * <p>Детали запрашиваются одновременно, но не больше <code>parallelism</code> запросов на один токен,
+ * в том числе из разных пакетов, выполняемых одновременно. Повторяющиеся в пакете идентификаторы
+ * запрашиваются один раз.</p>
+ */
+public class OperationDetailFetcher {
+
+    private final ApiCommandsFacade facade;
+    private final Executor executor;
+    private final int parallelism;
+    /**
+     * Ограничители запросов по токенам. Ограничитель живет, пока есть пакеты, которые его используют
+     */
+    private final LoadingCache<String, Semaphore> permits;
+
+    /**
+     * @param executor    исполнитель запросов
+     * @param parallelism максимальное количество одновременных запросов с одним токеном
+     */
+    public OperationDetailFetcher(ApiCommandsFacade facade, Executor executor, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+        }
+        this.facade = facade;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.permits = CacheBuilder.newBuilder()
+                .weakValues()
+                .build(new CacheLoader<String, Semaphore>() {
+                    @Override
+                    public Semaphore load(String accessToken) {
+                        return new Semaphore(parallelism);
+                    }
+                });
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Запрашивает детали операций. Ошибка запроса одной операции не прерывает остальные запросы
+     * и возвращается в ее результате.
+     *
+     * @param accessToken  токен с правом operation-details
+     * @param operationIds идентификаторы операций, могут повторяться
+     * @return результаты в порядке идентификаторов в <code>operationIds</code>
+     * @throws InterruptedException поток прерван во время ожидания. Оставшиеся запросы отменяются
+     */
+    public List<OperationDetailResult> fetch(final String accessToken, Collection<String> operationIds)
+            throws InterruptedException {
+
+        final Semaphore semaphore = permits.getUnchecked(accessToken);
+        Map<String, Future<OperationDetailResponse>> futures = new LinkedHashMap<String, Future<OperationDetailResponse>>();
+        try {
+            for (final String operationId : operationIds) {
+                if (futures.containsKey(operationId)) {
+                    continue;
+                }
+                semaphore.acquire();
+                DetailTask task = new DetailTask(facade, accessToken, operationId, semaphore);
+                futures.put(operationId, task);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    semaphore.release();
+                    throw e;
+                }
+            }
+
+            List<OperationDetailResult> results = new ArrayList<OperationDetailResult>(operationIds.size());
+            for (String operationId : operationIds) {
+                results.add(result(operationId, futures.get(operationId)));
+            }
+            return results;
+        } catch (InterruptedException e) {
+            for (Future<OperationDetailResponse> future : futures.values()) {
+                future.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Запрос деталей одной операции. Разрешение возвращается ровно один раз: после запроса,
+     * либо при отмене задачи, которая еще не начала выполняться
+     */
+    private static final class DetailTask extends FutureTask<OperationDetailResponse> {
+        private final Semaphore semaphore;
+        private final AtomicBoolean permitClaimed;
+
+        DetailTask(ApiCommandsFacade facade, String accessToken, String operationId, Semaphore semaphore) {
+            this(facade, accessToken, operationId, semaphore, new AtomicBoolean());
+        }
+
+        private DetailTask(final ApiCommandsFacade facade, final String accessToken, final String operationId,
+                           final Semaphore semaphore, final AtomicBoolean permitClaimed) {
+            super(new Callable<OperationDetailResponse>() {
+                @Override
+                public OperationDetailResponse call() throws Exception {
+                    boolean claimed = permitClaimed.compareAndSet(false, true);
+                    try {
+                        return facade.operationDetail(accessToken, operationId);
+                    } finally {
+                        if (claimed) {
+                            semaphore.release();
+                        }
+                    }
+                }
+            });
+            this.semaphore = semaphore;
+            this.permitClaimed = permitClaimed;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && permitClaimed.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private static OperationDetailResult result(String operationId, Future<OperationDetailResponse> future)
+            throws InterruptedException {
+        try {
+            return new OperationDetailResult(operationId, future.get(), null);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                return new OperationDetailResult(operationId, null, (Exception) cause);
+            }
+            throw (Error) cause;
+        }
+    }
+}
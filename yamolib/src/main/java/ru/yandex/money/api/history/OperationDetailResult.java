@@ -0,0 +1,54 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.response.OperationDetailResponse;
+
+/**
+ * Результат запроса деталей одной операции в пакете: ответ сервера либо ошибка запроса
+ */
+public class OperationDetailResult {
+
+    private final String operationId;
+    private final OperationDetailResponse response;
+    private final Exception error;
+
+    OperationDetailResult(String operationId, OperationDetailResponse response, Exception error) {
+        this.operationId = operationId;
+        this.response = response;
+        this.error = error;
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    /**
+     * @return ответ сервера, либо null, если запрос не выполнен
+     */
+    public OperationDetailResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * @return ошибка запроса ({@link java.io.IOException}, {@link ru.yandex.money.api.InvalidTokenException} и т.п.),
+     * либо null, если сервер ответил
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @return true, если запрос выполнен и сервер не вернул код ошибки
+     */
+    public boolean isSuccess() {
+        return error == null && response.isSuccess();
+    }
+
+    @Override
+    public String toString() {
+        return "OperationDetailResult{" +
+                "operationId='" + operationId + '\'' +
+                ", response=" + response +
+                ", error=" + error +
+                '}';
+    }
+}
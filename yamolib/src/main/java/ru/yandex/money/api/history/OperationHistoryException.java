@@ -0,0 +1,32 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.response.util.OperationHistoryError;
+
+/**
+ * <p>Ошибка получения очередной страницы истории операций.</p>
+ * <p>Итераторы и потоки операций не могут бросать проверяемые исключения,
+ * поэтому исходная ошибка ({@link java.io.IOException},
+ * {@link ru.yandex.money.api.InvalidTokenException} и т.п.) передается как причина.
+ * Если сервер вернул в ответе код ошибки, он доступен через {@link #getError()}.</p>
+ */
+public class OperationHistoryException extends RuntimeException {
+
+    private final OperationHistoryError error;
+
+    public OperationHistoryException(String message, Throwable cause) {
+        super(message, cause);
+        this.error = null;
+    }
+
+    public OperationHistoryException(String message, OperationHistoryError error) {
+        super(message);
+        this.error = error;
+    }
+
+    /**
+     * @return код ошибки из ответа сервера, либо null, если ошибка не связана с ответом
+     */
+    public OperationHistoryError getError() {
+        return error;
+    }
+}
@@ -0,0 +1,274 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * <p>Параллельная выгрузка истории операций за период.</p>
+ * <p>Постраничный обход по номеру следующей записи последователен по своей природе. Экспортер делит
+ * период запроса на временные окна (параметры from и till) и запрашивает окна одновременно,
+ * не больше <code>parallelism</code> запросов сразу. Если в окне оказалось больше одной страницы
+ * операций, окно делится пополам, и половины запрашиваются отдельно. Окно короче двух секунд
+ * (точность дат в запросе) не делится и обходится постранично.</p>
+ * <p>Операции передаются потребителю в обратном хронологическом порядке, как в обычной выдаче:
+ * окно выдается, когда выданы все более поздние окна. Операции, попавшие в соседние окна
+ * на их границе, выдаются один раз (по {@link Operation#getOperationId()}).</p>
+ */
+public class OperationHistoryExporter {
+
+    private static final long MIN_WINDOW_MILLIS = 2000;
+
+    private final ApiCommandsFacade facade;
+    private final String accessToken;
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * @param executor    исполнитель запросов окон
+     * @param parallelism максимальное количество одновременных запросов
+     */
+    public OperationHistoryExporter(ApiCommandsFacade facade, String accessToken, Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism should be positive: " + parallelism);
+        }
+        this.facade = facade;
+        this.accessToken = accessToken;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return операции за период запроса в обратном хронологическом порядке
+     * @see #export(OperationHistoryQuery, Consumer)
+     */
+    public List<Operation> export(OperationHistoryQuery query) {
+        final List<Operation> result = new ArrayList<Operation>();
+        export(query, new Consumer<Operation>() {
+            @Override
+            public void accept(Operation operation) {
+                result.add(operation);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Выгружает операции за период запроса. Потребитель вызывается в потоке, вызвавшем метод.
+     *
+     * @param query запрос с обязательными датами from и till
+     * @throws OperationHistoryException ошибка запроса одного из окон. Остальные запросы отменяются
+     */
+    public void export(OperationHistoryQuery query, Consumer<? super Operation> consumer) {
+        if (query.getFrom() == null || query.getTill() == null) {
+            throw new IllegalArgumentException("both from and till should be set: " + query);
+        }
+        new Export(query, consumer).run();
+    }
+
+    /**
+     * Окно [from, till), границы выровнены по секундам
+     */
+    static class Window {
+        final long from;
+        final long till;
+
+        Window(long from, long till) {
+            this.from = from;
+            this.till = till;
+        }
+
+        boolean canSplit() {
+            return till - from >= MIN_WINDOW_MILLIS;
+        }
+
+        Window upper() {
+            return new Window(middle(), till);
+        }
+
+        Window lower() {
+            return new Window(from, middle());
+        }
+
+        private long middle() {
+            return from + (till - from) / 2000 * 1000;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + new Date(from) + ", " + new Date(till) + ")";
+        }
+    }
+
+    /**
+     * Результат запроса окна: либо операции окна, либо две половины, на которые его нужно разделить
+     */
+    private static class WindowResult {
+        final Window window;
+        final List<Operation> operations;
+
+        WindowResult(Window window, List<Operation> operations) {
+            this.window = window;
+            this.operations = operations;
+        }
+    }
+
+    /**
+     * Состояние одной выгрузки. Окнами управляет только поток, вызвавший export
+     */
+    private class Export {
+
+        private final OperationHistoryQuery query;
+        private final Consumer<? super Operation> consumer;
+        private final CompletionService<WindowResult> completionService =
+                new ExecutorCompletionService<WindowResult>(executor);
+        private final LinkedList<Window> pending = new LinkedList<Window>();
+        private final List<Future<WindowResult>> running = new ArrayList<Future<WindowResult>>();
+        /**
+         * Загруженные, но еще не выданные окна по верхней границе
+         */
+        private final Map<Long, WindowResult> completed = new TreeMap<Long, WindowResult>();
+        private Set<String> previousWindowIds = new HashSet<String>();
+        private long cursor;
+
+        Export(OperationHistoryQuery query, Consumer<? super Operation> consumer) {
+            this.query = query;
+            this.consumer = consumer;
+        }
+
+        void run() {
+            long from = query.getFrom().getTime() / 1000 * 1000;
+            long till = (query.getTill().getTime() + 999) / 1000 * 1000;
+            cursor = till;
+            splitInitial(new Window(from, till));
+
+            try {
+                while (!pending.isEmpty() || !running.isEmpty()) {
+                    while (!pending.isEmpty() && running.size() < parallelism) {
+                        submit(pending.removeFirst());
+                    }
+                    Future<WindowResult> done = completionService.take();
+                    running.remove(done);
+                    WindowResult result = get(done);
+                    if (result.operations == null) {
+                        // сначала более позднюю половину, чтобы раньше начать выдачу
+                        pending.addFirst(result.window.lower());
+                        pending.addFirst(result.window.upper());
+                    } else {
+                        completed.put(result.window.till, result);
+                        emitCompleted();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OperationHistoryException("interrupted while exporting operation history", e);
+            } finally {
+                for (Future<WindowResult> future : running) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        /**
+         * Делит период на окна по числу одновременных запросов. Окна идут от позднего к раннему
+         */
+        private void splitInitial(Window window) {
+            List<Window> windows = new ArrayList<Window>();
+            windows.add(window);
+            while (windows.size() < parallelism) {
+                List<Window> halves = new ArrayList<Window>();
+                for (Window w : windows) {
+                    if (w.canSplit()) {
+                        halves.add(w.upper());
+                        halves.add(w.lower());
+                    } else {
+                        halves.add(w);
+                    }
+                }
+                if (halves.size() == windows.size()) {
+                    break;
+                }
+                windows = halves;
+            }
+            pending.addAll(windows);
+        }
+
+        private void submit(final Window window) {
+            running.add(completionService.submit(new Callable<WindowResult>() {
+                @Override
+                public WindowResult call() {
+                    return fetchWindow(window);
+                }
+            }));
+        }
+
+        private WindowResult get(Future<WindowResult> future) throws InterruptedException {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof OperationHistoryException) {
+                    throw (OperationHistoryException) cause;
+                }
+                throw new OperationHistoryException("operation-history export failed", cause);
+            }
+        }
+
+        private WindowResult fetchWindow(Window window) {
+            OperationHistoryPager pager = new OperationHistoryPager(facade, accessToken,
+                    query.withFrom(new Date(window.from)).withTill(new Date(window.till)));
+            Iterator<OperationHistoryResponse> pages = pager.pages();
+            OperationHistoryResponse page = pages.next();
+            if (page.getNextRecord() != null && window.canSplit()) {
+                return new WindowResult(window, null);
+            }
+            List<Operation> operations = new ArrayList<Operation>(operationsOf(page));
+            while (pages.hasNext()) {
+                operations.addAll(operationsOf(pages.next()));
+            }
+            return new WindowResult(window, operations);
+        }
+
+        /**
+         * В ответе без операций поля operations может не быть
+         */
+        private List<Operation> operationsOf(OperationHistoryResponse page) {
+            return page.getOperations() == null ? Collections.<Operation>emptyList() : page.getOperations();
+        }
+
+        /**
+         * Выдает загруженные окна, начиная с самого позднего, пока не встретится незагруженное
+         */
+        private void emitCompleted() {
+            WindowResult result;
+            while ((result = completed.remove(cursor)) != null) {
+                Set<String> ids = new HashSet<String>();
+                for (Operation operation : result.operations) {
+                    if (ids.add(operation.getOperationId()) && !previousWindowIds.contains(operation.getOperationId())) {
+                        consumer.accept(operation);
+                    }
+                }
+                previousWindowIds = ids;
+                cursor = result.window.from;
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.InsufficientScopeException;
+import ru.yandex.money.api.InvalidTokenException;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Постраничный обход истории операций.</p>
+ * <p>Страницы запрашиваются лениво, по мере продвижения по итератору: следующая страница
+ * (по номеру записи из {@link OperationHistoryResponse#getNextRecord()}) запрашивается только тогда,
+ * когда операции текущей закончились. Обход заканчивается на последней странице.
+ * Если нужны только первые N операций, будет запрошено ровно столько страниц, сколько их содержат:</p>
+ * <pre>
+ * new OperationHistoryPager(facade, token, OperationHistoryQuery.all().withLabel("order"))
+ *         .stream()
+ *         .limit(10)
+ *         .collect(Collectors.toList());
+ * </pre>
+ * <p>Ошибки запроса бросаются из итератора как {@link OperationHistoryException}.</p>
+ * <p>Каждый вызов {@link #iterator()} начинает обход заново. Сами итераторы не потокобезопасны.</p>
+ */
+public class OperationHistoryPager implements Iterable<Operation> {
+
+    private final ApiCommandsFacade facade;
+    private final String accessToken;
+    private final OperationHistoryQuery query;
+
+    public OperationHistoryPager(ApiCommandsFacade facade, String accessToken, OperationHistoryQuery query) {
+        this.facade = facade;
+        this.accessToken = accessToken;
+        this.query = query;
+    }
+
+    public OperationHistoryQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return итератор по страницам истории. Каждый вызов {@link Iterator#next()} выполняет запрос к API
+     */
+    public Iterator<OperationHistoryResponse> pages() {
+        return new PageIterator();
+    }
+
+    /**
+     * <p>Итератор по страницам истории с упреждающей загрузкой: следующие страницы запрашиваются
+     * в фоне, пока потребитель обрабатывает текущую. Если обработка страницы занимает
+     * столько же времени, сколько ее загрузка, обход идет примерно вдвое быстрее.</p>
+     * <p>Итератор нужно закрыть, если обход прерван до последней страницы.</p>
+     *
+     * @param executor исполнитель фоновой задачи загрузки, она занимает один поток на все время обхода
+     * @param depth    сколько загруженных страниц может ждать обработки
+     */
+    public PrefetchingPageIterator prefetchingPages(Executor executor, int depth) {
+        return new PrefetchingPageIterator(this, executor, depth);
+    }
+
+    /**
+     * Поток операций всех страниц с упреждающей загрузкой страниц.
+     * Поток нужно закрыть, если он прочитан не до конца, например, в try-with-resources.
+     *
+     * @see #prefetchingPages(Executor, int)
+     */
+    public Stream<Operation> prefetchingStream(Executor executor, int depth) {
+        final PrefetchingPageIterator pages = prefetchingPages(executor, depth);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new OperationIterator(pages), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        pages.close();
+                    }
+                });
+    }
+
+    /**
+     * @return итератор по операциям всех страниц
+     */
+    @Override
+    public Iterator<Operation> iterator() {
+        return new OperationIterator(pages());
+    }
+
+    /**
+     * @return последовательный поток операций всех страниц
+     */
+    public Stream<Operation> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Запрашивает страницу истории, начиная с записи <code>startRecord</code>
+     *
+     * @param startRecord номер первой записи страницы, либо null для первой страницы
+     * @throws OperationHistoryException ошибка запроса или код ошибки в ответе сервера
+     */
+    protected OperationHistoryResponse fetchPage(Integer startRecord) {
+        OperationHistoryResponse response;
+        try {
+            response = facade.operationHistory(accessToken, startRecord, query.getPageSize(), query.getType(),
+                    query.getDetails(), query.getFrom(), query.getTill(), query.getLabel());
+        } catch (IOException e) {
+            throw new OperationHistoryException("operation-history request failed", e);
+        } catch (InvalidTokenException e) {
+            throw new OperationHistoryException("operation-history request failed", e);
+        } catch (InsufficientScopeException e) {
+            throw new OperationHistoryException("operation-history request failed", e);
+        }
+        if (!response.isSuccess()) {
+            throw new OperationHistoryException("operation-history error: " + response.getError(),
+                    response.getError());
+        }
+        return response;
+    }
+
+    /**
+     * Ленивый обход страниц по номеру следующей записи
+     */
+    private class PageIterator implements Iterator<OperationHistoryResponse> {
+
+        private Integer nextRecord;
+        private boolean finished;
+
+        @Override
+        public boolean hasNext() {
+            return !finished;
+        }
+
+        @Override
+        public OperationHistoryResponse next() {
+            if (finished) {
+                throw new NoSuchElementException();
+            }
+            OperationHistoryResponse page = fetchPage(nextRecord);
+            nextRecord = page.getNextRecord();
+            finished = nextRecord == null;
+            return page;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Обход операций страница за страницей. Пустые страницы пропускаются
+     */
+    static class OperationIterator implements Iterator<Operation> {
+
+        private final Iterator<OperationHistoryResponse> pages;
+        private Iterator<Operation> current = Collections.<Operation>emptyList().iterator();
+
+        OperationIterator(Iterator<OperationHistoryResponse> pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (!pages.hasNext()) {
+                    return false;
+                }
+                OperationHistoryResponse page = pages.next();
+                if (page.getOperations() != null) {
+                    current = page.getOperations().iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Operation next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.enums.OperationHistoryType;
+
+import java.util.Date;
+
+/**
+ * <p>Параметры запроса истории операций, общие для всех страниц выдачи:
+ * тип операций, период, метка, признак запроса деталей и размер страницы.</p>
+ * <p>Объект неизменяемый, методы <code>withXxx</code> возвращают измененную копию.</p>
+ */
+public final class OperationHistoryQuery {
+
+    /**
+     * Максимальное количество записей на странице, которое допускает API
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final OperationHistoryQuery ALL =
+            new OperationHistoryQuery(null, null, null, null, null, MAX_PAGE_SIZE);
+
+    private final OperationHistoryType type;
+    private final Boolean details;
+    private final Date from;
+    private final Date till;
+    private final String label;
+    private final int pageSize;
+
+    private OperationHistoryQuery(OperationHistoryType type, Boolean details, Date from, Date till,
+                                  String label, int pageSize) {
+        this.type = type;
+        this.details = details;
+        this.from = copy(from);
+        this.till = copy(till);
+        this.label = label;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return запрос всей истории операций страницами по {@link #MAX_PAGE_SIZE} записей
+     */
+    public static OperationHistoryQuery all() {
+        return ALL;
+    }
+
+    public OperationHistoryQuery withType(OperationHistoryType type) {
+        return new OperationHistoryQuery(type, details, from, till, label, pageSize);
+    }
+
+    public OperationHistoryQuery withDetails(Boolean details) {
+        return new OperationHistoryQuery(type, details, from, till, label, pageSize);
+    }
+
+    /**
+     * @param from дата, начиная с которой (включительно) запрашиваются операции
+     */
+    public OperationHistoryQuery withFrom(Date from) {
+        return new OperationHistoryQuery(type, details, from, till, label, pageSize);
+    }
+
+    /**
+     * @param till дата, до которой (не включительно) запрашиваются операции
+     */
+    public OperationHistoryQuery withTill(Date till) {
+        return new OperationHistoryQuery(type, details, from, till, label, pageSize);
+    }
+
+    public OperationHistoryQuery withLabel(String label) {
+        return new OperationHistoryQuery(type, details, from, till, label, pageSize);
+    }
+
+    /**
+     * @param pageSize количество записей на странице, от 1 до {@link #MAX_PAGE_SIZE}
+     */
+    public OperationHistoryQuery withPageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page size should be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        return new OperationHistoryQuery(type, details, from, till, label, pageSize);
+    }
+
+    public OperationHistoryType getType() {
+        return type;
+    }
+
+    public Boolean getDetails() {
+        return details;
+    }
+
+    public Date getFrom() {
+        return copy(from);
+    }
+
+    public Date getTill() {
+        return copy(till);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+
+    @Override
+    public String toString() {
+        return "OperationHistoryQuery{" +
+                "type=" + type +
+                ", details=" + details +
+                ", from=" + from +
+                ", till=" + till +
+                ", label='" + label + '\'' +
+                ", pageSize=" + pageSize +
+                '}';
+    }
+}
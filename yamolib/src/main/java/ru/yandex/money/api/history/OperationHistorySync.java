@@ -0,0 +1,80 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * <p>Инкрементальная синхронизация истории операций.</p>
+ * <p>Для каждого счета хранится отметка {@link HistoryCheckpoint} — время самой поздней из полученных
+ * операций. Очередная синхронизация запрашивает историю, начиная с этого времени (параметр from),
+ * и передает потребителю только новые операции. Число запросов к API и объем ответов
+ * зависят от количества новых операций, а не от размера всей истории.</p>
+ * <p>Отметка сохраняется после того, как потребитель обработал все новые операции. Если синхронизация
+ * прервалась ошибкой, отметка не меняется, и при следующей синхронизации те же операции будут
+ * переданы снова.</p>
+ * <p>Синхронизации одного счета не должны выполняться одновременно.</p>
+ */
+public class OperationHistorySync {
+
+    private final ApiCommandsFacade facade;
+    private final CheckpointStore store;
+
+    public OperationHistorySync(ApiCommandsFacade facade, CheckpointStore store) {
+        this.facade = facade;
+        this.store = store;
+    }
+
+    /**
+     * Передает потребителю операции, появившиеся после предыдущей синхронизации,
+     * в обратном хронологическом порядке, и сдвигает отметку счета.
+     *
+     * @param account     идентификатор счета, под которым хранится отметка
+     * @param accessToken токен с правом operation-history
+     * @param query       фильтры истории. Дата from используется только при первой синхронизации,
+     *                    дата till не должна быть задана
+     * @param consumer    обработчик новых операций
+     * @return количество новых операций
+     * @throws IOException               ошибка чтения или записи отметки
+     * @throws OperationHistoryException ошибка запроса истории
+     */
+    public int sync(String account, String accessToken, OperationHistoryQuery query,
+                    Consumer<? super Operation> consumer) throws IOException {
+        if (query.getTill() != null) {
+            throw new IllegalArgumentException("till can not be used for synchronization: " + query);
+        }
+        HistoryCheckpoint checkpoint = store.load(account);
+        OperationHistoryQuery deltaQuery = checkpoint == null ? query : query.withFrom(checkpoint.getFrom());
+
+        long newestSecond = Long.MIN_VALUE;
+        Date newest = null;
+        Set<String> newestIds = new LinkedHashSet<String>();
+        int count = 0;
+        for (Operation operation : new OperationHistoryPager(facade, accessToken, deltaQuery)) {
+            long second = HistoryCheckpoint.truncateToSecond(operation.getDatetime().getTime());
+            if (second > newestSecond) {
+                newestSecond = second;
+                newest = operation.getDatetime();
+                newestIds.clear();
+            }
+            if (second == newestSecond) {
+                newestIds.add(operation.getOperationId());
+            }
+            if (checkpoint != null && checkpoint.isSeen(operation.getOperationId(), operation.getDatetime())) {
+                continue;
+            }
+            consumer.accept(operation);
+            count++;
+        }
+
+        if (count > 0) {
+            store.save(account, new HistoryCheckpoint(newest, newestIds));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.response.OperationHistoryResponse;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * <p>Обход страниц истории с упреждающей загрузкой.</p>
+ * <p>Страницы запрашиваются в фоновой задаче одна за другой, не дожидаясь, пока потребитель
+ * обработает предыдущие. Загруженные страницы складываются в очередь длиной <code>depth</code>;
+ * когда очередь заполнена, фоновая задача ждет. Поэтому в памяти одновременно находится не больше
+ * <code>depth + 2</code> страниц: обрабатываемая, очередь и только что загруженная.</p>
+ * <p>Если обход прерван до последней страницы, итератор нужно закрыть, чтобы остановить фоновую задачу.</p>
+ */
+public class PrefetchingPageIterator implements Iterator<OperationHistoryResponse>, Closeable {
+
+    private static final PageResult END = new PageResult(null, null);
+
+    private final BlockingQueue<PageResult> queue;
+    private final FutureTask<Void> producer;
+    private PageResult next;
+    private boolean finished;
+
+    PrefetchingPageIterator(final OperationHistoryPager pager, Executor executor, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("prefetch depth should be positive: " + depth);
+        }
+        queue = new ArrayBlockingQueue<PageResult>(depth);
+        producer = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                produce(pager);
+            }
+        }, null);
+        executor.execute(producer);
+    }
+
+    private void produce(OperationHistoryPager pager) {
+        try {
+            Integer nextRecord = null;
+            do {
+                PageResult result;
+                try {
+                    result = new PageResult(pager.fetchPage(nextRecord), null);
+                } catch (Throwable e) {
+                    // в том числе Error: иначе потребитель навсегда останется в queue.take()
+                    queue.put(new PageResult(null, e));
+                    return;
+                }
+                queue.put(result);
+                nextRecord = result.page.getNextRecord();
+            } while (nextRecord != null && !Thread.currentThread().isInterrupted());
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // итератор закрыт
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OperationHistoryException("interrupted while waiting for operation-history page", e);
+            }
+        }
+        if (next.failure != null) {
+            finished = true;
+            if (next.failure instanceof Error) {
+                throw (Error) next.failure;
+            }
+            throw next.failure instanceof OperationHistoryException
+                    ? (OperationHistoryException) next.failure
+                    : new OperationHistoryException("operation-history request failed", next.failure);
+        }
+        if (next == END) {
+            finished = true;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public OperationHistoryResponse next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        OperationHistoryResponse page = next.page;
+        next = null;
+        return page;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Останавливает фоновую загрузку страниц
+     */
+    @Override
+    public void close() {
+        finished = true;
+        producer.cancel(true);
+        queue.clear();
+    }
+
+    private static class PageResult {
+        final OperationHistoryResponse page;
+        final Throwable failure;
+
+        PageResult(OperationHistoryResponse page, Throwable failure) {
+            this.page = page;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.money.api.json;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.FundraisingStatsResponse;
+import ru.yandex.money.api.response.OperationDetailResponse;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+import ru.yandex.money.api.response.ReceiveOAuthTokenResponse;
+import ru.yandex.money.api.response.RequestPaymentResponse;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.response.util.money.PaymentMethods;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Реестр потоковых декодеров для response-классов.</p>
+ * <p>Ответы известных типов разбираются декодером напрямую из {@link JsonReader}:
+ * без рефлексии и без поиска адаптера в {@link com.google.gson.Gson}
+ * (кэш адаптеров Gson синхронизирован). Остальные типы разбираются через {@link YamoneyGson}.</p>
+ */
+public final class JsonDecoders {
+
+    private static final Map<Class<?>, TypeAdapter<?>> DECODERS;
+
+    static {
+        Map<Class<?>, TypeAdapter<?>> decoders = new HashMap<Class<?>, TypeAdapter<?>>();
+        decoders.put(Date.class, new Rfc3339DateAdapter());
+        decoders.put(AccountInfoResponse.class, new AccountInfoResponse.JsonAdapter());
+        decoders.put(FundraisingStatsResponse.class, new FundraisingStatsResponse.JsonAdapter());
+        decoders.put(Operation.class, new Operation.JsonAdapter());
+        decoders.put(OperationDetailResponse.class, new OperationDetailResponse.JsonAdapter());
+        decoders.put(OperationHistoryResponse.class, new OperationHistoryResponse.JsonAdapter());
+        decoders.put(PaymentMethods.class, new PaymentMethods.JsonAdapter());
+        decoders.put(ProcessPaymentResponse.class, new ProcessPaymentResponse.JsonAdapter());
+        decoders.put(ReceiveOAuthTokenResponse.class, new ReceiveOAuthTokenResponse.JsonAdapter());
+        decoders.put(RequestPaymentResponse.class, new RequestPaymentResponse.JsonAdapter());
+        DECODERS = Collections.unmodifiableMap(decoders);
+    }
+
+    private JsonDecoders() {
+    }
+
+    /**
+     * @return зарегистрированные декодеры по типам
+     */
+    public static Map<Class<?>, TypeAdapter<?>> getDecoders() {
+        return DECODERS;
+    }
+
+    /**
+     * @return декодер для типа <code>classOfT</code>, либо null, если декодер не зарегистрирован
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TypeAdapter<T> get(Class<T> classOfT) {
+        return (TypeAdapter<T>) DECODERS.get(classOfT);
+    }
+
+    /**
+     * @return зарегистрированный декодер для типа <code>classOfT</code>,
+     * либо адаптер из {@link YamoneyGson}, если декодер не зарегистрирован
+     */
+    public static <T> TypeAdapter<T> forClass(Class<T> classOfT) {
+        TypeAdapter<T> decoder = get(classOfT);
+        return decoder == null ? YamoneyGson.get().getAdapter(classOfT) : decoder;
+    }
+
+    /**
+     * Разбирает json-документ. Ошибки разбора сообщаются так же, как в {@link com.google.gson.Gson#fromJson}:
+     * {@link JsonSyntaxException} для некорректного документа, null для пустого.
+     */
+    public static <T> T decode(Reader json, Class<T> classOfT) {
+        return decode(json, forClass(classOfT));
+    }
+
+    /**
+     * Разбирает json-документ указанным декодером.
+     *
+     * @see #decode(Reader, Class)
+     */
+    public static <T> T decode(Reader json, TypeAdapter<T> decoder) {
+        JsonReader reader = new JsonReader(json);
+        reader.setLenient(true);
+        boolean isEmpty = true;
+        try {
+            reader.peek();
+            isEmpty = false;
+            T result = decoder.read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonIOException("JSON document was not fully consumed.");
+            }
+            return result;
+        } catch (EOFException e) {
+            if (isEmpty) {
+                return null;
+            }
+            throw new JsonSyntaxException(e);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
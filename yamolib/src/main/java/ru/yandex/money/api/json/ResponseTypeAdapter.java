@@ -0,0 +1,167 @@
+package ru.yandex.money.api.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Основа потоковых адаптеров для response-объектов. Поля объекта заполняются прямо
+ * из {@link JsonReader}, без рефлексии. Неизвестные поля пропускаются.</p>
+ * <p>Методы <code>nextXxx</code> разбирают значения так же, как стандартные адаптеры Gson:
+ * строки допускаются на месте чисел и булевых значений и наоборот.</p>
+ * <p>Адаптеры предназначены только для чтения ответов сервера.</p>
+ */
+public abstract class ResponseTypeAdapter<T> extends TypeAdapter<T> {
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        T result = create();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (!readField(result, name, in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return result;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        throw new UnsupportedOperationException("response objects are read only");
+    }
+
+    /**
+     * @return новый пустой объект
+     */
+    protected abstract T create();
+
+    /**
+     * Читает значение поля <code>name</code> в объект <code>target</code>.
+     *
+     * @return false, если поле неизвестно и его значение не было прочитано
+     */
+    protected abstract boolean readField(T target, String name, JsonReader in) throws IOException;
+
+    protected static String nextString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    protected static Boolean nextBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    protected static Integer nextInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    protected static Long nextLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    protected static BigDecimal nextBigDecimal(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return new BigDecimal(in.nextString());
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    protected static Date nextDate(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return Rfc3339DateAdapter.parse(in.nextString());
+    }
+
+    /**
+     * @return элемент перечисления с именем, равным значению поля, либо null для неизвестного значения
+     */
+    protected static <E extends Enum<E>> E nextEnum(JsonReader in, EnumLookup<E> lookup) throws IOException {
+        String value = nextString(in);
+        return value == null ? null : lookup.get(value);
+    }
+
+    protected static Map<String, String> nextStringMap(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        in.beginObject();
+        while (in.hasNext()) {
+            result.put(in.nextName(), nextString(in));
+        }
+        in.endObject();
+        return result;
+    }
+
+    /**
+     * Поиск элемента перечисления по имени без исключений для неизвестных значений
+     */
+    protected static final class EnumLookup<E extends Enum<E>> {
+
+        private final Map<String, E> byName = new HashMap<String, E>();
+
+        public EnumLookup(Class<E> enumClass) {
+            for (E constant : enumClass.getEnumConstants()) {
+                byName.put(constant.name(), constant);
+            }
+        }
+
+        public E get(String name) {
+            return byName.get(name);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.money.api.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * Даты в ответах API передаются в формате RFC 3339: <code>2013-10-11T23:00:00.000+04:00</code>.
+ * Стандартный адаптер Gson такой формат не разбирает.
+ */
+public class Rfc3339DateAdapter extends TypeAdapter<Date> {
+
+    @Override
+    public Date read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return parse(in.nextString());
+    }
+
+    @Override
+    public void write(JsonWriter out, Date value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(format(value));
+    }
+
+    /**
+     * @param value дата в формате RFC 3339, например <code>2013-10-11T23:00:00.000+04:00</code>
+     */
+    public static Date parse(String value) {
+        try {
+            return Date.from(OffsetDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new JsonSyntaxException(value, e);
+        }
+    }
+
+    public static String format(Date value) {
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(value.getTime()), ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.money.api.json;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+
+import java.util.Map;
+
+/**
+ * <p>Общий экземпляр {@link Gson} для разбора ответов API.</p>
+ * <p>{@link Gson} потокобезопасен, поэтому создается один раз: кэш адаптеров типов
+ * не перестраивается на каждый ответ. Для всех response-классов зарегистрированы
+ * потоковые адаптеры из {@link JsonDecoders}, которые заполняют поля без рефлексии.</p>
+ */
+public final class YamoneyGson {
+
+    private static final Gson GSON = builder().create();
+
+    private YamoneyGson() {
+    }
+
+    public static Gson get() {
+        return GSON;
+    }
+
+    /**
+     * @return билдер с настройками, общими для всех ответов API.
+     * Можно использовать, чтобы зарегистрировать собственные адаптеры поверх стандартных
+     */
+    public static GsonBuilder builder() {
+        GsonBuilder builder = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES);
+        for (Map.Entry<Class<?>, TypeAdapter<?>> entry : JsonDecoders.getDecoders().entrySet()) {
+            builder.registerTypeAdapter(entry.getKey(), entry.getValue());
+        }
+        return builder;
+    }
+}
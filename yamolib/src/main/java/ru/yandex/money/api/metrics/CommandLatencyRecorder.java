@@ -0,0 +1,98 @@
+package ru.yandex.money.api.metrics;
+
+import com.google.common.collect.ImmutableSortedMap;
+import ru.yandex.money.api.ApiMetricsListener;
+import ru.yandex.money.api.CommandMetrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Собирает по каждой команде API количество вызовов, ошибок и гистограмму времени ответа,
+ * из которой можно получить p50/p99/p999 ({@link LatencySnapshot}).</p>
+ * <p>Запись измерения не блокирует потоки и не выделяет память (кроме первого вызова команды),
+ * поэтому получатель можно подключать к нагруженному транспорту:</p>
+ * <pre>
+ * CommandLatencyRecorder recorder = new CommandLatencyRecorder();
+ * client.setMetricsListener(recorder);
+ * ...
+ * LatencySnapshot snapshot = recorder.snapshot("process-payment");
+ * long p99 = snapshot.getP99(TimeUnit.MILLISECONDS);
+ * </pre>
+ */
+public class CommandLatencyRecorder implements ApiMetricsListener {
+
+    private final ConcurrentMap<String, CommandStats> commands = new ConcurrentHashMap<String, CommandStats>();
+
+    @Override
+    public void onCommand(CommandMetrics metrics) {
+        CommandStats stats = commands.get(metrics.getCommandName());
+        if (stats == null) {
+            CommandStats created = new CommandStats();
+            stats = commands.putIfAbsent(metrics.getCommandName(), created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        stats.record(metrics);
+    }
+
+    /**
+     * @return измерения команды или null, если команда не вызывалась
+     */
+    public LatencySnapshot snapshot(String commandName) {
+        CommandStats stats = commands.get(commandName);
+        return stats == null ? null : stats.snapshot(commandName);
+    }
+
+    /**
+     * @return измерения всех вызывавшихся команд, по имени команды
+     */
+    public SortedMap<String, LatencySnapshot> snapshots() {
+        SortedMap<String, LatencySnapshot> result = new TreeMap<String, LatencySnapshot>();
+        for (Map.Entry<String, CommandStats> entry : commands.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return ImmutableSortedMap.copyOfSorted(result);
+    }
+
+    /**
+     * Сбрасывает все измерения, например в начале очередного интервала наблюдения
+     */
+    public void reset() {
+        commands.clear();
+    }
+
+    private static final class CommandStats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+
+        void record(CommandMetrics metrics) {
+            count.incrementAndGet();
+            if (metrics.isError()) {
+                errors.incrementAndGet();
+            }
+            if (!metrics.isSent()) {
+                rejected.incrementAndGet();
+                return;
+            }
+            histogram.record(metrics.getLatency(TimeUnit.NANOSECONDS));
+            if (metrics.getBytesRead() > 0) {
+                bytesRead.addAndGet(metrics.getBytesRead());
+            }
+        }
+
+        LatencySnapshot snapshot(String commandName) {
+            return new LatencySnapshot(commandName, count.get(), errors.get(), rejected.get(), bytesRead.get(),
+                    histogram);
+        }
+    }
+}
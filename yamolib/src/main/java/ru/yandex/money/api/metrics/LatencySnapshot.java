@@ -0,0 +1,124 @@
+package ru.yandex.money.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Снимок измерений одной команды API на момент вызова {@link CommandLatencyRecorder#snapshot(String)}.</p>
+ * <p>Время ответа учитывается для всех отправленных запросов, в том числе завершившихся ошибкой.
+ * Запросы, которые не были отправлены (их не пропустили ограничение частоты или предохранитель),
+ * учитываются только в {@link #getRejectedCount()}.</p>
+ */
+public final class LatencySnapshot {
+
+    private final String commandName;
+    private final long count;
+    private final long errorCount;
+    private final long rejectedCount;
+    private final long bytesRead;
+    private final long[] counts;
+    private final long samples;
+    private final long max;
+    private final long sum;
+
+    LatencySnapshot(String commandName, long count, long errorCount, long rejectedCount, long bytesRead,
+                    LatencyHistogram histogram) {
+        this.commandName = commandName;
+        this.count = count;
+        this.errorCount = errorCount;
+        this.rejectedCount = rejectedCount;
+        this.bytesRead = bytesRead;
+        this.counts = histogram.counts();
+        long total = 0;
+        for (long bucket : counts) {
+            total += bucket;
+        }
+        this.samples = total;
+        this.max = histogram.getMax();
+        this.sum = histogram.getSum();
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * @return количество вызовов команды
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return количество вызовов, завершившихся исключением (включая неотправленные запросы)
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return количество вызовов, запрос которых не отправлялся
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return сколько всего байт ответов прочитано
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @param percentile процентиль в (0, 100]
+     * @return время, за которое выполнены <code>percentile</code>% отправленных запросов (0, если запросов не было).
+     * Погрешность - меньше 1% в большую сторону
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile should be in (0, 100]: " + percentile);
+        }
+        if (samples == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * samples));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return unit.convert(Math.min(LatencyHistogram.highestValue(i), max), TimeUnit.NANOSECONDS);
+            }
+        }
+        return unit.convert(max, TimeUnit.NANOSECONDS);
+    }
+
+    public long getP50(TimeUnit unit) {
+        return getPercentile(50, unit);
+    }
+
+    public long getP99(TimeUnit unit) {
+        return getPercentile(99, unit);
+    }
+
+    public long getP999(TimeUnit unit) {
+        return getPercentile(99.9, unit);
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMean(TimeUnit unit) {
+        return samples == 0 ? 0 : unit.convert(sum / samples, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return commandName + ": count=" + count + ", errors=" + errorCount + ", rejected=" + rejectedCount
+                + ", p50=" + getP50(TimeUnit.MICROSECONDS) + "us"
+                + ", p99=" + getP99(TimeUnit.MICROSECONDS) + "us"
+                + ", p999=" + getP999(TimeUnit.MICROSECONDS) + "us"
+                + ", max=" + getMax(TimeUnit.MICROSECONDS) + "us"
+                + ", bytesRead=" + bytesRead;
+    }
+}
@@ -1,5 +1,9 @@
 package ru.yandex.money.api.response;
 
+import com.google.gson.stream.JsonReader;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 
@@ -62,6 +66,19 @@ public class AccountInfoResponse implements Serializable {
         return account_type;
     }
 
+    /**
+     * @return копия ответа с новым остатком на счете
+     */
+    public AccountInfoResponse withBalance(BigDecimal balance) {
+        AccountInfoResponse result = new AccountInfoResponse();
+        result.account = account;
+        result.balance = balance;
+        result.currency = currency;
+        result.identified = identified;
+        result.account_type = account_type;
+        return result;
+    }
+
     @Override
     public String toString() {
         return "AccountInfoResponse{" +
@@ -72,4 +89,38 @@ public class AccountInfoResponse implements Serializable {
                 ", account_type='" + account_type + '\'' +
                 '}';
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link AccountInfoResponse}
+     */
+    public static class JsonAdapter extends ResponseTypeAdapter<AccountInfoResponse> {
+
+        @Override
+        protected AccountInfoResponse create() {
+            return new AccountInfoResponse();
+        }
+
+        @Override
+        protected boolean readField(AccountInfoResponse target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "account":
+                    target.account = nextString(in);
+                    return true;
+                case "balance":
+                    target.balance = nextBigDecimal(in);
+                    return true;
+                case "currency":
+                    target.currency = nextString(in);
+                    return true;
+                case "identified":
+                    target.identified = nextBoolean(in);
+                    return true;
+                case "account_type":
+                    target.account_type = nextString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package ru.yandex.money.api.response;
 
+import com.google.gson.stream.JsonReader;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Date;
@@ -79,4 +83,38 @@ public class FundraisingStatsResponse implements Serializable {
                 ", last_ts=" + last_ts +
                 '}';
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link FundraisingStatsResponse}
+     */
+    public static class JsonAdapter extends ResponseTypeAdapter<FundraisingStatsResponse> {
+
+        @Override
+        protected FundraisingStatsResponse create() {
+            return new FundraisingStatsResponse();
+        }
+
+        @Override
+        protected boolean readField(FundraisingStatsResponse target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "error":
+                    target.error = nextString(in);
+                    return true;
+                case "sum":
+                    target.sum = nextBigDecimal(in);
+                    return true;
+                case "count":
+                    target.count = nextLong(in);
+                    return true;
+                case "first_ts":
+                    target.first_ts = nextDate(in);
+                    return true;
+                case "last_ts":
+                    target.last_ts = nextDate(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
 }
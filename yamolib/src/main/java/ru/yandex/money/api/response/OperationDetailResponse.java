@@ -1,7 +1,10 @@
 package ru.yandex.money.api.response;
 
+import com.google.gson.stream.JsonReader;
 import ru.yandex.money.api.response.util.Operation;
 
+import java.io.IOException;
+
 /**
  * <p>Класс для возврата результата метода operationDetail. Содержит
  * подробную информацию о конкретной операции из списка.</p>
@@ -47,4 +50,24 @@ public class OperationDetailResponse extends Operation {
         return "OperationDetailResponse{" +
                 "error='" + error + "\'}";
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link OperationDetailResponse}
+     */
+    public static class JsonAdapter extends Operation.AbstractJsonAdapter<OperationDetailResponse> {
+
+        @Override
+        protected OperationDetailResponse create() {
+            return new OperationDetailResponse();
+        }
+
+        @Override
+        protected boolean readField(OperationDetailResponse target, String name, JsonReader in) throws IOException {
+            if ("error".equals(name)) {
+                target.error = nextString(in);
+                return true;
+            }
+            return super.readField(target, name, in);
+        }
+    }
 }
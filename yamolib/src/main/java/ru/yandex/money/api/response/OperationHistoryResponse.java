@@ -1,10 +1,17 @@
 package ru.yandex.money.api.response;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
 import ru.yandex.money.api.response.util.Operation;
 import ru.yandex.money.api.response.util.OperationHistoryError;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <p>Класс для возврата результата метода operationHistory.
@@ -85,4 +92,74 @@ public class OperationHistoryResponse implements Serializable {
                 ", operations count=" + (operations == null ? "?" : operations.size()) +
                 '}';
     }
+
+    /**
+     * <p>Потоковый адаптер Gson для {@link OperationHistoryResponse}.</p>
+     * <p>Если задан обработчик операций, то каждая операция передается ему сразу после разбора
+     * и не сохраняется в ответе: {@link #getOperations()} вернет пустой список.
+     * Так в памяти одновременно находится только одна операция страницы.</p>
+     */
+    public static class JsonAdapter extends ResponseTypeAdapter<OperationHistoryResponse> {
+
+        private static final EnumLookup<OperationHistoryError> ERRORS =
+                new EnumLookup<OperationHistoryError>(OperationHistoryError.class);
+
+        private final Operation.JsonAdapter operationAdapter = new Operation.JsonAdapter();
+        private final Consumer<? super Operation> consumer;
+
+        public JsonAdapter() {
+            this(null);
+        }
+
+        /**
+         * @param consumer обработчик операций, либо null, чтобы собирать операции в список
+         */
+        public JsonAdapter(Consumer<? super Operation> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected OperationHistoryResponse create() {
+            return new OperationHistoryResponse();
+        }
+
+        @Override
+        protected boolean readField(OperationHistoryResponse target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "error":
+                    target.error = nextEnum(in, ERRORS);
+                    return true;
+                case "next_record":
+                    target.nextRecord = nextInteger(in);
+                    return true;
+                case "operations":
+                    target.operations = readOperations(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private List<Operation> readOperations(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            if (consumer != null) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    consumer.accept(operationAdapter.read(in));
+                }
+                in.endArray();
+                return Collections.emptyList();
+            }
+            List<Operation> operations = new ArrayList<Operation>();
+            in.beginArray();
+            while (in.hasNext()) {
+                operations.add(operationAdapter.read(in));
+            }
+            in.endArray();
+            return operations;
+        }
+    }
 }
@@ -1,8 +1,11 @@
 package ru.yandex.money.api.response;
 
+import com.google.gson.stream.JsonReader;
 import ru.yandex.money.api.enums.Status;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
 import ru.yandex.money.api.response.util.ProcessPaymentError;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 
@@ -27,6 +30,7 @@ public class ProcessPaymentResponse implements Serializable {
     private BigDecimal creditAmount;
     private String invoiceId;
     private Boolean testPayment;
+    private Long nextRetry;
 
     private ProcessPaymentResponse() {
     }
@@ -136,6 +140,14 @@ public class ProcessPaymentResponse implements Serializable {
         return invoiceId;
     }
 
+    /**
+     * @return рекомендуемое время в миллисекундах, через которое следует повторить запрос
+     * с теми же параметрами. Присутствует при статусе in_progress
+     */
+    public Long getNextRetry() {
+        return nextRetry;
+    }
+
     @Override
     public String toString() {
         return "ProcessPaymentResponse{" +
@@ -149,6 +161,61 @@ public class ProcessPaymentResponse implements Serializable {
                 ", creditAmount=" + creditAmount +
                 ", invoice_id=" + invoiceId +
                 ", test_payment=" + testPayment +
+                ", next_retry=" + nextRetry +
                 '}';
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link ProcessPaymentResponse}
+     */
+    public static class JsonAdapter extends ResponseTypeAdapter<ProcessPaymentResponse> {
+
+        private static final EnumLookup<Status> STATUSES = new EnumLookup<Status>(Status.class);
+
+        @Override
+        protected ProcessPaymentResponse create() {
+            return new ProcessPaymentResponse();
+        }
+
+        @Override
+        protected boolean readField(ProcessPaymentResponse target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "status":
+                    target.status = nextEnum(in, STATUSES);
+                    return true;
+                case "error":
+                    target.error = nextString(in);
+                    return true;
+                case "error_description":
+                    target.errorDescription = nextString(in);
+                    return true;
+                case "payment_id":
+                    target.paymentId = nextString(in);
+                    return true;
+                case "balance":
+                    target.balance = nextBigDecimal(in);
+                    return true;
+                case "payer":
+                    target.payer = nextString(in);
+                    return true;
+                case "payee":
+                    target.payee = nextString(in);
+                    return true;
+                case "credit_amount":
+                    target.creditAmount = nextBigDecimal(in);
+                    return true;
+                case "invoice_id":
+                    target.invoiceId = nextString(in);
+                    return true;
+                case "test_payment":
+                    target.testPayment = nextBoolean(in);
+                    return true;
+                case "next_retry":
+                    target.nextRetry = nextLong(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
 }
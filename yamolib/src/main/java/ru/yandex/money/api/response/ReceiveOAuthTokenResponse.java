@@ -1,5 +1,9 @@
 package ru.yandex.money.api.response;
 
+import com.google.gson.stream.JsonReader;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
+
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -68,4 +72,29 @@ public class ReceiveOAuthTokenResponse implements Serializable {
         }
         return accessToken.substring(0, 4) + "..." + accessToken.substring(accessToken.length() - 5);
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link ReceiveOAuthTokenResponse}
+     */
+    public static class JsonAdapter extends ResponseTypeAdapter<ReceiveOAuthTokenResponse> {
+
+        @Override
+        protected ReceiveOAuthTokenResponse create() {
+            return new ReceiveOAuthTokenResponse();
+        }
+
+        @Override
+        protected boolean readField(ReceiveOAuthTokenResponse target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "error":
+                    target.error = nextString(in);
+                    return true;
+                case "access_token":
+                    target.accessToken = nextString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
 }
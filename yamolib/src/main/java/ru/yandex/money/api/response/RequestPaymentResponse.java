@@ -1,10 +1,13 @@
 package ru.yandex.money.api.response;
 
+import com.google.gson.stream.JsonReader;
 import ru.yandex.money.api.enums.MoneySource;
 import ru.yandex.money.api.enums.Status;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
 import ru.yandex.money.api.response.util.RequestPaymentError;
 import ru.yandex.money.api.response.util.money.PaymentMethods;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Map;
@@ -186,4 +189,63 @@ public class RequestPaymentResponse implements Serializable {
                 ", recipient_account_type='" + recipient_account_type + '\'' +
                 '}';
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link RequestPaymentResponse}
+     */
+    public static class JsonAdapter extends ResponseTypeAdapter<RequestPaymentResponse> {
+
+        private static final EnumLookup<Status> STATUSES = new EnumLookup<Status>(Status.class);
+
+        private final PaymentMethods.JsonAdapter paymentMethodsAdapter = new PaymentMethods.JsonAdapter();
+
+        @Override
+        protected RequestPaymentResponse create() {
+            return new RequestPaymentResponse();
+        }
+
+        @Override
+        protected boolean readField(RequestPaymentResponse target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "status":
+                    target.status = nextEnum(in, STATUSES);
+                    return true;
+                case "error":
+                    target.error = nextString(in);
+                    return true;
+                case "error_description":
+                    target.error_description = nextString(in);
+                    return true;
+                case "money_source":
+                    target.moneySource = paymentMethodsAdapter.read(in);
+                    return true;
+                case "request_id":
+                    target.requestId = nextString(in);
+                    return true;
+                case "contract":
+                    target.contract = nextString(in);
+                    return true;
+                case "balance":
+                    target.balance = nextBigDecimal(in);
+                    return true;
+                case "recipient_identified":
+                    target.recipient_identified = nextBoolean(in);
+                    return true;
+                case "recipient_account_type":
+                    target.recipient_account_type = nextString(in);
+                    return true;
+                case "test_payment":
+                    target.test_payment = nextBoolean(in);
+                    return true;
+                case "contract_details":
+                    target.contract_details = nextStringMap(in);
+                    return true;
+                case "ext_action_uri":
+                    target.ext_action_uri = nextString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
 }
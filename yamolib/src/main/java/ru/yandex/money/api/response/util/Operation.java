@@ -1,8 +1,11 @@
 package ru.yandex.money.api.response.util;
 
+import com.google.gson.stream.JsonReader;
 import ru.yandex.money.api.enums.MoneyDirection;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
 import ru.yandex.money.api.rights.IdentifierType;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Date;
@@ -59,6 +62,29 @@ public class Operation implements Serializable {
     protected Operation() {
     }
 
+    /**
+     * Восстановление операции из сохраненных значений полей
+     */
+    protected Operation(String operationId, String patternId, Status status, MoneyDirection direction,
+                        BigDecimal amount, Date datetime, String title, String sender, String recipient,
+                        IdentifierType recipientType, String message, Boolean codepro, String details,
+                        String label) {
+        this.operationId = operationId;
+        this.patternId = patternId;
+        this.status = status;
+        this.direction = direction;
+        this.amount = amount;
+        this.datetime = datetime;
+        this.title = title;
+        this.sender = sender;
+        this.recipient = recipient;
+        this.recipientType = recipientType;
+        this.message = message;
+        this.codepro = codepro;
+        this.details = details;
+        this.label = label;
+    }
+
     /**
      * @return идентификатор операции
      */
@@ -201,4 +227,75 @@ public class Operation implements Serializable {
                 ", label='" + label + '\'' +
                 '}';
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link Operation}
+     */
+    public static class JsonAdapter extends AbstractJsonAdapter<Operation> {
+
+        @Override
+        protected Operation create() {
+            return new Operation();
+        }
+    }
+
+    /**
+     * Чтение полей операции. Общая часть адаптеров операции и ее наследников.
+     */
+    protected abstract static class AbstractJsonAdapter<T extends Operation> extends ResponseTypeAdapter<T> {
+
+        private static final EnumLookup<Status> STATUSES = new EnumLookup<Status>(Status.class);
+        private static final EnumLookup<MoneyDirection> DIRECTIONS = new EnumLookup<MoneyDirection>(MoneyDirection.class);
+        private static final EnumLookup<IdentifierType> IDENTIFIER_TYPES = new EnumLookup<IdentifierType>(IdentifierType.class);
+
+        @Override
+        protected boolean readField(T target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "operation_id":
+                    target.operationId = nextString(in);
+                    return true;
+                case "pattern_id":
+                    target.patternId = nextString(in);
+                    return true;
+                case "status":
+                    target.status = nextEnum(in, STATUSES);
+                    return true;
+                case "direction":
+                    target.direction = nextEnum(in, DIRECTIONS);
+                    return true;
+                case "amount":
+                    target.amount = nextBigDecimal(in);
+                    return true;
+                case "datetime":
+                    target.datetime = nextDate(in);
+                    return true;
+                case "title":
+                    target.title = nextString(in);
+                    return true;
+                case "sender":
+                    target.sender = nextString(in);
+                    return true;
+                case "recipient":
+                    target.recipient = nextString(in);
+                    return true;
+                case "recipient_type":
+                    target.recipientType = nextEnum(in, IDENTIFIER_TYPES);
+                    return true;
+                case "message":
+                    target.message = nextString(in);
+                    return true;
+                case "codepro":
+                    target.codepro = nextBoolean(in);
+                    return true;
+                case "details":
+                    target.details = nextString(in);
+                    return true;
+                case "label":
+                    target.label = nextString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
 }
@@ -1,5 +1,10 @@
 package ru.yandex.money.api.response.util.money;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import ru.yandex.money.api.json.ResponseTypeAdapter;
+
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -113,4 +118,89 @@ public class PaymentMethods implements Serializable {
             return pan_fragment == null ? null : pan_fragment.replaceAll("^\\d+", "");
         }
     }
+
+    /**
+     * Потоковый адаптер Gson для {@link PaymentMethods}
+     */
+    public static class JsonAdapter extends ResponseTypeAdapter<PaymentMethods> {
+
+        @Override
+        protected PaymentMethods create() {
+            return new PaymentMethods();
+        }
+
+        @Override
+        protected boolean readField(PaymentMethods target, String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "wallet":
+                    target.wallet = readElement(target, in);
+                    return true;
+                case "card":
+                    target.card = readCardElement(target, in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private static Element readElement(PaymentMethods methods, JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Element element = methods.new Element();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!readElementField(element, in.nextName(), in)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return element;
+        }
+
+        private static CardElement readCardElement(PaymentMethods methods, JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CardElement card = methods.new CardElement();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (readElementField(card, name, in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "csc_required":
+                        Boolean cscRequired = nextBoolean(in);
+                        if (cscRequired != null) {
+                            card.csc_required = cscRequired;
+                        }
+                        break;
+                    case "pan_fragment":
+                        card.pan_fragment = nextString(in);
+                        break;
+                    case "type":
+                        card.type = nextString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return card;
+        }
+
+        private static boolean readElementField(Element element, String name, JsonReader in) throws IOException {
+            if (!"allowed".equals(name)) {
+                return false;
+            }
+            Boolean allowed = nextBoolean(in);
+            if (allowed != null) {
+                element.allowed = allowed;
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package ru.yandex.money.api.retry;
+
+/**
+ * <p>Бюджет повторов: не дает повторам умножить нагрузку на сервер во время сбоя.</p>
+ * <p>Каждый исходный запрос пополняет бюджет на <code>ratio</code>, каждый повтор забирает из него единицу.
+ * В бюджете накапливается не больше <code>reserve</code> повторов. Так в среднем повторов не больше
+ * <code>ratio</code> от числа запросов, а после затишья допускается всплеск до <code>reserve</code> повторов.</p>
+ * <p>Один бюджет можно использовать в нескольких {@link RetryingApiCommandsFacade}.</p>
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double reserve;
+    private double balance;
+
+    /**
+     * @param ratio   допустимая доля повторов от числа запросов, например 0.1
+     * @param reserve максимальное количество накопленных повторов
+     */
+    public RetryBudget(double ratio, int reserve) {
+        if (!(ratio >= 0)) {
+            throw new IllegalArgumentException("ratio should not be negative: " + ratio);
+        }
+        if (reserve < 1) {
+            throw new IllegalArgumentException("reserve should be positive: " + reserve);
+        }
+        this.ratio = ratio;
+        this.reserve = reserve;
+        this.balance = reserve;
+    }
+
+    /**
+     * Учитывает исходный запрос
+     */
+    synchronized void onRequest() {
+        balance = Math.min(reserve, balance + ratio);
+    }
+
+    /**
+     * @return true, если повтор разрешен. Разрешение списывается из бюджета
+     */
+    synchronized boolean tryRetry() {
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    synchronized double getBalance() {
+        return balance;
+    }
+}
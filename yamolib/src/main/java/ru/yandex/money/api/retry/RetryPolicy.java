@@ -0,0 +1,114 @@
+package ru.yandex.money.api.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>Параметры повторов. Объект неизменяемый, методы <code>withXxx</code> возвращают измененную копию.</p>
+ * <p>Задержка перед n-м повтором равна <code>initialBackoff * 2^(n-1)</code>, но не больше
+ * <code>maxBackoff</code>, и уменьшается на случайную долю до <code>jitter</code>, чтобы повторы
+ * многих клиентов не приходили на сервер одновременно.</p>
+ */
+public class RetryPolicy {
+
+    private static final RetryPolicy DEFAULTS = new RetryPolicy(3, 200, 5000, 0.5, 10);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double jitter;
+    private final int inProgressAttempts;
+
+    private RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, double jitter,
+                        int inProgressAttempts) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.jitter = jitter;
+        this.inProgressAttempts = inProgressAttempts;
+    }
+
+    /**
+     * 3 попытки, задержка от 200 мс до 5 с с разбросом 50%, до 10 запросов платежа в статусе in_progress
+     */
+    public static RetryPolicy defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param maxAttempts максимальное количество попыток при ошибках связи, включая первую
+     */
+    public RetryPolicy withMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts should be positive: " + maxAttempts);
+        }
+        return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis, jitter, inProgressAttempts);
+    }
+
+    /**
+     * @param initialBackoffMillis задержка перед первым повтором, в миллисекундах
+     * @param maxBackoffMillis     максимальная задержка, в миллисекундах
+     */
+    public RetryPolicy withBackoff(long initialBackoffMillis, long maxBackoffMillis) {
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("invalid backoff: " + initialBackoffMillis + ", " + maxBackoffMillis);
+        }
+        return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis, jitter, inProgressAttempts);
+    }
+
+    /**
+     * @param jitter максимальная доля задержки, на которую она случайно уменьшается, от 0 до 1
+     */
+    public RetryPolicy withJitter(double jitter) {
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("jitter should be in [0, 1]: " + jitter);
+        }
+        return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis, jitter, inProgressAttempts);
+    }
+
+    /**
+     * @param inProgressAttempts максимальное количество запросов process-payment, пока платеж
+     *                           находится в статусе in_progress
+     */
+    public RetryPolicy withInProgressAttempts(int inProgressAttempts) {
+        if (inProgressAttempts < 1) {
+            throw new IllegalArgumentException("inProgressAttempts should be positive: " + inProgressAttempts);
+        }
+        return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis, jitter, inProgressAttempts);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public int getInProgressAttempts() {
+        return inProgressAttempts;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * @param retry номер повтора, начиная с 1
+     * @return задержка перед повтором, в миллисекундах
+     */
+    long backoffMillis(int retry) {
+        long backoff = initialBackoffMillis;
+        for (int i = 1; i < retry && backoff < maxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxBackoffMillis);
+        return backoff - (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoffMillis=" + initialBackoffMillis +
+                ", maxBackoffMillis=" + maxBackoffMillis +
+                ", jitter=" + jitter +
+                ", inProgressAttempts=" + inProgressAttempts +
+                '}';
+    }
+}
@@ -0,0 +1,221 @@
+package ru.yandex.money.api.retry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.CircuitBreakerOpenException;
+import ru.yandex.money.api.ForwardingApiCommandsFacade;
+import ru.yandex.money.api.InsufficientScopeException;
+import ru.yandex.money.api.InvalidTokenException;
+import ru.yandex.money.api.RateLimitExceededException;
+import ru.yandex.money.api.enums.OperationHistoryType;
+import ru.yandex.money.api.enums.Status;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.FundraisingStatsResponse;
+import ru.yandex.money.api.response.OperationDetailResponse;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+
+/**
+ * <p>Повторяет запросы при ошибках связи с сервером.</p>
+ * <p>Повторяются только запросы, повтор которых безопасен:</p>
+ * <ul>
+ * <li>команды, которые ничего не меняют: account-info, operation-history, operation-details, fundraising-stats;</li>
+ * <li>process-payment: API разрешает повторять его с тем же request_id, платеж при этом не проводится повторно.
+ * Пока платеж в статусе in_progress (или статус неизвестен), запрос повторяется через рекомендованное
+ * сервером время {@link ProcessPaymentResponse#getNextRetry()}.</li>
+ * </ul>
+ * <p>request-payment и revoke не повторяются. Не повторяются и ошибки, при которых запрос не был отправлен
+ * ({@link CircuitBreakerOpenException}, {@link RateLimitExceededException}), и прерывание потока.</p>
+ * <p>Повторы после ошибок ограничены бюджетом {@link RetryBudget}. Запросы платежа в статусе in_progress
+ * бюджет не расходуют: их частоту задает сервер.</p>
+ */
+public class RetryingApiCommandsFacade extends ForwardingApiCommandsFacade {
+
+    private static final Log LOGGER = LogFactory.getLog(RetryingApiCommandsFacade.class);
+
+    private final ApiCommandsFacade delegate;
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+
+    public RetryingApiCommandsFacade(ApiCommandsFacade delegate, RetryPolicy policy, RetryBudget budget) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.budget = budget;
+    }
+
+    @Override
+    protected ApiCommandsFacade delegate() {
+        return delegate;
+    }
+
+    @Override
+    public AccountInfoResponse accountInfo(final String accessToken)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return retry(new Attempt<AccountInfoResponse>() {
+            @Override
+            public AccountInfoResponse call() throws IOException, InvalidTokenException, InsufficientScopeException {
+                return delegate.accountInfo(accessToken);
+            }
+        });
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return operationHistory(accessToken, null, null, null, null, null, null, null);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return operationHistory(accessToken, startRecord, null, null, null, null, null, null);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord, Integer records)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return operationHistory(accessToken, startRecord, records, null, null, null, null, null);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(String accessToken, Integer startRecord, Integer records,
+                                                     OperationHistoryType operationsType)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return operationHistory(accessToken, startRecord, records, operationsType, null, null, null, null);
+    }
+
+    @Override
+    public OperationHistoryResponse operationHistory(final String accessToken, final Integer startRecord,
+                                                     final Integer records, final OperationHistoryType operationsType,
+                                                     final Boolean fetchDetails, final Date from, final Date till,
+                                                     final String label)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return retry(new Attempt<OperationHistoryResponse>() {
+            @Override
+            public OperationHistoryResponse call() throws IOException, InvalidTokenException, InsufficientScopeException {
+                return delegate.operationHistory(accessToken, startRecord, records, operationsType, fetchDetails,
+                        from, till, label);
+            }
+        });
+    }
+
+    @Override
+    public OperationDetailResponse operationDetail(final String accessToken, final String operationId)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return retry(new Attempt<OperationDetailResponse>() {
+            @Override
+            public OperationDetailResponse call() throws IOException, InvalidTokenException, InsufficientScopeException {
+                return delegate.operationDetail(accessToken, operationId);
+            }
+        });
+    }
+
+    @Override
+    public FundraisingStatsResponse fundraisingStats(final String accessToken, final String label)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        return retry(new Attempt<FundraisingStatsResponse>() {
+            @Override
+            public FundraisingStatsResponse call() throws IOException, InvalidTokenException, InsufficientScopeException {
+                return delegate.fundraisingStats(accessToken, label);
+            }
+        });
+    }
+
+    @Override
+    public ProcessPaymentResponse processPaymentByCard(final String accessToken, final String requestId,
+                                                      final String csc)
+            throws IOException, InsufficientScopeException, InvalidTokenException {
+        return processPayment(new Attempt<ProcessPaymentResponse>() {
+            @Override
+            public ProcessPaymentResponse call() throws IOException, InvalidTokenException, InsufficientScopeException {
+                return delegate.processPaymentByCard(accessToken, requestId, csc);
+            }
+        });
+    }
+
+    @Override
+    public ProcessPaymentResponse processPaymentByWallet(final String accessToken, final String requestId)
+            throws IOException, InsufficientScopeException, InvalidTokenException {
+        return processPayment(new Attempt<ProcessPaymentResponse>() {
+            @Override
+            public ProcessPaymentResponse call() throws IOException, InvalidTokenException, InsufficientScopeException {
+                return delegate.processPaymentByWallet(accessToken, requestId);
+            }
+        });
+    }
+
+    private <T> T retry(Attempt<T> attempt) throws IOException, InvalidTokenException, InsufficientScopeException {
+        budget.onRequest();
+        for (int retry = 1; ; retry++) {
+            try {
+                return attempt.call();
+            } catch (IOException e) {
+                if (!shouldRetry(e, retry)) {
+                    throw e;
+                }
+                LOGGER.info("retrying after " + e + ", retry " + retry);
+                sleep(policy.backoffMillis(retry));
+            }
+        }
+    }
+
+    /**
+     * Повторяет process-payment, пока статус платежа не станет конечным (success или refused)
+     */
+    private ProcessPaymentResponse processPayment(Attempt<ProcessPaymentResponse> attempt)
+            throws IOException, InvalidTokenException, InsufficientScopeException {
+        budget.onRequest();
+        int retry = 1;
+        int inProgress = 1;
+        while (true) {
+            ProcessPaymentResponse response;
+            try {
+                response = attempt.call();
+            } catch (IOException e) {
+                if (!shouldRetry(e, retry)) {
+                    throw e;
+                }
+                LOGGER.info("retrying process-payment after " + e + ", retry " + retry);
+                sleep(policy.backoffMillis(retry++));
+                continue;
+            }
+            if (response.getStatus() == Status.success || response.getStatus() == Status.refused
+                    || inProgress++ >= policy.getInProgressAttempts()) {
+                return response;
+            }
+            Long nextRetry = response.getNextRetry();
+            sleep(nextRetry == null ? policy.backoffMillis(inProgress - 1) : Math.max(0, nextRetry));
+        }
+    }
+
+    private boolean shouldRetry(IOException e, int retry) {
+        if (e instanceof CircuitBreakerOpenException || e instanceof RateLimitExceededException) {
+            return false;
+        }
+        if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        return retry < policy.getMaxAttempts() && budget.tryRetry();
+    }
+
+    /**
+     * Ожидание перед повтором
+     */
+    void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for retry");
+        }
+    }
+
+    private interface Attempt<T> {
+        T call() throws IOException, InvalidTokenException, InsufficientScopeException;
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yandex.money.api.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>Хэш-таблица с открытой адресацией в отображаемом в память файле: 64-битный хэш -> номер элемента
+ * индекса {@link OperationStore}. Ячейка таблицы - хэш и номер элемента плюс один (0 - пустая ячейка).</p>
+ * <p>Таблица заполнена не больше чем наполовину. При расширении ячейки перечитываются в память
+ * и раскладываются в файл заново. Удалений нет: элемент только заменяется более новым.</p>
+ */
+final class MappedHashTable implements Closeable {
+
+    private static final int MAGIC = 0x594d4854;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 12;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final RandomAccessFile file;
+    private MappedByteBuffer table;
+    private int capacity;
+    private int size;
+    private final boolean loaded;
+
+    MappedHashTable(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        try {
+            long length = this.file.length();
+            if (length >= HEADER_SIZE) {
+                map(0);
+                capacity = table.getInt(4);
+                size = table.getInt(8);
+            }
+            loaded = length >= HEADER_SIZE && table.getInt(0) == MAGIC && capacity >= INITIAL_CAPACITY
+                    && Integer.bitCount(capacity) == 1 && length >= HEADER_SIZE + (long) capacity * SLOT_SIZE;
+            if (loaded) {
+                map(capacity);
+            } else {
+                clear();
+            }
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return true, если таблица прочитана из файла; false - файла не было или он поврежден, таблица пустая
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    void clear() throws IOException {
+        capacity = INITIAL_CAPACITY;
+        size = 0;
+        map(capacity);
+        clearSlots();
+        writeHeader();
+    }
+
+    /**
+     * @return номер элемента или -1, если хэша нет в таблице
+     */
+    int get(long key) {
+        int mask = capacity - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            int value = table.getInt(position(slot) + 8);
+            if (value == 0) {
+                return -1;
+            }
+            if (table.getLong(position(slot)) == key) {
+                return value - 1;
+            }
+        }
+    }
+
+    /**
+     * Записывает номер элемента для хэша
+     *
+     * @return прежний номер элемента или -1
+     */
+    int put(long key, int entry) throws IOException {
+        if ((size + 1) * 2 > capacity) {
+            resize();
+        }
+        int mask = capacity - 1;
+        int slot = slot(key, mask);
+        int value = table.getInt(position(slot) + 8);
+        while (value != 0 && table.getLong(position(slot)) != key) {
+            slot = (slot + 1) & mask;
+            value = table.getInt(position(slot) + 8);
+        }
+        if (value == 0) {
+            size++;
+            table.putInt(8, size);
+            table.putLong(position(slot), key);
+        }
+        table.putInt(position(slot) + 8, entry + 1);
+        return value - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void force() {
+        table.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private void resize() throws IOException {
+        long[] keys = new long[size];
+        int[] values = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int value = table.getInt(position(slot) + 8);
+            if (value != 0) {
+                keys[count] = table.getLong(position(slot));
+                values[count++] = value - 1;
+            }
+        }
+        capacity *= 2;
+        size = 0;
+        map(capacity);
+        clearSlots();
+        writeHeader();
+        for (int i = 0; i < count; i++) {
+            put(keys[i], values[i]);
+        }
+    }
+
+    private void clearSlots() {
+        int end = position(capacity);
+        for (int position = HEADER_SIZE; position < end; position += 4) {
+            table.putInt(position, 0);
+        }
+    }
+
+    private void writeHeader() {
+        table.putInt(0, MAGIC);
+        table.putInt(4, capacity);
+        table.putInt(8, size);
+    }
+
+    private void map(int slots) throws IOException {
+        table = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+    }
+
+    private static int position(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
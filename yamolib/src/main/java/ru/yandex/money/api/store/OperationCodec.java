@@ -0,0 +1,139 @@
+package ru.yandex.money.api.store;
+
+import ru.yandex.money.api.enums.MoneyDirection;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * <p>Двоичное представление операции в журнале хранилища.</p>
+ * <p>Поля записываются в порядке объявления в {@link Operation}, у каждого поля есть признак null.
+ * Перечисления хранятся порядковыми номерами, поэтому новые значения можно добавлять только в конец.</p>
+ */
+final class OperationCodec {
+
+    private static final Operation.Status[] STATUSES = Operation.Status.values();
+    private static final MoneyDirection[] DIRECTIONS = MoneyDirection.values();
+    private static final IdentifierType[] IDENTIFIER_TYPES = IdentifierType.values();
+
+    private OperationCodec() {
+    }
+
+    static byte[] encode(Operation operation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, operation.getOperationId());
+        writeString(out, operation.getPatternId());
+        writeEnum(out, operation.getStatus());
+        writeEnum(out, operation.getDirection());
+        writeDecimal(out, operation.getAmount());
+        writeDate(out, operation.getDatetime());
+        writeString(out, operation.getTitle());
+        writeString(out, operation.getSender());
+        writeString(out, operation.getRecipient());
+        writeEnum(out, operation.getRecipientType());
+        writeString(out, operation.getMessage());
+        writeBoolean(out, operation.getCodepro());
+        writeString(out, operation.getDetails());
+        writeString(out, operation.getLabel());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Operation decode(DataInput in) throws IOException {
+        return new StoredOperation(
+                readString(in),
+                readString(in),
+                readEnum(in, STATUSES),
+                readEnum(in, DIRECTIONS),
+                readDecimal(in),
+                readDate(in),
+                readString(in),
+                readString(in),
+                readString(in),
+                readEnum(in, IDENTIFIER_TYPES),
+                readString(in),
+                readBoolean(in),
+                readString(in),
+                readString(in));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(DataInput in) throws IOException {
+        int length = in.readByte();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readInt());
+    }
+
+    private static void writeDate(DataOutput out, Date value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getTime());
+        }
+    }
+
+    private static Date readDate(DataInput in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+
+    private static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(DataInput in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+}
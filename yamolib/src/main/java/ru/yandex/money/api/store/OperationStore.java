@@ -0,0 +1,583 @@
+package ru.yandex.money.api.store;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closer;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Локальное хранилище операций: журнал с дозаписью и отображаемые в память индексы.</p>
+ * <p>Операции дописываются в журнал <code>operations.log</code> в компактном двоичном виде
+ * ({@link OperationCodec}), каждая запись защищена контрольной суммой. Для каждой записи в файле
+ * <code>operations.idx</code> хранится элемент индекса фиксированной длины: смещение записи в журнале,
+ * время операции, хэши идентификатора и метки и ссылка на предыдущий элемент с той же меткой.
+ * Кроме него, в память отображаются хэш-таблицы идентификаторов и меток ({@link MappedHashTable})
+ * и упорядоченный по времени список элементов <code>operations.dt</code>. Новые элементы попадают
+ * в упорядоченный список пачками по {@link #MERGE_THRESHOLD}, до этого поиск по периоду
+ * просматривает их отдельно. Поэтому поиск по идентификатору, периоду и метке читает из журнала
+ * лишь подходящие записи, а открытие хранилища не зависит от его размера.</p>
+ * <p>Повторно добавленная операция (с тем же идентификатором) заменяет прежнюю: так сохраняется
+ * изменение статуса операции. Прежняя запись остается в журнале, но помечается в индексе как замененная.</p>
+ * <p>При открытии хранилище проверяет хвост журнала: записи, дописанные после последнего обновления
+ * индекса, индексируются заново, а недописанная запись отбрасывается. Если хранилище не было закрыто
+ * (сбой процесса или системы), из индекса убираются элементы, записей которых нет в журнале, а хэш-таблицы
+ * и упорядоченный список строятся заново по индексу. Для сохранности данных при сбое системы нужно
+ * вызывать {@link #flush()}.</p>
+ * <p>Методы хранилища потокобезопасны. Открыть каталог может только один процесс:
+ * хранилище блокирует журнал до закрытия.</p>
+ */
+public class OperationStore implements Closeable {
+
+    static final String LOG_FILE = "operations.log";
+    static final String INDEX_FILE = "operations.idx";
+    static final String IDS_FILE = "operations.ids";
+    static final String LABELS_FILE = "operations.lbl";
+    static final String DATETIME_FILE = "operations.dt";
+
+    /**
+     * Сколько новых элементов индекса просматривается при поиске по периоду, прежде чем они
+     * добавляются в упорядоченный по времени список
+     */
+    static final int MERGE_THRESHOLD = 1024;
+
+    private static final int MAGIC = 0x594d4f50;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 40;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_DATETIME = Long.MIN_VALUE;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final RandomAccessFile logFile;
+    private final FileChannel log;
+    private final RandomAccessFile indexFile;
+    private final RandomAccessFile datetimeFile;
+    private final MappedHashTable ids;
+    private final MappedHashTable labels;
+    private MappedByteBuffer index;
+    private MappedByteBuffer datetimes;
+    private int capacity;
+    private int datetimeCapacity;
+    private int count;
+    private long logLength;
+    /**
+     * Длина упорядоченного по времени списка и количество элементов индекса, попавших в него
+     */
+    private int sortedLength;
+    private int sortedEntries;
+
+    private OperationStore(File directory) throws IOException {
+        logFile = new RandomAccessFile(new File(directory, LOG_FILE), "rw");
+        log = logFile.getChannel();
+        Closer closer = Closer.create();
+        closer.register(logFile);
+        try {
+            lock(directory);
+            indexFile = closer.register(new RandomAccessFile(new File(directory, INDEX_FILE), "rw"));
+            datetimeFile = closer.register(new RandomAccessFile(new File(directory, DATETIME_FILE), "rw"));
+            ids = closer.register(new MappedHashTable(new File(directory, IDS_FILE)));
+            labels = closer.register(new MappedHashTable(new File(directory, LABELS_FILE)));
+            open();
+            recover();
+        } catch (Throwable e) {
+            try {
+                throw closer.rethrow(e, IOException.class);
+            } finally {
+                closer.close();
+            }
+        }
+    }
+
+    /**
+     * Открывает хранилище в каталоге, создавая его при необходимости
+     */
+    public static OperationStore open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create directory " + directory);
+        }
+        return new OperationStore(directory);
+    }
+
+    /**
+     * Дописывает операцию в хранилище. Операция с тем же идентификатором заменяется
+     */
+    public synchronized void append(Operation operation) throws IOException {
+        if (operation.getOperationId() == null) {
+            throw new IllegalArgumentException("operation id is empty: " + operation);
+        }
+        byte[] payload = OperationCodec.encode(operation);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(payload.length + 8);
+        record.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        record.flip();
+
+        long offset = logLength;
+        while (record.hasRemaining()) {
+            log.write(record, offset + record.position());
+        }
+        addEntry(offset, operation);
+        logLength = offset + payload.length + 8;
+        writeHeader();
+    }
+
+    public synchronized void appendAll(Iterable<? extends Operation> operations) throws IOException {
+        for (Operation operation : operations) {
+            append(operation);
+        }
+    }
+
+    /**
+     * @return операция с идентификатором <code>operationId</code>, либо null, если ее нет в хранилище
+     */
+    public synchronized Operation get(String operationId) throws IOException {
+        int entry = ids.get(hash(operationId));
+        if (entry < 0) {
+            return null;
+        }
+        Operation operation = readRecord(offset(entry));
+        return operationId.equals(operation.getOperationId()) ? operation : null;
+    }
+
+    /**
+     * @return операции с меткой <code>label</code> в обратном хронологическом порядке
+     */
+    public synchronized List<Operation> findByLabel(String label) throws IOException {
+        if (label == null) {
+            throw new IllegalArgumentException("label is empty");
+        }
+        EntryList found = new EntryList();
+        for (int entry = labels.get(hash(label)); entry >= 0; entry = previousWithLabel(entry)) {
+            if (offset(entry) >= 0) {
+                found.add(entry, datetime(entry));
+            }
+        }
+        // цепочка идет от новых элементов к старым, а время операций в ней не упорядочено
+        found.reverse();
+        found.sortByDatetime();
+        List<Operation> result = new ArrayList<Operation>(found.size);
+        for (int i = found.size - 1; i >= 0; i--) {
+            Operation operation = readRecord(offset(found.entries[i]));
+            if (label.equals(operation.getLabel())) {
+                result.add(operation);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return операции за период [from, till) в обратном хронологическом порядке
+     */
+    public synchronized List<Operation> findByDatetime(Date from, Date till) throws IOException {
+        long fromMillis = from.getTime();
+        long tillMillis = till.getTime();
+        EntryList found = new EntryList();
+        for (int i = lowerBound(fromMillis); i < sortedLength; i++) {
+            int entry = datetimes.getInt(i * 4);
+            long datetime = datetime(entry);
+            if (datetime >= tillMillis) {
+                break;
+            }
+            if (offset(entry) >= 0) {
+                found.add(entry, datetime);
+            }
+        }
+        for (int entry = sortedEntries; entry < count; entry++) {
+            long datetime = datetime(entry);
+            if (offset(entry) >= 0 && datetime != NO_DATETIME && datetime >= fromMillis && datetime < tillMillis) {
+                found.add(entry, datetime);
+            }
+        }
+        found.sortByDatetime();
+        List<Operation> result = new ArrayList<Operation>(found.size);
+        for (int i = found.size - 1; i >= 0; i--) {
+            result.add(readRecord(offset(found.entries[i])));
+        }
+        return result;
+    }
+
+    /**
+     * @return количество разных операций в хранилище
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * Сбрасывает журнал и индексы на диск
+     */
+    public synchronized void flush() throws IOException {
+        log.force(false);
+        ids.force();
+        labels.force();
+        datetimes.force();
+        index.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            // индексы на диске соответствуют журналу, при следующем открытии их можно не строить
+            index.putInt(12, 1);
+            index.force();
+        } finally {
+            closeFiles();
+        }
+    }
+
+    /**
+     * Блокировка снимается при закрытии журнала
+     */
+    private void lock(File directory) throws IOException {
+        FileLock lock;
+        try {
+            lock = log.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("operation store is already opened: " + directory);
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        Closer closer = Closer.create();
+        closer.register(logFile);
+        closer.register(indexFile);
+        closer.register(datetimeFile);
+        closer.register(ids);
+        closer.register(labels);
+        closer.close();
+    }
+
+    private void open() throws IOException {
+        long size = indexFile.length();
+        capacity = (int) Math.max(INITIAL_CAPACITY, (size - HEADER_SIZE) / ENTRY_SIZE);
+        map(capacity);
+        boolean clean = false;
+        if (size >= HEADER_SIZE && index.getInt(0) == MAGIC && index.getInt(4) == VERSION) {
+            count = index.getInt(8);
+            clean = index.getInt(12) == 1;
+            logLength = index.getLong(16);
+            sortedLength = index.getInt(24);
+            sortedEntries = index.getInt(28);
+        } else {
+            // новое хранилище или индекс другого формата: индекс строится заново по журналу
+            index.putInt(0, MAGIC);
+            index.putInt(4, VERSION);
+        }
+        long datetimeSize = datetimeFile.length();
+        datetimeCapacity = (int) Math.max(INITIAL_CAPACITY, datetimeSize / 4);
+        mapDatetimes(datetimeCapacity);
+
+        if (!clean || !ids.isLoaded() || !labels.isLoaded() || datetimeSize < sortedLength * 4L
+                || log.size() < logLength) {
+            truncateToLog();
+            rebuild();
+        }
+        // до закрытия индексы на диске могут не соответствовать журналу
+        index.putInt(12, 0);
+        writeHeader();
+        index.force();
+    }
+
+    /**
+     * После сбоя системы заголовок индекса может оказаться на диске раньше записей журнала.
+     * В индексе остаются только элементы, записи которых целиком есть в журнале
+     */
+    private void truncateToLog() throws IOException {
+        long size = log.size();
+        if (logLength <= size) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(4);
+        long end = 0;
+        int entry = count - 1;
+        for (; entry >= 0; entry--) {
+            long offset = recordOffset(entry);
+            if (offset + 8 <= size) {
+                header.clear();
+                readFully(header, offset);
+                int length = header.getInt(0);
+                if (length >= 0 && offset + length + 8 <= size) {
+                    end = offset + length + 8;
+                    break;
+                }
+            }
+        }
+        count = entry + 1;
+        logLength = end;
+    }
+
+    /**
+     * Строит хэш-таблицы, цепочки меток, отметки замененных элементов и упорядоченный список по элементам индекса
+     */
+    private void rebuild() throws IOException {
+        ids.clear();
+        labels.clear();
+        sortedLength = 0;
+        sortedEntries = 0;
+        for (int entry = 0; entry < count; entry++) {
+            index.putLong(position(entry), recordOffset(entry));
+        }
+        for (int entry = 0; entry < count; entry++) {
+            link(entry);
+        }
+        merge();
+    }
+
+    /**
+     * Индексирует записи, дописанные в журнал после последнего обновления индекса,
+     * и отрезает недописанную запись
+     */
+    private void recover() throws IOException {
+        long size = log.size();
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (logLength + 8 <= size) {
+            header.clear();
+            readFully(header, logLength);
+            int length = header.getInt(0);
+            if (length < 0 || logLength + length + 8 > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length + 4);
+            readFully(record, logLength + 4);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, length);
+            if (record.getInt(length) != (int) crc.getValue()) {
+                break;
+            }
+            Operation operation = OperationCodec.decode(
+                    new DataInputStream(new ByteArrayInputStream(record.array(), 0, length)));
+            addEntry(logLength, operation);
+            logLength += length + 8;
+        }
+        if (size > logLength) {
+            log.truncate(logLength);
+        }
+        writeHeader();
+    }
+
+    private void addEntry(long offset, Operation operation) throws IOException {
+        if (count == capacity) {
+            capacity *= 2;
+            map(capacity);
+        }
+        int position = position(count);
+        index.putLong(position, offset);
+        index.putLong(position + 8, operation.getDatetime() == null ? NO_DATETIME : operation.getDatetime().getTime());
+        index.putLong(position + 16, hash(operation.getOperationId()));
+        index.putLong(position + 24, operation.getLabel() == null ? 0 : hash(operation.getLabel()));
+        link(count);
+        count++;
+        if (count - sortedEntries >= MERGE_THRESHOLD) {
+            merge();
+        }
+    }
+
+    /**
+     * Добавляет элемент в хэш-таблицы: замененный элемент с тем же идентификатором помечается
+     * отрицательным смещением, а элемент с той же меткой становится предыдущим в цепочке метки
+     */
+    private void link(int entry) throws IOException {
+        int position = position(entry);
+        int previous = ids.put(index.getLong(position + 16), entry);
+        if (previous >= 0) {
+            index.putLong(position(previous), -offset(previous) - 1);
+        }
+        long labelHash = index.getLong(position + 24);
+        index.putInt(position + 32, labelHash == 0 ? -1 : labels.put(labelHash, entry));
+    }
+
+    /**
+     * Добавляет в упорядоченный по времени список элементы индекса, которых в нем еще нет.
+     * Элементы с одинаковым временем остаются в порядке добавления
+     */
+    private void merge() throws IOException {
+        EntryList added = new EntryList();
+        for (int entry = sortedEntries; entry < count; entry++) {
+            long datetime = datetime(entry);
+            if (offset(entry) >= 0 && datetime != NO_DATETIME) {
+                added.add(entry, datetime);
+            }
+        }
+        added.sortByDatetime();
+        int length = sortedLength + added.size;
+        if (length > datetimeCapacity) {
+            datetimeCapacity = Math.max(length, datetimeCapacity * 2);
+            mapDatetimes(datetimeCapacity);
+        }
+        // слияние с конца, на месте
+        int sorted = sortedLength - 1;
+        for (int i = added.size - 1, target = length - 1; i >= 0; target--) {
+            int entry = sorted >= 0 ? datetimes.getInt(sorted * 4) : -1;
+            if (entry >= 0 && datetime(entry) > added.datetimes[i]) {
+                datetimes.putInt(target * 4, entry);
+                sorted--;
+            } else {
+                datetimes.putInt(target * 4, added.entries[i--]);
+            }
+        }
+        sortedLength = length;
+        sortedEntries = count;
+        writeHeader();
+    }
+
+    /**
+     * @return позиция первого элемента упорядоченного списка со временем не раньше <code>datetime</code>
+     */
+    private int lowerBound(long datetime) {
+        int low = 0;
+        int high = sortedLength;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (datetime(datetimes.getInt(middle * 4)) < datetime) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void writeHeader() {
+        index.putInt(8, count);
+        index.putLong(16, logLength);
+        index.putInt(24, sortedLength);
+        index.putInt(28, sortedEntries);
+    }
+
+    private void map(int entries) throws IOException {
+        index = indexFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) entries * ENTRY_SIZE);
+    }
+
+    private void mapDatetimes(int entries) throws IOException {
+        datetimes = datetimeFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) entries * 4);
+    }
+
+    private Operation readRecord(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(header, offset);
+        ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+        readFully(payload, offset + 4);
+        return OperationCodec.decode(new DataInputStream(new ByteArrayInputStream(payload.array())));
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("unexpected end of operation log at " + position);
+            }
+        }
+    }
+
+    /**
+     * @return смещение записи в журнале, отрицательное для замененной записи
+     */
+    private long offset(int entry) {
+        return index.getLong(position(entry));
+    }
+
+    /**
+     * @return смещение записи в журнале, в том числе замененной
+     */
+    private long recordOffset(int entry) {
+        long offset = offset(entry);
+        return offset >= 0 ? offset : -offset - 1;
+    }
+
+    private long datetime(int entry) {
+        return index.getLong(position(entry) + 8);
+    }
+
+    private int previousWithLabel(int entry) {
+        return index.getInt(position(entry) + 32);
+    }
+
+    private static int position(int entry) {
+        return HEADER_SIZE + entry * ENTRY_SIZE;
+    }
+
+    private static long hash(String value) {
+        return HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * Номера элементов индекса вместе со временем, без упаковки в объекты
+     */
+    private static class EntryList {
+
+        int[] entries = new int[16];
+        long[] datetimes = new long[16];
+        int size;
+
+        void add(int entry, long datetime) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+                datetimes = Arrays.copyOf(datetimes, size * 2);
+            }
+            entries[size] = entry;
+            datetimes[size++] = datetime;
+        }
+
+        void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int entry = entries[i];
+                entries[i] = entries[j];
+                entries[j] = entry;
+                long datetime = datetimes[i];
+                datetimes[i] = datetimes[j];
+                datetimes[j] = datetime;
+            }
+        }
+
+        /**
+         * Устойчивая сортировка слиянием по времени
+         */
+        void sortByDatetime() {
+            int[] entryBuffer = new int[size];
+            long[] datetimeBuffer = new long[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int left = 0; left < size; left += 2 * width) {
+                    int middle = Math.min(left + width, size);
+                    int right = Math.min(left + 2 * width, size);
+                    int i = left;
+                    int j = middle;
+                    for (int k = left; k < right; k++) {
+                        if (j >= right || (i < middle && datetimes[i] <= datetimes[j])) {
+                            entryBuffer[k] = entries[i];
+                            datetimeBuffer[k] = datetimes[i++];
+                        } else {
+                            entryBuffer[k] = entries[j];
+                            datetimeBuffer[k] = datetimes[j++];
+                        }
+                    }
+                }
+                System.arraycopy(entryBuffer, 0, entries, 0, size);
+                System.arraycopy(datetimeBuffer, 0, datetimes, 0, size);
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package ru.yandex.money.api.store;
+
+import ru.yandex.money.api.enums.MoneyDirection;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>Компактное хранение большого количества операций в памяти, по столбцам.</p>
+ * <p>Суммы хранятся в копейках в <code>long</code>, даты — в миллисекундах, перечисления — в байтах.
+ * Повторяющиеся строки (шаблон платежа, название, отправитель, получатель) кодируются
+ * словарем: в строке таблицы хранится номер значения. Строка таблицы занимает порядка сотни байт
+ * (в основном идентификатор операции), объект {@link Operation} со всеми строками — около килобайта.</p>
+ * <p>Методы выборки и агрегации работают напрямую со столбцами. Объект {@link Operation}
+ * создается только по запросу {@link #get(int)}.</p>
+ * <p>Таблица не потокобезопасна. Чтение из нескольких потоков допустимо, если таблица не изменяется.</p>
+ */
+public class OperationTable {
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final byte NULL_BYTE = -1;
+    private static final int NULL_CODE = -1;
+
+    private static final Operation.Status[] STATUSES = Operation.Status.values();
+    private static final MoneyDirection[] DIRECTIONS = MoneyDirection.values();
+    private static final IdentifierType[] IDENTIFIER_TYPES = IdentifierType.values();
+
+    private final Dictionary patternIds = new Dictionary();
+    private final Dictionary titles = new Dictionary();
+    private final Dictionary senders = new Dictionary();
+    private final Dictionary recipients = new Dictionary();
+
+    private int size;
+    private String[] operationIds;
+    private long[] amounts;
+    private long[] datetimes;
+    private byte[] statuses;
+    private byte[] directions;
+    private byte[] recipientTypes;
+    private byte[] codepros;
+    private int[] patternIdCodes;
+    private int[] titleCodes;
+    private int[] senderCodes;
+    private int[] recipientCodes;
+    /**
+     * Метки, сообщения и детали почти не повторяются, поэтому хранятся как есть
+     */
+    private String[] labels;
+    private String[] messages;
+    private String[] details;
+
+    public OperationTable() {
+        this(1024);
+    }
+
+    public OperationTable(int initialCapacity) {
+        allocate(Math.max(initialCapacity, 16));
+    }
+
+    /**
+     * Добавляет операцию в конец таблицы
+     *
+     * @throws IllegalArgumentException сумма операции содержит доли копеек
+     */
+    public void add(Operation operation) {
+        if (size == operationIds.length) {
+            allocate(size * 2);
+        }
+        int row = size;
+        operationIds[row] = operation.getOperationId();
+        amounts[row] = toKopecks(operation.getAmount());
+        datetimes[row] = operation.getDatetime() == null ? NULL_LONG : operation.getDatetime().getTime();
+        statuses[row] = ordinal(operation.getStatus());
+        directions[row] = ordinal(operation.getDirection());
+        recipientTypes[row] = ordinal(operation.getRecipientType());
+        codepros[row] = operation.getCodepro() == null ? NULL_BYTE : operation.getCodepro() ? (byte) 1 : (byte) 0;
+        patternIdCodes[row] = patternIds.encode(operation.getPatternId());
+        titleCodes[row] = titles.encode(operation.getTitle());
+        senderCodes[row] = senders.encode(operation.getSender());
+        recipientCodes[row] = recipients.encode(operation.getRecipient());
+        labels[row] = operation.getLabel();
+        messages[row] = operation.getMessage();
+        details[row] = operation.getDetails();
+        size++;
+    }
+
+    public void addAll(Iterable<? extends Operation> operations) {
+        for (Operation operation : operations) {
+            add(operation);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return операция в строке <code>row</code>. Каждый вызов создает новый объект
+     */
+    public Operation get(int row) {
+        checkRow(row);
+        long amount = amounts[row];
+        return new StoredOperation(operationIds[row], patternIds.decode(patternIdCodes[row]), getStatus(row),
+                getDirection(row), amount == NULL_LONG ? null : BigDecimal.valueOf(amount, 2), getDatetime(row),
+                titles.decode(titleCodes[row]), senders.decode(senderCodes[row]),
+                recipients.decode(recipientCodes[row]),
+                recipientTypes[row] == NULL_BYTE ? null : IDENTIFIER_TYPES[recipientTypes[row]],
+                messages[row], codepros[row] == NULL_BYTE ? null : codepros[row] == 1, details[row],
+                labels[row]);
+    }
+
+    public String getOperationId(int row) {
+        checkRow(row);
+        return operationIds[row];
+    }
+
+    /**
+     * @return сумма операции в копейках, либо {@link Long#MIN_VALUE}, если сумма не указана
+     */
+    public long getAmountKopecks(int row) {
+        checkRow(row);
+        return amounts[row];
+    }
+
+    /**
+     * @return время операции в миллисекундах, либо {@link Long#MIN_VALUE}, если время не указано
+     */
+    public long getDatetimeMillis(int row) {
+        checkRow(row);
+        return datetimes[row];
+    }
+
+    public Date getDatetime(int row) {
+        long datetime = getDatetimeMillis(row);
+        return datetime == NULL_LONG ? null : new Date(datetime);
+    }
+
+    public Operation.Status getStatus(int row) {
+        checkRow(row);
+        return statuses[row] == NULL_BYTE ? null : STATUSES[statuses[row]];
+    }
+
+    public MoneyDirection getDirection(int row) {
+        checkRow(row);
+        return directions[row] == NULL_BYTE ? null : DIRECTIONS[directions[row]];
+    }
+
+    public String getPatternId(int row) {
+        checkRow(row);
+        return patternIds.decode(patternIdCodes[row]);
+    }
+
+    public String getTitle(int row) {
+        checkRow(row);
+        return titles.decode(titleCodes[row]);
+    }
+
+    public String getLabel(int row) {
+        checkRow(row);
+        return labels[row];
+    }
+
+    /**
+     * @return номера строк, удовлетворяющих условию, по возрастанию
+     */
+    public int[] filter(IntPredicate predicate) {
+        int[] rows = new int[16];
+        int found = 0;
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(row)) {
+                if (found == rows.length) {
+                    rows = Arrays.copyOf(rows, found * 2);
+                }
+                rows[found++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, found);
+    }
+
+    /**
+     * @return операции строк, удовлетворяющих условию
+     */
+    public List<Operation> select(IntPredicate predicate) {
+        List<Operation> result = new ArrayList<Operation>();
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(row)) {
+                result.add(get(row));
+            }
+        }
+        return result;
+    }
+
+    public int count(IntPredicate predicate) {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return сумма операций, удовлетворяющих условию, в копейках. Операции без суммы пропускаются
+     */
+    public long sumKopecks(IntPredicate predicate) {
+        long sum = 0;
+        for (int row = 0; row < size; row++) {
+            if (amounts[row] != NULL_LONG && predicate.test(row)) {
+                sum += amounts[row];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return суммы операций в копейках по шаблонам платежа (patternId), в порядке первого появления шаблона
+     */
+    public Map<String, Long> sumKopecksByPatternId(IntPredicate predicate) {
+        return sumByDictionary(patternIdCodes, patternIds, predicate);
+    }
+
+    /**
+     * @return суммы операций в копейках по названиям операций, в порядке первого появления названия
+     */
+    public Map<String, Long> sumKopecksByTitle(IntPredicate predicate) {
+        return sumByDictionary(titleCodes, titles, predicate);
+    }
+
+    /**
+     * @return условие "все строки"
+     */
+    public IntPredicate all() {
+        return new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                return true;
+            }
+        };
+    }
+
+    public IntPredicate direction(MoneyDirection direction) {
+        final byte value = ordinal(direction);
+        return new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                return directions[row] == value;
+            }
+        };
+    }
+
+    public IntPredicate status(Operation.Status status) {
+        final byte value = ordinal(status);
+        return new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                return statuses[row] == value;
+            }
+        };
+    }
+
+    /**
+     * @return условие "время операции в периоде [from, till)"
+     */
+    public IntPredicate between(Date from, Date till) {
+        final long fromMillis = from.getTime();
+        final long tillMillis = till.getTime();
+        return new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                long datetime = datetimes[row];
+                return datetime != NULL_LONG && datetime >= fromMillis && datetime < tillMillis;
+            }
+        };
+    }
+
+    /**
+     * Условия по строковым столбцам сравнивают номера в словаре. Номер значения определяется при создании
+     * условия, поэтому условие нужно создавать после заполнения таблицы.
+     */
+    public IntPredicate patternId(String patternId) {
+        final int code = patternIds.find(patternId);
+        return new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                return code != NULL_CODE && patternIdCodes[row] == code;
+            }
+        };
+    }
+
+    /**
+     * Метки не кодируются словарем и сравниваются как строки
+     */
+    public IntPredicate label(final String label) {
+        return new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                return label != null && label.equals(labels[row]);
+            }
+        };
+    }
+
+    /**
+     * @see #patternId(String)
+     */
+    public IntPredicate recipient(String recipient) {
+        final int code = recipients.find(recipient);
+        return new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                return code != NULL_CODE && recipientCodes[row] == code;
+            }
+        };
+    }
+
+    private Map<String, Long> sumByDictionary(int[] codes, Dictionary dictionary, IntPredicate predicate) {
+        long[] sums = new long[dictionary.size()];
+        boolean[] present = new boolean[dictionary.size()];
+        for (int row = 0; row < size; row++) {
+            int code = codes[row];
+            if (code != NULL_CODE && amounts[row] != NULL_LONG && predicate.test(row)) {
+                sums[code] += amounts[row];
+                present[code] = true;
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (int code = 0; code < sums.length; code++) {
+            if (present[code]) {
+                result.put(dictionary.decode(code), sums[code]);
+            }
+        }
+        return result;
+    }
+
+    private void allocate(int capacity) {
+        operationIds = operationIds == null ? new String[capacity] : Arrays.copyOf(operationIds, capacity);
+        amounts = amounts == null ? new long[capacity] : Arrays.copyOf(amounts, capacity);
+        datetimes = datetimes == null ? new long[capacity] : Arrays.copyOf(datetimes, capacity);
+        statuses = statuses == null ? new byte[capacity] : Arrays.copyOf(statuses, capacity);
+        directions = directions == null ? new byte[capacity] : Arrays.copyOf(directions, capacity);
+        recipientTypes = recipientTypes == null ? new byte[capacity] : Arrays.copyOf(recipientTypes, capacity);
+        codepros = codepros == null ? new byte[capacity] : Arrays.copyOf(codepros, capacity);
+        patternIdCodes = patternIdCodes == null ? new int[capacity] : Arrays.copyOf(patternIdCodes, capacity);
+        titleCodes = titleCodes == null ? new int[capacity] : Arrays.copyOf(titleCodes, capacity);
+        senderCodes = senderCodes == null ? new int[capacity] : Arrays.copyOf(senderCodes, capacity);
+        recipientCodes = recipientCodes == null ? new int[capacity] : Arrays.copyOf(recipientCodes, capacity);
+        labels = labels == null ? new String[capacity] : Arrays.copyOf(labels, capacity);
+        messages = messages == null ? new String[capacity] : Arrays.copyOf(messages, capacity);
+        details = details == null ? new String[capacity] : Arrays.copyOf(details, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? NULL_BYTE : (byte) value.ordinal();
+    }
+
+    private static long toKopecks(BigDecimal amount) {
+        if (amount == null) {
+            return NULL_LONG;
+        }
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("amount can not be stored in kopecks: " + amount, e);
+        }
+    }
+
+    /**
+     * Словарь строк: значение -> номер
+     */
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+        private final List<String> values = new ArrayList<String>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int find(String value) {
+            Integer code = value == null ? null : codes.get(value);
+            return code == null ? NULL_CODE : code;
+        }
+
+        String decode(int code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.money.api.store;
+
+import ru.yandex.money.api.enums.MoneyDirection;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Операция, прочитанная из локального хранилища
+ */
+class StoredOperation extends Operation {
+
+    private static final long serialVersionUID = 1L;
+
+    StoredOperation(String operationId, String patternId, Status status, MoneyDirection direction,
+                    BigDecimal amount, Date datetime, String title, String sender, String recipient,
+                    IdentifierType recipientType, String message, Boolean codepro, String details, String label) {
+        super(operationId, patternId, status, direction, amount, datetime, title, sender, recipient,
+                recipientType, message, codepro, details, label);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.money.api.transport;
+
+import ru.yandex.money.api.YamoneyApiAsyncHttpClient;
+import ru.yandex.money.api.YamoneyApiClient;
+
+/**
+ * Неблокирующий транспорт на Apache HttpAsyncClient
+ */
+public class ApacheAsyncTransportProvider implements YamoneyTransportProvider {
+
+    static final int MAX_CONNECTIONS = 50;
+
+    @Override
+    public String getName() {
+        return "apache-async";
+    }
+
+    @Override
+    public int getPriority() {
+        return 20;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return YamoneyTransports.isClassPresent("org.apache.http.impl.nio.client.HttpAsyncClients");
+    }
+
+    @Override
+    public YamoneyApiClient<?, ?> createClient(int socketTimeout) {
+        return new YamoneyApiAsyncHttpClient(
+                YamoneyApiAsyncHttpClient.createHttpAsyncClient(socketTimeout, MAX_CONNECTIONS));
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.money.api.transport;
+
+import ru.yandex.money.api.HttpConnectionPool;
+import ru.yandex.money.api.YamoneyApiClient;
+import ru.yandex.money.api.YamoneyApiHttpClient;
+
+import java.io.IOException;
+
+/**
+ * Транспорт на Apache HttpClient с пулом keep-alive соединений
+ */
+public class ApacheTransportProvider implements YamoneyTransportProvider {
+
+    @Override
+    public String getName() {
+        return "apache";
+    }
+
+    @Override
+    public int getPriority() {
+        return 10;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return YamoneyTransports.isClassPresent("org.apache.http.impl.conn.PoolingHttpClientConnectionManager");
+    }
+
+    @Override
+    public YamoneyApiClient<?, ?> createClient(int socketTimeout) {
+        final HttpConnectionPool pool = new HttpConnectionPool(socketTimeout,
+                ApacheAsyncTransportProvider.MAX_CONNECTIONS, ApacheAsyncTransportProvider.MAX_CONNECTIONS);
+
+        return new YamoneyApiHttpClient(pool.getHttpClient()) {
+            @Override
+            public void close() throws IOException {
+                pool.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.money.api.transport;
+
+import ru.yandex.money.api.YamoneyApiClient;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+
+/**
+ * Транспорт на java.net.http.HttpClient с поддержкой HTTP/2
+ */
+public class JdkHttpTransportProvider implements YamoneyTransportProvider {
+
+    @Override
+    public String getName() {
+        return "jdk";
+    }
+
+    @Override
+    public int getPriority() {
+        return 40;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return YamoneyTransports.isClassPresent("java.net.http.HttpClient");
+    }
+
+    @Override
+    public YamoneyApiClient<?, ?> createClient(int socketTimeout) {
+        return new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), socketTimeout);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.money.api.transport;
+
+import ru.yandex.money.api.YamoneyApiClient;
+import ru.yandex.money.api.YamoneyOkApiClient;
+
+/**
+ * Транспорт на OkHttp с общим пулом соединений
+ */
+public class OkHttpTransportProvider implements YamoneyTransportProvider {
+
+    @Override
+    public String getName() {
+        return "okhttp";
+    }
+
+    @Override
+    public int getPriority() {
+        return 30;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return YamoneyTransports.isClassPresent("com.squareup.okhttp.OkHttpClient");
+    }
+
+    @Override
+    public YamoneyApiClient<?, ?> createClient(int socketTimeout) {
+        return new YamoneyOkApiClient(YamoneyOkApiClient.createOkHttpClient(socketTimeout));
+    }
+}
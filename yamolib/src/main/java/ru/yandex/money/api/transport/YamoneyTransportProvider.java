@@ -0,0 +1,36 @@
+package ru.yandex.money.api.transport;
+
+import ru.yandex.money.api.YamoneyApiClient;
+
+/**
+ * <p>Поставщик транспорта для команд API Яндекс.Денег.</p>
+ * <p>Реализации регистрируются через {@link java.util.ServiceLoader}: имя класса реализации указывается в файле
+ * <code>META-INF/services/ru.yandex.money.api.transport.YamoneyTransportProvider</code>.
+ * Выбор транспорта выполняет {@link YamoneyTransports}.</p>
+ */
+public interface YamoneyTransportProvider {
+
+    /**
+     * @return имя транспорта, по которому его можно выбрать явно. Например, "okhttp"
+     */
+    String getName();
+
+    /**
+     * @return приоритет транспорта. При автоматическом выборе используется
+     * доступный транспорт с наибольшим приоритетом
+     */
+    int getPriority();
+
+    /**
+     * @return true, если все нужные транспорту библиотеки есть в classpath
+     */
+    boolean isAvailable();
+
+    /**
+     * Создает транспорт. Созданный транспорт владеет своими ресурсами и должен быть закрыт после использования.
+     *
+     * @param socketTimeout таймаут ожидания ответа, в миллисекундах.
+     *                      Для request-payment и process-payment может понадобиться таймаут до 60 секунд
+     */
+    YamoneyApiClient<?, ?> createClient(int socketTimeout);
+}
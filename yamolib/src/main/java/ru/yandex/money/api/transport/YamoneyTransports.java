@@ -0,0 +1,96 @@
+package ru.yandex.money.api.transport;
+
+import ru.yandex.money.api.YamoneyApiClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * <p>Выбор транспорта для {@link ru.yandex.money.api.ApiCommandsFacadeImpl} и
+ * {@link ru.yandex.money.api.TokenRequesterImpl} среди зарегистрированных {@link YamoneyTransportProvider}.</p>
+ * <p>Транспорт можно указать явно по имени, либо системным свойством {@value #TRANSPORT_PROPERTY}.
+ * Иначе выбирается доступный транспорт с наибольшим приоритетом. Встроенные транспорты:</p>
+ * <ul>
+ *     <li>jdk - {@link ru.yandex.money.api.YamoneyJdkHttpApiClient}, HTTP/2 на java.net.http;</li>
+ *     <li>okhttp - {@link ru.yandex.money.api.YamoneyOkApiClient};</li>
+ *     <li>apache-async - {@link ru.yandex.money.api.YamoneyApiAsyncHttpClient};</li>
+ *     <li>apache - {@link ru.yandex.money.api.YamoneyApiHttpClient} с пулом соединений.</li>
+ * </ul>
+ */
+public final class YamoneyTransports {
+
+    /**
+     * Системное свойство с именем транспорта, используемого по умолчанию
+     */
+    public static final String TRANSPORT_PROPERTY = "yamolib.transport";
+
+    private static final Comparator<YamoneyTransportProvider> BY_PRIORITY = new Comparator<YamoneyTransportProvider>() {
+        @Override
+        public int compare(YamoneyTransportProvider o1, YamoneyTransportProvider o2) {
+            return Integer.compare(o2.getPriority(), o1.getPriority());
+        }
+    };
+
+    private YamoneyTransports() {
+    }
+
+    /**
+     * @return доступные транспорты в порядке убывания приоритета
+     */
+    public static List<YamoneyTransportProvider> getProviders() {
+        List<YamoneyTransportProvider> result = new ArrayList<YamoneyTransportProvider>();
+        for (YamoneyTransportProvider provider : ServiceLoader.load(YamoneyTransportProvider.class)) {
+            if (provider.isAvailable()) {
+                result.add(provider);
+            }
+        }
+        Collections.sort(result, BY_PRIORITY);
+        return result;
+    }
+
+    /**
+     * Создает транспорт, указанный в системном свойстве {@value #TRANSPORT_PROPERTY},
+     * а если оно не задано - доступный транспорт с наибольшим приоритетом.
+     *
+     * @param socketTimeout таймаут ожидания ответа, в миллисекундах
+     */
+    public static YamoneyApiClient<?, ?> create(int socketTimeout) {
+        String name = System.getProperty(TRANSPORT_PROPERTY);
+        if (name != null && !name.isEmpty()) {
+            return create(name, socketTimeout);
+        }
+
+        List<YamoneyTransportProvider> providers = getProviders();
+        if (providers.isEmpty()) {
+            throw new IllegalStateException("no yandex.money transport available");
+        }
+        return providers.get(0).createClient(socketTimeout);
+    }
+
+    /**
+     * Создает транспорт с указанным именем
+     *
+     * @param name          имя транспорта, см. {@link YamoneyTransportProvider#getName()}
+     * @param socketTimeout таймаут ожидания ответа, в миллисекундах
+     */
+    public static YamoneyApiClient<?, ?> create(String name, int socketTimeout) {
+        for (YamoneyTransportProvider provider : getProviders()) {
+            if (provider.getName().equalsIgnoreCase(name)) {
+                return provider.createClient(socketTimeout);
+            }
+        }
+        throw new IllegalArgumentException("transport '" + name + "' is not available");
+    }
+
+    static boolean isClassPresent(String className) {
+        try {
+            Class.forName(className, false, YamoneyTransports.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
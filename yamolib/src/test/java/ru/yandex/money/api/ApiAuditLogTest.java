@@ -0,0 +1,163 @@
+package ru.yandex.money.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.response.ReceiveOAuthTokenResponse;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ApiAuditLogTest {
+
+    private static final String TOKEN = "410012345678901.0123456789ABCDEF";
+
+    private final BlockingQueue<AuditEvent> events = new LinkedBlockingQueue<AuditEvent>();
+    private final BlockingQueue<String> threads = new LinkedBlockingQueue<String>();
+    private final AuditSink sink = new AuditSink() {
+        @Override
+        public void write(AuditEvent event) {
+            threads.add(Thread.currentThread().getName());
+            events.add(event);
+        }
+    };
+
+    private StubApiServer server;
+    private YamoneyApiClient<?, ?> client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testMaskedEventWrittenByAuditThread() throws Exception {
+        server.respond("process-payment", 200, "{\"status\":\"success\",\"payment_id\":\"p1\"}");
+        ApiAuditLog audit = ApiAuditLog.builder().sink(sink).build();
+        client.setAuditLog(audit);
+
+        new ApiCommandsFacadeImpl(client, server.getUrl()).processPaymentByCard(TOKEN, "request 1", "123");
+
+        AuditEvent event = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals("yamolib-audit", threads.poll());
+        assertEquals("process-payment", event.getCommandName());
+        assertEquals("***", event.getParams().get("csc"));
+        assertEquals("request 1", event.getParams().get("request_id"));
+        assertEquals("4100...CDEF", event.getAccessToken());
+        assertFalse(event.toString().contains(TOKEN));
+        assertTrue(event.getResponse().contains("p1"));
+        assertFalse(event.isError());
+        audit.close();
+    }
+
+    @Test
+    public void testSamplesSuccessesButKeepsErrors() throws Exception {
+        server.respond("account-info", 200, "{\"account\":\"4100175017397\",\"balance\":1.00,\"currency\":\"643\"}");
+        server.respond("operation-details", 500, "");
+        ApiAuditLog audit = ApiAuditLog.builder().sink(sink).sampleRate(0).build();
+        client.setAuditLog(audit);
+        ApiCommandsFacade facade = new ApiCommandsFacadeImpl(client, server.getUrl());
+
+        facade.accountInfo(TOKEN);
+        try {
+            facade.operationDetail(TOKEN, "1");
+            fail("exception expected");
+        } catch (InternalServerErrorException expected) {
+        }
+        audit.close();
+
+        assertEquals(1, events.size());
+        AuditEvent event = events.poll();
+        assertEquals("operation-details", event.getCommandName());
+        assertTrue(event.getError() instanceof InternalServerErrorException);
+        assertNull(event.getResponse());
+    }
+
+    @Test
+    public void testRefusedPaymentIsError() throws Exception {
+        server.respond("process-payment", 200, "{\"status\":\"refused\",\"error\":\"not_enough_funds\"}");
+        ApiAuditLog audit = ApiAuditLog.builder().sink(sink).sampleRate(0).build();
+        client.setAuditLog(audit);
+
+        new ApiCommandsFacadeImpl(client, server.getUrl()).processPaymentByCard(TOKEN, "request 1", "123");
+        audit.close();
+
+        assertEquals(1, events.size());
+        AuditEvent event = events.poll();
+        assertTrue(event.isError());
+        assertNull(event.getError());
+        assertTrue(event.getResponse().contains("not_enough_funds"));
+    }
+
+    @Test
+    public void testDropsWhenFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        ApiAuditLog audit = ApiAuditLog.builder().capacity(4).sink(new AuditSink() {
+            @Override
+            public void write(AuditEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).build();
+
+        for (int i = 0; i < 20; i++) {
+            audit.record("account-info", URI.create("http://localhost/api/account-info"),
+                    Collections.<String, String>emptyMap(), null, "response " + i, null, 0);
+        }
+        assertTrue(audit.getDropped() >= 15);
+        release.countDown();
+        audit.close();
+
+        assertEquals(20, audit.getWritten() + audit.getDropped());
+    }
+
+    @Test
+    public void testTokenExchangeIsRecorded() throws Exception {
+        server.respond("token", 200, "{\"access_token\":\"" + TOKEN + "\"}");
+        ApiAuditLog audit = ApiAuditLog.builder().sink(sink).build();
+        client.setAuditLog(audit);
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("code", "0123456789ABCDEF0123456789ABCDEF");
+        params.put("client_secret", "secret");
+        params.put("client_id", "client");
+
+        client.executeForJsonObjectCommon(URI.create(server.getUrl() + "/oauth/token"), params,
+                ReceiveOAuthTokenResponse.class);
+        params.put("client_id", "changed");
+
+        AuditEvent event = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals("token", event.getCommandName());
+        assertEquals("***", event.getParams().get("code"));
+        assertEquals("***", event.getParams().get("client_secret"));
+        assertEquals("client", event.getParams().get("client_id"));
+        assertFalse(event.toString().contains(TOKEN));
+        audit.close();
+    }
+
+    @Test
+    public void testMaskPans() {
+        assertEquals("card 555555******4444, wallet 4100175017397, id 1234567890123456789",
+                AuditMasker.maskPans("card 5555555555554444, wallet 4100175017397, id 1234567890123456789"));
+        assertEquals("***", AuditMasker.maskToken("short"));
+    }
+}
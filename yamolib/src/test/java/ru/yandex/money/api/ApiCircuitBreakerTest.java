@@ -0,0 +1,152 @@
+package ru.yandex.money.api;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ApiCircuitBreakerTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private final List<String> transitions = new ArrayList<String>();
+    private final ApiCircuitBreaker.Listener listener = new ApiCircuitBreaker.Listener() {
+        @Override
+        public void onStateTransition(String commandName, ApiCircuitBreaker.State from, ApiCircuitBreaker.State to) {
+            transitions.add(commandName + ": " + from + " -> " + to);
+        }
+    };
+
+    @Test
+    public void testOpensOnFailureRateAndRecovers() throws Exception {
+        ApiCircuitBreaker breaker = ApiCircuitBreaker.builder()
+                .ticker(ticker)
+                .window(10, 4)
+                .failureRateThreshold(50)
+                .openDuration(30, TimeUnit.SECONDS)
+                .halfOpenCalls(2)
+                .listener(listener)
+                .build();
+
+        breaker.acquire("account-info").complete(null);
+        breaker.acquire("account-info").complete(new IOException());
+        breaker.acquire("account-info").complete(new InvalidTokenException("invalid token"));
+        assertEquals(ApiCircuitBreaker.State.CLOSED, breaker.getState("account-info"));
+        breaker.acquire("account-info").complete(new InternalServerErrorException("error"));
+        assertEquals(ApiCircuitBreaker.State.OPEN, breaker.getState("account-info"));
+        assertEquals(ApiCircuitBreaker.State.CLOSED, breaker.getState("operation-details"));
+
+        try {
+            breaker.acquire("account-info");
+            fail("exception expected");
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals("account-info", e.getCommandName());
+        }
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        ApiCircuitBreaker.Call first = breaker.acquire("account-info");
+        ApiCircuitBreaker.Call second = breaker.acquire("account-info");
+        assertEquals(ApiCircuitBreaker.State.HALF_OPEN, breaker.getState("account-info"));
+        try {
+            breaker.acquire("account-info");
+            fail("only two probes expected");
+        } catch (CircuitBreakerOpenException expected) {
+        }
+        first.complete(null);
+        second.complete(null);
+
+        assertEquals(ApiCircuitBreaker.State.CLOSED, breaker.getState("account-info"));
+        assertEquals(3, transitions.size());
+        assertEquals("account-info: CLOSED -> OPEN", transitions.get(0));
+        assertEquals("account-info: OPEN -> HALF_OPEN", transitions.get(1));
+        assertEquals("account-info: HALF_OPEN -> CLOSED", transitions.get(2));
+    }
+
+    @Test
+    public void testFailedProbeReopens() throws Exception {
+        ApiCircuitBreaker breaker = ApiCircuitBreaker.builder()
+                .ticker(ticker)
+                .window(2, 2)
+                .openDuration(1, TimeUnit.SECONDS)
+                .halfOpenCalls(1)
+                .build();
+
+        breaker.acquire("account-info").complete(new IOException());
+        breaker.acquire("account-info").complete(new IOException());
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        breaker.acquire("account-info").complete(new IOException());
+
+        assertEquals(ApiCircuitBreaker.State.OPEN, breaker.getState("account-info"));
+    }
+
+    @Test
+    public void testOpensOnSlowCalls() throws Exception {
+        ApiCircuitBreaker breaker = ApiCircuitBreaker.builder()
+                .ticker(ticker)
+                .window(4, 4)
+                .slowCallRateThreshold(75, 5, TimeUnit.SECONDS)
+                .build();
+
+        for (int i = 0; i < 4; i++) {
+            ApiCircuitBreaker.Call call = breaker.acquire("process-payment");
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(i == 0 ? 1 : 6));
+            call.complete(null);
+        }
+
+        assertEquals(ApiCircuitBreaker.State.OPEN, breaker.getState("process-payment"));
+    }
+
+    @Test
+    public void testTransportFailsFastWhenOpen() throws Exception {
+        StubApiServer server = new StubApiServer();
+        try {
+            server.respond("account-info", 500, "");
+            YamoneyJdkHttpApiClient client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000);
+            client.setCircuitBreaker(ApiCircuitBreaker.builder().window(3, 3).listener(listener).build());
+            ApiCommandsFacade facade = new ApiCommandsFacadeImpl(client, server.getUrl());
+            AsyncApiCommandsFacade asyncFacade = new AsyncApiCommandsFacadeImpl(client, server.getUrl());
+
+            for (int i = 0; i < 2; i++) {
+                try {
+                    facade.accountInfo("token");
+                    fail("exception expected");
+                } catch (InternalServerErrorException expected) {
+                }
+            }
+            try {
+                asyncFacade.accountInfo("token").get();
+                fail("exception expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof InternalServerErrorException);
+            }
+            try {
+                facade.accountInfo("token");
+                fail("exception expected");
+            } catch (CircuitBreakerOpenException expected) {
+            }
+            try {
+                asyncFacade.accountInfo("token").get();
+                fail("exception expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+            }
+
+            assertEquals(3, server.getRequestCount("account-info"));
+            assertEquals("account-info: CLOSED -> OPEN", transitions.get(0));
+        } finally {
+            server.close();
+        }
+    }
+}
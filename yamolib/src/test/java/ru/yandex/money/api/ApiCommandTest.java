@@ -0,0 +1,90 @@
+package ru.yandex.money.api;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import ru.yandex.money.api.enums.MoneySource;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ApiCommandTest {
+
+    @Test
+    public void testStaticParams() {
+        Map<String, String> params = ApiCommandParams.requestPaymentP2P(
+                "4100175017397", null, new BigDecimal("10.00"), "comment", null, null);
+
+        assertEquals(ImmutableMap.of(
+                "pattern_id", "p2p",
+                "amount", "10.00",
+                "to", "4100175017397",
+                "comment", "comment"), params);
+        assertEquals("phone-topup",
+                ApiCommandParams.requestPaymentToPhone("79231234567", BigDecimal.TEN).get("pattern_id"));
+        assertEquals(FormParams.EMPTY, ApiCommand.ACCOUNT_INFO.params().build());
+    }
+
+    @Test
+    public void testShopParamsOverridePatternId() {
+        Map<String, String> shopParams = new LinkedHashMap<String, String>();
+        shopParams.put("sum", "1");
+        shopParams.put("pattern_id", "other");
+
+        Map<String, String> params = ApiCommandParams.requestPaymentShop("337", shopParams, true);
+
+        assertEquals(ImmutableMap.of("pattern_id", "other", "sum", "1", "show_contract_details", "true"), params);
+    }
+
+    @Test
+    public void testEncodedSameAsMap() throws Exception {
+        FormParams params = ApiCommandParams.processPayment("request 1", MoneySource.card, "123");
+
+        Map<String, String> map = new LinkedHashMap<String, String>(params);
+        assertEquals(new String(FormEncoder.encode(map), "UTF-8"), new String(FormEncoder.encode(params), "UTF-8"));
+        assertEquals("request_id=request+1&money_source=card&csc=123", new String(FormEncoder.encode(params), "UTF-8"));
+        assertEquals(map.hashCode(), params.hashCode());
+    }
+
+    @Test
+    public void testMergeAdditionalParams() {
+        FormParams params = ApiCommandParams.operationDetail("42");
+
+        assertSame(params, FormParams.merge(params, ImmutableMap.<String, String>of()));
+        assertEquals(ImmutableMap.of("operation_id", "42", "test_payment", "true"),
+                FormParams.merge(params, ImmutableMap.of("test_payment", "true")));
+        assertEquals(ImmutableMap.of("operation_id", "1"),
+                FormParams.merge(params, ImmutableMap.of("operation_id", "1")));
+    }
+
+    @Test
+    public void testRegistry() {
+        assertSame(ApiCommand.PROCESS_PAYMENT, ApiCommand.forName("process-payment"));
+        assertEquals(ApiCommand.Idempotency.IDEMPOTENT, ApiCommand.PROCESS_PAYMENT.getIdempotency());
+        assertFalse(ApiCommand.forName("request-payment").isReadOnly());
+        assertTrue(ApiCommand.forName("operation-history").isReadOnly());
+        assertNull(ApiCommand.forName("revoke"));
+    }
+
+    @Test
+    public void testUrlResolvedOnce() {
+        CommandUrlHolder holder = new CommandUrlHolder.ConstantUrlHolder("https://money.yandex.ru/api");
+
+        assertEquals("https://money.yandex.ru/api/account-info", holder.getUrlForCommand("account-info").toString());
+        assertSame(holder.getUrlForCommand("account-info"), holder.getUrlForCommand("account-info"));
+    }
+
+    @Test
+    public void testTestUrlHolderParams() {
+        TestUrlHolder holder = new TestUrlHolder();
+        assertEquals(ImmutableMap.of("test_payment", "true"), holder.getAdditionalParams());
+
+        holder.setTestResult(TestUrlHolder.SUCCESS_CODE);
+        assertEquals(ImmutableMap.of("test_payment", "true", "test_result", "success"), holder.getAdditionalParams());
+
+        holder.setTestPayment(false);
+        assertTrue(holder.getAdditionalParams().isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.money.api;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+import ru.yandex.money.api.response.AccountInfoResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ApiRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @Test
+    public void testBurstAndRefill() {
+        ApiRateLimiter limiter = ApiRateLimiter.builder().ticker(ticker).global(10, 3).build();
+
+        assertTrue(limiter.tryAcquire("token", "account-info"));
+        assertTrue(limiter.tryAcquire("token", "account-info"));
+        assertTrue(limiter.tryAcquire("token", "account-info"));
+        assertFalse(limiter.tryAcquire("token", "account-info"));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(limiter.tryAcquire("token", "account-info"));
+        assertFalse(limiter.tryAcquire("token", "account-info"));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("token", "account-info"));
+        }
+        assertFalse(limiter.tryAcquire("token", "account-info"));
+    }
+
+    @Test
+    public void testSeparateBudgets() {
+        ApiRateLimiter limiter = ApiRateLimiter.builder()
+                .ticker(ticker)
+                .perToken(1, 1)
+                .perCommand("process-payment", 1, 1)
+                .build();
+
+        assertTrue(limiter.tryAcquire("token1", "account-info"));
+        assertFalse(limiter.tryAcquire("token1", "account-info"));
+        assertTrue(limiter.tryAcquire("token2", "process-payment"));
+        // у token3 разрешение есть, но кончились разрешения команды: токен свое разрешение не теряет
+        assertFalse(limiter.tryAcquire("token3", "process-payment"));
+        assertTrue(limiter.tryAcquire("token3", "account-info"));
+    }
+
+    @Test
+    public void testAsyncReservationIsDelayed() throws Exception {
+        ApiRateLimiter limiter = ApiRateLimiter.builder().global(20, 1).build();
+
+        assertTrue(limiter.acquireAsync(null, "account-info").isDone());
+        long start = System.nanoTime();
+        CompletableFuture<Void> second = limiter.acquireAsync(null, "account-info");
+        CompletableFuture<Void> third = limiter.acquireAsync(null, "account-info");
+        assertFalse(third.isDone());
+
+        second.get();
+        third.get();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    @Test
+    public void testFailFastTransport() throws Exception {
+        StubApiServer server = new StubApiServer();
+        try {
+            server.respond("account-info", 200, "{\"account\":\"4100175017397\"}");
+            YamoneyJdkHttpApiClient client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000);
+            client.setRateLimiter(ApiRateLimiter.builder()
+                    .perToken(0.1, 1)
+                    .mode(ApiRateLimiter.Mode.FAIL_FAST)
+                    .build());
+            ApiCommandsFacade facade = new ApiCommandsFacadeImpl(client, server.getUrl());
+
+            facade.accountInfo("token");
+            try {
+                facade.accountInfo("token");
+                fail("exception expected");
+            } catch (RateLimitExceededException expected) {
+            }
+            assertEquals(1, server.getRequestCount("account-info"));
+
+            AsyncApiCommandsFacade asyncFacade = new AsyncApiCommandsFacadeImpl(client, server.getUrl());
+            CompletableFuture<AccountInfoResponse> rejected = asyncFacade.accountInfo("token");
+            assertTrue(rejected.isCompletedExceptionally());
+            assertEquals("4100175017397", asyncFacade.accountInfo("other").get().getAccount());
+        } finally {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.money.api;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.OperationDetailResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class AsyncApiCommandsFacadeTest {
+
+    private static final String ACCOUNT_INFO = "{\"account\":\"4100175017397\",\"balance\":1000.55," +
+            "\"currency\":\"643\",\"identified\":true,\"account_type\":\"personal\"}";
+
+    private StubApiServer server;
+    private CloseableHttpAsyncClient httpClient;
+    private AsyncApiCommandsFacade facade;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        httpClient = YamoneyApiAsyncHttpClient.createHttpAsyncClient(4000, 10);
+        facade = new AsyncApiCommandsFacadeImpl(new YamoneyApiAsyncHttpClient(httpClient), server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    public void testAccountInfo() throws Exception {
+        server.respond("account-info", 200, ACCOUNT_INFO);
+
+        AccountInfoResponse response = facade.accountInfo("token").get();
+
+        assertEquals("4100175017397", response.getAccount());
+        assertEquals(new BigDecimal("1000.55"), response.getBalance());
+        assertEquals("personal", response.getAccountType());
+        assertEquals("Bearer token", server.getRequests().get(0).authorization);
+    }
+
+    @Test
+    public void testOperationDetailParams() throws Exception {
+        server.respond("operation-details", 200, "{\"operation_id\":\"1234567\",\"status\":\"success\"}");
+
+        OperationDetailResponse response = facade.operationDetail("token", "1234567").get();
+
+        assertEquals("1234567", response.getOperationId());
+        assertEquals("1234567", server.getRequests().get(0).params.get("operation_id"));
+    }
+
+    @Test
+    public void testInvalidToken() throws Exception {
+        server.respond("account-info", 401, "");
+
+        try {
+            facade.accountInfo("token").get();
+            fail("exception expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvalidTokenException);
+        }
+    }
+
+    @Test
+    public void testManyRequestsInFlight() throws Exception {
+        server.respond("account-info", 200, ACCOUNT_INFO);
+
+        List<CompletableFuture<AccountInfoResponse>> futures = new ArrayList<CompletableFuture<AccountInfoResponse>>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(facade.accountInfo("token" + i));
+        }
+        for (CompletableFuture<AccountInfoResponse> future : futures) {
+            assertEquals("4100175017397", future.get().getAccount());
+        }
+        assertEquals(100, server.getRequestCount("account-info"));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.money.api;
+
+import com.google.common.collect.Lists;
+import org.apache.http.Consts;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.message.BasicNameValuePair;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сравнение кодирования тела запроса: {@link UrlEncodedFormEntity} из списка {@link BasicNameValuePair}
+ * (как было в {@link YamoneyApiHttpClient}), {@link URLEncoder} со {@link StringBuilder}
+ * (как было в {@link YamoneyJdkHttpApiClient}) и {@link FormEncoder}.
+ * Печатает среднее время и объем выделенной памяти на одно тело.
+ */
+@Ignore("Для ручного запуска")
+public class FormEncoderBenchmark {
+
+    private static final int WARMUP = 50000;
+    private static final int ITERATIONS = 500000;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void compare() {
+        run("request-payment p2p", ApiCommandParams.requestPaymentP2P("4100175017397", null,
+                new BigDecimal("100.50"), "Оплата заказа №12", "Спасибо за покупку!", "order-12"));
+        run("operation-details", ApiCommandParams.operationDetail("1234567890123456789"));
+    }
+
+    private void run(String name, final Map<String, String> params) {
+        Encoder apache = new Encoder() {
+            @Override
+            public int encode() throws IOException {
+                List<NameValuePair> pairs = Lists.newArrayList();
+                for (Map.Entry<String, String> entry : params.entrySet()) {
+                    pairs.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                new UrlEncodedFormEntity(pairs, Consts.UTF_8).writeTo(out);
+                return out.size();
+            }
+        };
+        Encoder urlEncoder = new Encoder() {
+            @Override
+            public int encode() throws IOException {
+                StringBuilder body = new StringBuilder();
+                for (Map.Entry<String, String> entry : params.entrySet()) {
+                    if (body.length() > 0) {
+                        body.append('&');
+                    }
+                    body.append(URLEncoder.encode(entry.getKey(), "UTF-8"))
+                            .append('=')
+                            .append(URLEncoder.encode(entry.getValue(), "UTF-8"));
+                }
+                return body.toString().getBytes("UTF-8").length;
+            }
+        };
+        Encoder formEncoder = new Encoder() {
+            @Override
+            public int encode() {
+                return FormEncoder.encode(params).length;
+            }
+        };
+        System.out.println(name + ", UrlEncodedFormEntity: " + measure(apache));
+        System.out.println(name + ", URLEncoder: " + measure(urlEncoder));
+        System.out.println(name + ", FormEncoder: " + measure(formEncoder));
+    }
+
+    private String measure(Encoder encoder) {
+        try {
+            int length = 0;
+            for (int i = 0; i < WARMUP; i++) {
+                length += encoder.encode();
+            }
+            long threadId = Thread.currentThread().getId();
+            long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                length += encoder.encode();
+            }
+            long nanos = System.nanoTime() - start;
+            long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+            return String.format("%.3f us/op, %d bytes/op (%d)", nanos / 1000.0 / ITERATIONS, bytes / ITERATIONS,
+                    length % 10);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface Encoder {
+        int encode() throws IOException;
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.money.api;
+
+import org.junit.Test;
+
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FormEncoderTest {
+
+    @Test
+    public void testSameAsUrlEncoder() throws Exception {
+        Map<String, String> params = new LinkedHashMap<String, String>();
+        params.put("pattern_id", "p2p");
+        params.put("to", "4100175017397");
+        params.put("amount", "100.50");
+        params.put("comment", "Оплата заказа №12 & доставка = 100%");
+        params.put("message", "a+b c*d.e-f_g~h/i?j#k");
+        params.put("label", "emoji 😀, знак € и непарный \uD800 суррогат");
+        params.put("", "");
+
+        assertEquals(expected(params), new String(FormEncoder.encode(params), "US-ASCII"));
+        assertEquals(expected(params).length(), FormEncoder.contentLength(params));
+    }
+
+    @Test
+    public void testEmptyParams() {
+        assertEquals(0, FormEncoder.encode(new LinkedHashMap<String, String>()).length);
+    }
+
+    @Test
+    public void testNullValueIsEncodedAsEmpty() throws Exception {
+        Map<String, String> params = new LinkedHashMap<String, String>();
+        params.put("to", null);
+        params.put("amount", "1");
+        FormParams formParams = FormParams.builder().putAll(params).build();
+
+        assertEquals("to=&amount=1", new String(FormEncoder.encode(params), "US-ASCII"));
+        assertEquals("to=&amount=1", new String(FormEncoder.encode(formParams), "US-ASCII"));
+        assertEquals(12, FormEncoder.contentLength(formParams));
+    }
+
+    @Test
+    public void testEncodeWithOffset() throws Exception {
+        Map<String, String> params = new LinkedHashMap<String, String>();
+        params.put("a", "б");
+        params.put("c", "d");
+        byte[] target = new byte[20];
+        Arrays.fill(target, (byte) '#');
+
+        int end = FormEncoder.encode(params, target, 3);
+
+        assertEquals("###a=%D0%B1&c=d#####", new String(target, "US-ASCII"));
+        assertEquals(15, end);
+    }
+
+    private static String expected(Map<String, String> params) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(URLEncoder.encode(entry.getKey(), "UTF-8"))
+                    .append('=')
+                    .append(URLEncoder.encode(entry.getValue(), "UTF-8"));
+        }
+        return body.toString();
+    }
+}
@@ -0,0 +1,237 @@
+package ru.yandex.money.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class HedgingPolicyTest {
+
+    private StubApiServer server;
+    private YamoneyJdkHttpApiClient client;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testHedgeAnswersFirst() throws Exception {
+        server.respond("account-info", firstSlow("{\"account\":\"4100175017397\"}"));
+        HedgingPolicy policy = HedgingPolicy.builder().delay(10, 50, TimeUnit.MILLISECONDS).build();
+        client.setHedgingPolicy(policy);
+
+        long start = System.nanoTime();
+        AccountInfoResponse response = new AsyncApiCommandsFacadeImpl(client, server.getUrl()).accountInfo("token").get();
+
+        assertEquals("4100175017397", response.getAccount());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(2, server.getRequestCount("account-info"));
+        assertEquals(1, policy.getHedges());
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    public void testHedgeUsesSeparateClient() throws Exception {
+        final AtomicInteger hedgeRequests = new AtomicInteger();
+        HttpClient hedgeClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .proxy(new ProxySelector() {
+                    @Override
+                    public List<Proxy> select(URI uri) {
+                        hedgeRequests.incrementAndGet();
+                        return Collections.singletonList(Proxy.NO_PROXY);
+                    }
+
+                    @Override
+                    public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
+                    }
+                })
+                .build();
+        client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), hedgeClient, 4000);
+        server.respond("account-info", firstSlow("{\"account\":\"4100175017397\"}"));
+        HedgingPolicy policy = HedgingPolicy.builder().delay(10, 50, TimeUnit.MILLISECONDS).build();
+        client.setHedgingPolicy(policy);
+
+        new AsyncApiCommandsFacadeImpl(client, server.getUrl()).accountInfo("token").get();
+
+        assertEquals(1, policy.getHedgeWins());
+        assertEquals(1, hedgeRequests.get());
+    }
+
+    @Test
+    public void testMetricsOfWinningRequest() throws Exception {
+        final String slowBody = "{\"account\":\"4100175017397\",\"balance\":100.00,\"currency\":\"643\"}";
+        final String fastBody = "{\"account\":\"4100175017397\"}";
+        server.respond("account-info", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                if (calls.getAndIncrement() == 0) {
+                    Thread.sleep(300);
+                    return new StubApiServer.Response(200, slowBody);
+                }
+                return new StubApiServer.Response(200, fastBody);
+            }
+        });
+        final List<CommandMetrics> metrics = new CopyOnWriteArrayList<CommandMetrics>();
+        client.setMetricsListener(new ApiMetricsListener() {
+            @Override
+            public void onCommand(CommandMetrics command) {
+                metrics.add(command);
+            }
+        });
+        client.setHedgingPolicy(HedgingPolicy.builder().delay(10, 50, TimeUnit.MILLISECONDS).build());
+
+        new AsyncApiCommandsFacadeImpl(client, server.getUrl()).accountInfo("token").get();
+
+        assertEquals(1, metrics.size());
+        assertEquals(200, metrics.get(0).getHttpStatus());
+        assertEquals(fastBody.length(), metrics.get(0).getBytesRead());
+        assertTrue(metrics.get(0).getResponseTime(TimeUnit.MILLISECONDS) < 300);
+    }
+
+    @Test
+    public void testSyncFacadeIsHedged() throws Exception {
+        server.respond("account-info", firstSlow("{\"account\":\"4100175017397\"}"));
+        HedgingPolicy policy = HedgingPolicy.builder().delay(10, 50, TimeUnit.MILLISECONDS).build();
+        client.setHedgingPolicy(policy);
+
+        assertEquals("4100175017397", new ApiCommandsFacadeImpl(client, server.getUrl()).accountInfo("token").getAccount());
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    public void testStreamingHistoryIsNotHedged() throws Exception {
+        final String body = "{\"operations\":[{\"operation_id\":\"1\"},{\"operation_id\":\"2\"}]}";
+        server.respond("operation-history", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                // медленные ответы на исходные запросы обоих вызовов
+                if (calls.getAndIncrement() < 2) {
+                    Thread.sleep(300);
+                }
+                return new StubApiServer.Response(200, body);
+            }
+        });
+        client.setHedgingPolicy(HedgingPolicy.builder().delay(10, 50, TimeUnit.MILLISECONDS).build());
+        final List<String> operations = new CopyOnWriteArrayList<String>();
+
+        new ApiCommandsFacadeImpl(client, server.getUrl()).operationHistory("token", null, null, null, null,
+                null, null, null, new Consumer<Operation>() {
+                    @Override
+                    public void accept(Operation operation) {
+                        operations.add(operation.getOperationId());
+                    }
+                });
+
+        assertEquals(Arrays.asList("1", "2"), operations);
+        assertEquals(1, server.getRequestCount("operation-history"));
+
+        new ApiCommandsFacadeImpl(client, server.getUrl()).operationHistory("token", null, null, null, null,
+                null, null, null);
+        assertEquals(3, server.getRequestCount("operation-history"));
+    }
+
+    @Test
+    public void testErrorsOfBothRequests() throws Exception {
+        server.respond("account-info", firstSlow(null));
+        client.setHedgingPolicy(HedgingPolicy.builder().delay(10, 50, TimeUnit.MILLISECONDS).build());
+
+        try {
+            new ApiCommandsFacadeImpl(client, server.getUrl()).accountInfo("token");
+            fail("exception expected");
+        } catch (InsufficientScopeException expected) {
+        }
+        try {
+            new AsyncApiCommandsFacadeImpl(client, server.getUrl()).accountInfo("token").get();
+            fail("exception expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InsufficientScopeException);
+        }
+    }
+
+    @Test
+    public void testHedgesAreLimited() throws Exception {
+        server.respond("account-info", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                Thread.sleep(30);
+                return new StubApiServer.Response(200, "{\"account\":\"4100175017397\"}");
+            }
+        });
+        server.respond("process-payment", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                Thread.sleep(30);
+                return new StubApiServer.Response(200, "{\"status\":\"success\"}");
+            }
+        });
+        HedgingPolicy policy = HedgingPolicy.builder().delay(1, 1, TimeUnit.MILLISECONDS).maxHedgeRatio(0).build();
+        client.setHedgingPolicy(policy);
+        AsyncApiCommandsFacade facade = new AsyncApiCommandsFacadeImpl(client, server.getUrl());
+
+        for (int i = 0; i < 12; i++) {
+            facade.accountInfo("token").get();
+        }
+        facade.processPaymentByWallet("token", "request").get();
+
+        assertEquals(12, policy.getRequests());
+        assertEquals(10, policy.getHedges());
+        assertEquals(1, server.getRequestCount("process-payment"));
+    }
+
+    @Test
+    public void testOnlyReadOnlyCommandsCanBeHedged() {
+        HedgingPolicy policy = HedgingPolicy.builder().commands("account-info", "operation-details").build();
+        assertTrue(policy.isHedged("operation-details"));
+        assertFalse(policy.isHedged("operation-history"));
+
+        for (String command : new String[]{"request-payment", "process-payment", "revoke", "unknown"}) {
+            try {
+                HedgingPolicy.builder().commands(command);
+                fail("exception expected for " + command);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * Первый запрос отвечает через 2 секунды, остальные сразу. body == null - ответ 403
+     */
+    private StubApiServer.Responder firstSlow(final String body) {
+        return new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                if (calls.getAndIncrement() % 2 == 0) {
+                    Thread.sleep(2000);
+                }
+                return body == null ? new StubApiServer.Response(403, "") : new StubApiServer.Response(200, body);
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.money.api;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpConnectionPoolTest {
+
+    private StubApiServer server;
+    private HttpConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        pool = new HttpConnectionPool(4000, 10, 5);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        server.respond("account-info", 200, "{\"account\":\"4100175017397\"}");
+        ApiCommandsFacade facade = new ApiCommandsFacadeImpl(pool.getHttpClient(), server.getUrl());
+
+        for (int i = 0; i < 5; i++) {
+            facade.accountInfo("token");
+        }
+
+        PoolStats stats = pool.getStats(URI.create(server.getUrl()));
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+        assertEquals(0, stats.getPending());
+        assertEquals(5, stats.getMax());
+    }
+
+    @Test
+    public void testKeepAliveStrategy() throws Exception {
+        HttpConnectionPool.ApiHostKeepAliveStrategy strategy = new HttpConnectionPool.ApiHostKeepAliveStrategy(30000);
+
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        assertEquals(30000, strategy.getKeepAliveDuration(response, context("money.yandex.ru")));
+        assertEquals(30000, strategy.getKeepAliveDuration(response, context("sp-money.yandex.ru")));
+        assertEquals(HttpConnectionPool.DEFAULT_KEEP_ALIVE_MILLIS,
+                strategy.getKeepAliveDuration(response, context("example.com")));
+        assertEquals(HttpConnectionPool.DEFAULT_KEEP_ALIVE_MILLIS,
+                strategy.getKeepAliveDuration(response, context("evilsp-money.yandex.ru")));
+
+        response.addHeader("Keep-Alive", "timeout=7, max=100");
+        assertEquals(7000, strategy.getKeepAliveDuration(response, context("money.yandex.ru")));
+    }
+
+    private HttpClientContext context(String host) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setTargetHost(new HttpHost(host, 443, "https"));
+        return context;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.money.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.response.util.OperationHistoryError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class OperationHistoryStreamingTest {
+
+    private StubApiServer server;
+    private YamoneyJdkHttpApiClient client;
+    private ApiCommandsFacade facade;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000);
+        facade = new ApiCommandsFacadeImpl(client, server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testOperationsArePassedToConsumer() throws Exception {
+        server.respond("operation-history", 200, "{\"next_record\":\"2\",\"operations\":[" +
+                "{\"operation_id\":\"1\",\"amount\":10,\"datetime\":\"2013-10-11T23:00:00.000+04:00\"}," +
+                "{\"operation_id\":\"2\",\"amount\":20}]}");
+        final List<String> ids = new ArrayList<String>();
+
+        OperationHistoryResponse response = facade.operationHistory("token", 0, 2, null, true, null, null, null,
+                new Consumer<Operation>() {
+                    @Override
+                    public void accept(Operation operation) {
+                        ids.add(operation.getOperationId());
+                    }
+                });
+
+        assertEquals(2, ids.size());
+        assertEquals("1", ids.get(0));
+        assertEquals("2", ids.get(1));
+        assertTrue(response.isSuccess());
+        assertEquals(Integer.valueOf(2), response.getNextRecord());
+        assertTrue(response.getOperations().isEmpty());
+        assertEquals("true", server.getRequests().get(0).params.get("details"));
+    }
+
+    @Test
+    public void testErrorIsReported() throws Exception {
+        server.respond("operation-history", 200, "{\"error\":\"illegal_param_records\"}");
+
+        OperationHistoryResponse response = facade.operationHistory("token", 0, 500, null, null, null, null, null,
+                new Consumer<Operation>() {
+                    @Override
+                    public void accept(Operation operation) {
+                        fail("no operations expected");
+                    }
+                });
+
+        assertFalse(response.isSuccess());
+        assertEquals(OperationHistoryError.illegal_param_records, response.getError());
+    }
+}
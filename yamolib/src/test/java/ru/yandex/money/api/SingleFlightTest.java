@@ -0,0 +1,133 @@
+package ru.yandex.money.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.OperationDetailResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    private static final int THREADS = 8;
+
+    private StubApiServer server;
+    private ApiCommandsFacade facade;
+    private ExecutorService executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        facade = new ApiCommandsFacadeImpl(new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000),
+                new CommandUrlHolder.ConstantUrlHolder(server.getUrl()), true);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testConcurrentCallsShareResponse() throws Exception {
+        server.respond("account-info", delayed(new StubApiServer.Response(200, "{\"account\":\"4100175017397\"}")));
+
+        List<Future<AccountInfoResponse>> futures = new ArrayList<Future<AccountInfoResponse>>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(new Callable<AccountInfoResponse>() {
+                @Override
+                public AccountInfoResponse call() throws Exception {
+                    return facade.accountInfo("token");
+                }
+            }));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<AccountInfoResponse> future : futures) {
+            assertSame(futures.get(0).get(), future.get());
+        }
+        assertEquals(1, server.getRequestCount("account-info"));
+    }
+
+    @Test
+    public void testConcurrentCallsShareException() throws Exception {
+        server.respond("operation-details", delayed(new StubApiServer.Response(403, "")));
+
+        List<Future<OperationDetailResponse>> futures = new ArrayList<Future<OperationDetailResponse>>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(new Callable<OperationDetailResponse>() {
+                @Override
+                public OperationDetailResponse call() throws Exception {
+                    return facade.operationDetail("token", "1");
+                }
+            }));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<OperationDetailResponse> future : futures) {
+            try {
+                future.get();
+                fail("exception expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof InsufficientScopeException);
+            }
+        }
+        assertEquals(1, server.getRequestCount("operation-details"));
+    }
+
+    @Test
+    public void testDifferentParametersAreNotShared() throws Exception {
+        server.respond("operation-details", delayed(new StubApiServer.Response(200, "{\"operation_id\":\"1\"}")));
+
+        Future<OperationDetailResponse> first = executor.submit(new Callable<OperationDetailResponse>() {
+            @Override
+            public OperationDetailResponse call() throws Exception {
+                return facade.operationDetail("token", "1");
+            }
+        });
+        Future<OperationDetailResponse> second = executor.submit(new Callable<OperationDetailResponse>() {
+            @Override
+            public OperationDetailResponse call() throws Exception {
+                return facade.operationDetail("token", "2");
+            }
+        });
+        Thread.sleep(200);
+        release.countDown();
+
+        assertNotSame(first.get(), second.get());
+        assertEquals(2, server.getRequestCount("operation-details"));
+    }
+
+    @Test
+    public void testSequentialCallsAreNotShared() throws Exception {
+        server.respond("account-info", 200, "{\"account\":\"4100175017397\"}");
+
+        assertNotSame(facade.accountInfo("token"), facade.accountInfo("token"));
+        assertEquals(2, server.getRequestCount("account-info"));
+    }
+
+    private StubApiServer.Responder delayed(final StubApiServer.Response response) {
+        return new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                release.await();
+                return response;
+            }
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package ru.yandex.money.api;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальный "эмулятор" API Яндекс.Денег для тестов.
+ * Отвечает заранее заданными ответами и запоминает полученные запросы.
+ */
+public class StubApiServer implements Closeable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Responder> responders = new ConcurrentHashMap<String, Responder>();
+    private final List<Request> requests = new CopyOnWriteArrayList<Request>();
+
+    public StubApiServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleExchange(exchange);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+    }
+
+    public void respond(String command, int status, String body) {
+        respond(command, new Response(status, body));
+    }
+
+    public void respond(String command, final Response response) {
+        respond(command, new Responder() {
+            @Override
+            public Response answer(Request request) {
+                return response;
+            }
+        });
+    }
+
+    public void respond(String command, Responder responder) {
+        responders.put(command, responder);
+    }
+
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    public int getRequestCount(String command) {
+        int count = 0;
+        for (Request request : requests) {
+            if (request.command.equals(command)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(ByteStreams.toByteArray(exchange.getRequestBody()), "UTF-8");
+        Request request = new Request(path.substring(path.lastIndexOf('/') + 1),
+                exchange.getRequestHeaders().getFirst("Authorization"), parseForm(body));
+        requests.add(request);
+
+        Responder responder = responders.get(request.command);
+        Response response;
+        try {
+            response = responder == null ? new Response(404, "") : responder.answer(request);
+        } catch (Exception e) {
+            response = new Response(500, "");
+        }
+
+        byte[] bytes = response.body.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        if (bytes.length == 0) {
+            // сервер может закрыть соединение после ответа без тела, клиент не должен его переиспользовать
+            exchange.getResponseHeaders().add("Connection", "close");
+        }
+        exchange.sendResponseHeaders(response.status, bytes.length == 0 ? -1 : bytes.length);
+        OutputStream outputStream = exchange.getResponseBody();
+        outputStream.write(bytes);
+        outputStream.close();
+    }
+
+    private static Map<String, String> parseForm(String body) throws IOException {
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        if (body.isEmpty()) {
+            return result;
+        }
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            result.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                    URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static class Request {
+        public final String command;
+        public final String authorization;
+        public final Map<String, String> params;
+
+        Request(String command, String authorization, Map<String, String> params) {
+            this.command = command;
+            this.authorization = authorization;
+            this.params = params;
+        }
+    }
+
+    public static class Response {
+        final int status;
+        final String body;
+
+        public Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    public interface Responder {
+        Response answer(Request request) throws Exception;
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.money.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.FundraisingStatsResponse;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class YamoneyJdkHttpApiClientTest {
+
+    private StubApiServer server;
+    private AsyncApiCommandsFacade facade;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        YamoneyJdkHttpApiClient client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000);
+        facade = new AsyncApiCommandsFacadeImpl(client, server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testAccountInfo() throws Exception {
+        server.respond("account-info", 200, "{\"account\":\"4100175017397\",\"account_type\":\"professional\"}");
+
+        AccountInfoResponse response = facade.accountInfo("token").get();
+
+        assertEquals("4100175017397", response.getAccount());
+        assertEquals("professional", response.getAccountType());
+        assertEquals("Bearer token", server.getRequests().get(0).authorization);
+    }
+
+    @Test
+    public void testParamsAreUrlEncoded() throws Exception {
+        server.respond("fundraising-stats", 200, "{\"count\":2}");
+
+        FundraisingStatsResponse response = facade.fundraisingStats("token", "метка & пробел=1").get();
+
+        assertEquals(Long.valueOf(2), response.getCount());
+        assertEquals("метка & пробел=1", server.getRequests().get(0).params.get("label"));
+    }
+
+    @Test
+    public void testInsufficientScope() throws Exception {
+        server.respond("account-info", 403, "");
+
+        try {
+            facade.accountInfo("token").get();
+            fail("exception expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InsufficientScopeException);
+        }
+    }
+}
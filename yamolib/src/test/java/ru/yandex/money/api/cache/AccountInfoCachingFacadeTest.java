@@ -0,0 +1,180 @@
+package ru.yandex.money.api.cache;
+
+import com.google.common.base.Ticker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class AccountInfoCachingFacadeTest {
+
+    private StubApiServer server;
+    private ApiCommandsFacade facade;
+    private final AtomicInteger balance = new AtomicInteger(100);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        server.respond("account-info", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) {
+                return new StubApiServer.Response(200,
+                        "{\"account\":\"4100175017397\",\"balance\":" + balance.get() + ",\"currency\":\"643\"}");
+            }
+        });
+        facade = new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testExpiresAfterTtl() throws Exception {
+        AccountInfoCachingFacade cached = new AccountInfoCachingFacade(facade, 100, TimeUnit.MILLISECONDS);
+
+        assertEquals(new BigDecimal(100), cached.accountInfo("token").getBalance());
+        balance.set(90);
+        assertEquals(new BigDecimal(100), cached.accountInfo("token").getBalance());
+        assertEquals(1, server.getRequestCount("account-info"));
+
+        Thread.sleep(150);
+        assertEquals(new BigDecimal(90), cached.accountInfo("token").getBalance());
+        assertEquals(2, server.getRequestCount("account-info"));
+    }
+
+    @Test
+    public void testPaymentPatchesBalance() throws Exception {
+        server.respond("process-payment", 200, "{\"status\":\"success\",\"payment_id\":\"1\",\"balance\":70.5}");
+        AccountInfoCachingFacade cached = new AccountInfoCachingFacade(facade, 1, TimeUnit.MINUTES);
+
+        cached.accountInfo("token");
+        cached.processPaymentByWallet("token", "request");
+
+        assertEquals(new BigDecimal("70.5"), cached.accountInfo("token").getBalance());
+        assertEquals("4100175017397", cached.accountInfo("token").getAccount());
+        assertEquals(1, server.getRequestCount("account-info"));
+    }
+
+    @Test
+    public void testPaymentWithoutBalanceInvalidates() throws Exception {
+        server.respond("process-payment", 200, "{\"status\":\"success\",\"payment_id\":\"1\"}");
+        AccountInfoCachingFacade cached = new AccountInfoCachingFacade(facade, 1, TimeUnit.MINUTES);
+
+        cached.accountInfo("token");
+        balance.set(80);
+        cached.processPaymentByCard("token", "request", "123");
+
+        assertEquals(new BigDecimal(80), cached.accountInfo("token").getBalance());
+        assertEquals(2, server.getRequestCount("account-info"));
+    }
+
+    @Test
+    public void testRefusedPaymentKeepsCache() throws Exception {
+        server.respond("process-payment", 200, "{\"status\":\"refused\",\"error\":\"not_enough_funds\"}");
+        AccountInfoCachingFacade cached = new AccountInfoCachingFacade(facade, 1, TimeUnit.MINUTES);
+
+        cached.accountInfo("token");
+        cached.processPaymentByWallet("token", "request");
+        cached.accountInfo("token");
+
+        assertEquals(1, server.getRequestCount("account-info"));
+    }
+
+    @Test(timeout = 10000)
+    public void testRefreshStartedBeforePaymentIsDiscarded() throws Exception {
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch paymentDone = new CountDownLatch(1);
+        server.respond("account-info", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                String body = "{\"account\":\"4100175017397\",\"balance\":" + balance.get() + ",\"currency\":\"643\"}";
+                if (server.getRequestCount("account-info") == 2) {
+                    // фоновое обновление получает остаток до платежа, а отвечает после него
+                    refreshStarted.countDown();
+                    paymentDone.await();
+                }
+                return new StubApiServer.Response(200, body);
+            }
+        });
+        server.respond("process-payment", 200, "{\"status\":\"success\",\"payment_id\":\"1\"}");
+        final AtomicLong nanos = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        final List<Runnable> refreshes = new ArrayList<Runnable>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                refreshes.add(command);
+            }
+        };
+        AccountInfoCachingFacade cached = new AccountInfoCachingFacade(facade, ticker, 10, 60, TimeUnit.SECONDS, executor);
+
+        cached.accountInfo("token");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(15));
+        cached.accountInfo("token");
+        Thread refresh = new Thread(refreshes.get(0));
+        refresh.start();
+        refreshStarted.await();
+        balance.set(70);
+        cached.processPaymentByWallet("token", "request");
+        paymentDone.countDown();
+        refresh.join();
+
+        assertEquals(new BigDecimal(70), cached.accountInfo("token").getBalance());
+        assertEquals(3, server.getRequestCount("account-info"));
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        final AtomicLong nanos = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        final List<Runnable> refreshes = new ArrayList<Runnable>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                refreshes.add(command);
+            }
+        };
+        AccountInfoCachingFacade cached = new AccountInfoCachingFacade(facade, ticker, 10, 60, TimeUnit.SECONDS, executor);
+
+        cached.accountInfo("token");
+        balance.set(50);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(15));
+
+        assertEquals(new BigDecimal(100), cached.accountInfo("token").getBalance());
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertEquals(new BigDecimal(50), cached.accountInfo("token").getBalance());
+
+        balance.set(40);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(70));
+        assertEquals(new BigDecimal(40), cached.accountInfo("token").getBalance());
+        assertEquals(3, server.getRequestCount("account-info"));
+    }
+}
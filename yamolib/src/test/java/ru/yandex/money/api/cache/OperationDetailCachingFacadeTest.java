@@ -0,0 +1,84 @@
+package ru.yandex.money.api.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+import ru.yandex.money.api.response.OperationDetailResponse;
+
+import static org.junit.Assert.*;
+
+public class OperationDetailCachingFacadeTest {
+
+    private StubApiServer server;
+    private OperationDetailCachingFacade facade;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        server.respond("operation-details", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) {
+                String operationId = request.params.get("operation_id");
+                if (operationId.equals("unknown")) {
+                    return new StubApiServer.Response(200, "{\"error\":\"illegal_param_operation_id\"}");
+                }
+                String status = operationId.startsWith("p") ? "in_progress" : "success";
+                return new StubApiServer.Response(200,
+                        "{\"operation_id\":\"" + operationId + "\",\"status\":\"" + status + "\"}");
+            }
+        });
+        facade = new OperationDetailCachingFacade(new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl()), 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testFinalOperationIsCached() throws Exception {
+        OperationDetailResponse first = facade.operationDetail("token", "1");
+        OperationDetailResponse second = facade.operationDetail("token", "1");
+
+        assertSame(first, second);
+        assertEquals(1, server.getRequestCount("operation-details"));
+        assertEquals(1, facade.stats().hitCount());
+        assertEquals(1, facade.stats().missCount());
+    }
+
+    @Test
+    public void testInProgressAndErrorsAreNotCached() throws Exception {
+        facade.operationDetail("token", "p1");
+        facade.operationDetail("token", "p1");
+        facade.operationDetail("token", "unknown");
+        facade.operationDetail("token", "unknown");
+
+        assertEquals(4, server.getRequestCount("operation-details"));
+        assertEquals(0, facade.size());
+    }
+
+    @Test
+    public void testTokensAreCachedSeparately() throws Exception {
+        facade.operationDetail("token1", "1");
+        facade.operationDetail("token2", "1");
+
+        assertEquals(2, server.getRequestCount("operation-details"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        facade.operationDetail("token", "1");
+        facade.operationDetail("token", "2");
+        facade.operationDetail("token", "1");
+        facade.operationDetail("token", "3");
+        facade.operationDetail("token", "1");
+        facade.operationDetail("token", "2");
+
+        assertEquals(2, facade.size());
+        assertEquals(4, server.getRequestCount("operation-details"));
+    }
+}
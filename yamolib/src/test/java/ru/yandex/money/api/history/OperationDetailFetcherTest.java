@@ -0,0 +1,188 @@
+package ru.yandex.money.api.history;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.InsufficientScopeException;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.Assert.*;
+
+public class OperationDetailFetcherTest {
+
+    private StubApiServer server;
+    private ApiCommandsFacade facade;
+    private ExecutorService executor;
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        facade = new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl());
+        executor = Executors.newFixedThreadPool(8);
+        server.respond("operation-details", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+                int current = concurrent.incrementAndGet();
+                try {
+                    maxConcurrent.accumulateAndGet(current, new IntBinaryOperator() {
+                        @Override
+                        public int applyAsInt(int left, int right) {
+                            return Math.max(left, right);
+                        }
+                    });
+                    Thread.sleep(20);
+                    String operationId = request.params.get("operation_id");
+                    if (operationId.equals("forbidden")) {
+                        return new StubApiServer.Response(403, "");
+                    }
+                    if (operationId.equals("unknown")) {
+                        return new StubApiServer.Response(200, "{\"error\":\"illegal_param_operation_id\"}");
+                    }
+                    return new StubApiServer.Response(200,
+                            "{\"operation_id\":\"" + operationId + "\",\"title\":\"Операция " + operationId + "\"}");
+                } finally {
+                    concurrent.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testResultsInInputOrder() throws Exception {
+        List<String> ids = Arrays.asList("5", "3", "1", "4", "2", "6");
+
+        List<OperationDetailResult> results = new OperationDetailFetcher(facade, executor, 3).fetch("token", ids);
+
+        assertEquals(ids.size(), results.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(ids.get(i), results.get(i).getOperationId());
+            assertEquals("Операция " + ids.get(i), results.get(i).getResponse().getTitle());
+        }
+        assertTrue(maxConcurrent.get() <= 3);
+        assertTrue(maxConcurrent.get() > 1);
+    }
+
+    @Test
+    public void testDuplicatesRequestedOnce() throws Exception {
+        List<OperationDetailResult> results = new OperationDetailFetcher(facade, executor, 4)
+                .fetch("token", Arrays.asList("1", "2", "1", "1", "2"));
+
+        assertEquals(5, results.size());
+        assertSame(results.get(0).getResponse(), results.get(2).getResponse());
+        assertSame(results.get(1).getResponse(), results.get(4).getResponse());
+        assertEquals(2, server.getRequestCount("operation-details"));
+    }
+
+    @Test
+    public void testPerItemErrors() throws Exception {
+        List<OperationDetailResult> results = new OperationDetailFetcher(facade, executor, 2)
+                .fetch("token", Arrays.asList("1", "forbidden", "unknown", "2"));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertNull(results.get(1).getResponse());
+        assertTrue(results.get(1).getError() instanceof InsufficientScopeException);
+        assertFalse(results.get(2).isSuccess());
+        assertNull(results.get(2).getError());
+        assertEquals("illegal_param_operation_id", results.get(2).getResponse().getError());
+        assertTrue(results.get(3).isSuccess());
+    }
+
+    @Test
+    public void testLimitIsSharedBetweenBatchesOfOneToken() throws Exception {
+        final OperationDetailFetcher fetcher = new OperationDetailFetcher(facade, executor, 2);
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    fetcher.fetch("token", Arrays.asList("a", "b", "c", "d"));
+                } catch (InterruptedException ignored) {
+                }
+            }
+        };
+        other.start();
+        fetcher.fetch("token", Arrays.asList("1", "2", "3", "4"));
+        other.join();
+
+        assertEquals(8, server.getRequestCount("operation-details"));
+        assertTrue(maxConcurrent.get() <= 2);
+    }
+
+    @Test(timeout = 10000)
+    public void testInterruptedBatchReturnsPermits() throws Exception {
+        final ExecutorService saturated = Executors.newSingleThreadExecutor();
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final AtomicReference<Executor> current = new AtomicReference<Executor>(saturated);
+        try {
+            saturated.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Uninterruptibles.awaitUninterruptibly(blocker);
+                }
+            });
+            final OperationDetailFetcher fetcher = new OperationDetailFetcher(facade, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    current.get().execute(command);
+                }
+            }, 2);
+
+            final AtomicBoolean interrupted = new AtomicBoolean();
+            Thread batch = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        fetcher.fetch("token", Arrays.asList("1", "2", "3"));
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                    }
+                }
+            };
+            batch.start();
+            // два запроса стоят в очереди исполнителя, третий ждет разрешения
+            while (batch.getState() != Thread.State.WAITING) {
+                Thread.sleep(5);
+            }
+            batch.interrupt();
+            batch.join();
+            assertTrue(interrupted.get());
+
+            current.set(executor);
+            blocker.countDown();
+            List<OperationDetailResult> results = fetcher.fetch("token", Arrays.asList("a", "b", "c", "d"));
+
+            assertEquals(4, results.size());
+            assertEquals(2, maxConcurrent.get());
+            assertEquals(4, server.getRequestCount("operation-details"));
+        } finally {
+            blocker.countDown();
+            saturated.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.money.api.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class OperationHistoryExporterTest {
+
+    private StubApiServer server;
+    private ApiCommandsFacade facade;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        facade = new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl());
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testExportsWholePeriodInOrder() {
+        StubOperationHistory history = new StubOperationHistory(500);
+        server.respond("operation-history", history);
+
+        List<Operation> operations = new OperationHistoryExporter(facade, "token", executor, 4)
+                .export(query(1, 501));
+
+        assertOperations(500, 1, operations);
+        assertTrue(history.getMaxConcurrent() <= 4);
+    }
+
+    @Test
+    public void testSubPeriod() {
+        server.respond("operation-history", new StubOperationHistory(500));
+
+        List<Operation> operations = new OperationHistoryExporter(facade, "token", executor, 3)
+                .export(query(100, 300));
+
+        assertOperations(299, 100, operations);
+    }
+
+    @Test
+    public void testBoundaryDuplicatesAreRemoved() {
+        server.respond("operation-history", new StubOperationHistory(300, StubOperationHistory.STEP, true));
+
+        List<Operation> operations = new OperationHistoryExporter(facade, "token", executor, 4)
+                .export(query(1, 300));
+
+        assertOperations(300, 1, operations);
+    }
+
+    @Test
+    public void testDenseSecondIsPaged() {
+        // 50 операций в одну секунду: окно нельзя разделить, оно обходится постранично
+        server.respond("operation-history", new StubOperationHistory(50, 10, false));
+
+        List<Operation> operations = new OperationHistoryExporter(facade, "token", executor, 4)
+                .export(OperationHistoryQuery.all()
+                        .withFrom(StubOperationHistory.datetime(0))
+                        .withTill(StubOperationHistory.datetime(1))
+                        .withPageSize(20));
+
+        assertOperations(50, 1, operations);
+    }
+
+    @Test
+    public void testWindowWithoutOperations() {
+        StubOperationHistory history = new StubOperationHistory(100);
+        history.setOmitEmptyOperations(true);
+        server.respond("operation-history", history);
+
+        assertTrue(new OperationHistoryExporter(facade, "token", executor, 4).export(query(200, 300)).isEmpty());
+        assertOperations(100, 51, new OperationHistoryExporter(facade, "token", executor, 4).export(query(51, 300)));
+    }
+
+    private static OperationHistoryQuery query(int fromId, int tillId) {
+        return OperationHistoryQuery.all()
+                .withFrom(StubOperationHistory.datetime(fromId))
+                .withTill(StubOperationHistory.datetime(tillId))
+                .withPageSize(20);
+    }
+
+    private static void assertOperations(int first, int last, List<Operation> operations) {
+        assertEquals(first - last + 1, operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            assertEquals(String.valueOf(first - i), operations.get(i).getOperationId());
+        }
+    }
+}
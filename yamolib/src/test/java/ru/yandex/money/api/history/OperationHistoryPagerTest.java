@@ -0,0 +1,101 @@
+package ru.yandex.money.api.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+import ru.yandex.money.api.enums.OperationHistoryType;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.response.util.OperationHistoryError;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class OperationHistoryPagerTest {
+
+    private StubApiServer server;
+    private ApiCommandsFacade facade;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        facade = new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testIteratesAllPages() {
+        server.respond("operation-history", new StubOperationHistory(25));
+
+        int expectedId = 25;
+        for (Operation operation : new OperationHistoryPager(facade, "token", OperationHistoryQuery.all().withPageSize(10))) {
+            assertEquals(String.valueOf(expectedId--), operation.getOperationId());
+        }
+
+        assertEquals(0, expectedId);
+        assertEquals(3, server.getRequestCount("operation-history"));
+        assertEquals("20", server.getRequests().get(2).params.get("start_record"));
+    }
+
+    @Test
+    public void testFetchesPagesLazily() {
+        server.respond("operation-history", new StubOperationHistory(100));
+
+        List<Operation> operations = new OperationHistoryPager(facade, "token", OperationHistoryQuery.all().withPageSize(10))
+                .stream()
+                .limit(15)
+                .collect(Collectors.toList());
+
+        assertEquals(15, operations.size());
+        assertEquals(2, server.getRequestCount("operation-history"));
+    }
+
+    @Test
+    public void testQueryParameters() {
+        server.respond("operation-history", new StubOperationHistory(5));
+        OperationHistoryQuery query = OperationHistoryQuery.all()
+                .withType(OperationHistoryType.DEPOSITION)
+                .withDetails(true)
+                .withFrom(StubOperationHistory.datetime(2))
+                .withTill(StubOperationHistory.datetime(5))
+                .withLabel("order")
+                .withPageSize(50);
+
+        Iterator<Operation> operations = new OperationHistoryPager(facade, "token", query).iterator();
+
+        assertEquals("4", operations.next().getOperationId());
+        assertEquals("3", operations.next().getOperationId());
+        assertEquals("2", operations.next().getOperationId());
+        assertFalse(operations.hasNext());
+
+        StubApiServer.Request request = server.getRequests().get(0);
+        assertEquals("deposition", request.params.get("type"));
+        assertEquals("true", request.params.get("details"));
+        assertEquals("order", request.params.get("label"));
+        assertEquals("50", request.params.get("records"));
+        assertFalse(request.params.containsKey("start_record"));
+    }
+
+    @Test
+    public void testServerError() {
+        server.respond("operation-history", 200, "{\"error\":\"illegal_param_type\"}");
+
+        try {
+            new OperationHistoryPager(facade, "token", OperationHistoryQuery.all()).iterator().hasNext();
+            fail("exception expected");
+        } catch (OperationHistoryException e) {
+            assertEquals(OperationHistoryError.illegal_param_type, e.getError());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.money.api.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class OperationHistorySyncTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubApiServer server;
+    private StubOperationHistory history;
+    private CheckpointStore store;
+    private OperationHistorySync sync;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        history = new StubOperationHistory(10);
+        server.respond("operation-history", history);
+        ApiCommandsFacade facade = new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl());
+        store = new FileCheckpointStore(folder.newFolder("checkpoints"));
+        sync = new OperationHistorySync(facade, store);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testOnlyNewOperationsAreReturned() throws Exception {
+        assertEquals(10, sync(OperationHistoryQuery.all()).size());
+        assertEquals(new HistoryCheckpoint(StubOperationHistory.datetime(10), new HashSet<String>(Arrays.asList("10"))),
+                store.load("4100175017397"));
+
+        history.setCount(13);
+        List<String> delta = sync(OperationHistoryQuery.all());
+
+        assertEquals(Arrays.asList("13", "12", "11"), delta);
+        StubApiServer.Request request = server.getRequests().get(server.getRequests().size() - 1);
+        assertNotNull(request.params.get("from"));
+
+        assertTrue(sync(OperationHistoryQuery.all()).isEmpty());
+        assertEquals(StubOperationHistory.datetime(13), store.load("4100175017397").getDatetime());
+    }
+
+    @Test
+    public void testCheckpointIsNotAdvancedOnFailure() throws Exception {
+        sync(OperationHistoryQuery.all());
+        history.setCount(12);
+
+        try {
+            sync.sync("4100175017397", "token", OperationHistoryQuery.all(), new Consumer<Operation>() {
+                @Override
+                public void accept(Operation operation) {
+                    throw new IllegalStateException("consumer failed");
+                }
+            });
+            fail("exception expected");
+        } catch (IllegalStateException e) {
+            assertEquals(StubOperationHistory.datetime(10), store.load("4100175017397").getDatetime());
+        }
+
+        assertEquals(Arrays.asList("12", "11"), sync(OperationHistoryQuery.all()));
+    }
+
+    @Test
+    public void testOperationsInCheckpointSecondAreSkipped() throws Exception {
+        Date datetime = StubOperationHistory.datetime(10);
+        store.save("4100175017397", new HistoryCheckpoint(datetime, new HashSet<String>(Arrays.asList("10"))));
+
+        assertTrue(sync(OperationHistoryQuery.all()).isEmpty());
+    }
+
+    private List<String> sync(OperationHistoryQuery query) throws Exception {
+        final List<String> ids = new ArrayList<String>();
+        sync.sync("4100175017397", "token", query, new Consumer<Operation>() {
+            @Override
+            public void accept(Operation operation) {
+                ids.add(operation.getOperationId());
+            }
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.money.api.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PrefetchingPageIteratorTest {
+
+    private StubApiServer server;
+    private ApiCommandsFacade facade;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        facade = new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl());
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testReturnsAllPagesInOrder() {
+        server.respond("operation-history", new StubOperationHistory(45));
+        OperationHistoryPager pager = new OperationHistoryPager(facade, "token", OperationHistoryQuery.all().withPageSize(10));
+
+        long count;
+        try (Stream<?> operations = pager.prefetchingStream(executor, 2)) {
+            count = operations.count();
+        }
+
+        assertEquals(45, count);
+        assertEquals(5, server.getRequestCount("operation-history"));
+    }
+
+    @Test
+    public void testNextPageIsFetchedWhileCurrentIsProcessed() throws Exception {
+        server.respond("operation-history", new StubOperationHistory(30));
+        OperationHistoryPager pager = new OperationHistoryPager(facade, "token", OperationHistoryQuery.all().withPageSize(10));
+
+        try (PrefetchingPageIterator pages = pager.prefetchingPages(executor, 1)) {
+            OperationHistoryResponse first = pages.next();
+
+            assertEquals("30", first.getOperations().get(0).getOperationId());
+            waitForRequests(2);
+        }
+    }
+
+    @Test
+    public void testPrefetchIsBounded() throws Exception {
+        server.respond("operation-history", new StubOperationHistory(1000));
+        OperationHistoryPager pager = new OperationHistoryPager(facade, "token", OperationHistoryQuery.all().withPageSize(10));
+
+        PrefetchingPageIterator pages = pager.prefetchingPages(executor, 2);
+        waitForRequests(3);
+        Thread.sleep(300);
+        pages.close();
+
+        // две страницы в очереди и одна, ожидающая места в очереди
+        assertEquals(3, server.getRequestCount("operation-history"));
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    public void testErrorIsRethrown() {
+        server.respond("operation-history", 200, "{\"error\":\"illegal_param_records\"}");
+        OperationHistoryPager pager = new OperationHistoryPager(facade, "token", OperationHistoryQuery.all());
+
+        try (PrefetchingPageIterator pages = pager.prefetchingPages(executor, 1)) {
+            pages.hasNext();
+            fail("exception expected");
+        } catch (OperationHistoryException e) {
+            assertNotNull(e.getError());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testErrorDoesNotBlockConsumer() {
+        OperationHistoryPager pager = new OperationHistoryPager(facade, "token", OperationHistoryQuery.all()) {
+            @Override
+            protected OperationHistoryResponse fetchPage(Integer startRecord) {
+                throw new StackOverflowError();
+            }
+        };
+
+        try (PrefetchingPageIterator pages = pager.prefetchingPages(executor, 1)) {
+            pages.hasNext();
+            fail("error expected");
+        } catch (StackOverflowError expected) {
+        }
+    }
+
+    private void waitForRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getRequestCount("operation-history") < count) {
+            assertTrue("expected " + count + " requests", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.money.api.history;
+
+import ru.yandex.money.api.StubApiServer;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Ответы на operation-history для {@link StubApiServer}: история из <code>count</code> операций
+ * с идентификаторами <code>count..1</code> в обратном хронологическом порядке,
+ * по умолчанию по одной операции в минуту. Поддерживает параметры start_record, records, from и till.
+ * Запоминает наибольшее число одновременных запросов.
+ */
+class StubOperationHistory implements StubApiServer.Responder {
+
+    static final long START = 1381500000000L;
+    static final long STEP = 60000L;
+
+    private volatile int count;
+    private final long step;
+    private final boolean inclusiveTill;
+    private volatile boolean omitEmptyOperations;
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    StubOperationHistory(int count) {
+        this(count, STEP, false);
+    }
+
+    /**
+     * @param step          интервал между операциями, в миллисекундах
+     * @param inclusiveTill выдавать операции с датой, равной till. Так операции на границе
+     *                      соседних периодов попадают в оба периода
+     */
+    StubOperationHistory(int count, long step, boolean inclusiveTill) {
+        this.count = count;
+        this.step = step;
+        this.inclusiveTill = inclusiveTill;
+    }
+
+    /**
+     * Добавляет в историю новые операции
+     */
+    void setCount(int count) {
+        this.count = count;
+    }
+
+    /**
+     * Не выдавать поле operations в ответе без операций
+     */
+    void setOmitEmptyOperations(boolean omitEmptyOperations) {
+        this.omitEmptyOperations = omitEmptyOperations;
+    }
+
+    int getMaxConcurrent() {
+        return maxConcurrent.get();
+    }
+
+    /**
+     * @return дата операции с идентификатором <code>id</code>
+     */
+    static Date datetime(int id) {
+        return new Date(START + id * STEP);
+    }
+
+    private Date datetimeOf(int id) {
+        return new Date(START + id * step);
+    }
+
+    @Override
+    public StubApiServer.Response answer(StubApiServer.Request request) throws Exception {
+        int current = concurrent.incrementAndGet();
+        try {
+            maxConcurrent.accumulateAndGet(current, new IntBinaryOperator() {
+                @Override
+                public int applyAsInt(int left, int right) {
+                    return Math.max(left, right);
+                }
+            });
+            // небольшая задержка, чтобы одновременные запросы пересекались
+            Thread.sleep(5);
+            return answerPage(request);
+        } finally {
+            concurrent.decrementAndGet();
+        }
+    }
+
+    private StubApiServer.Response answerPage(StubApiServer.Request request) throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+        Date from = request.params.containsKey("from") ? format.parse(request.params.get("from")) : null;
+        Date till = request.params.containsKey("till") ? format.parse(request.params.get("till")) : null;
+        int start = request.params.containsKey("start_record") ? Integer.parseInt(request.params.get("start_record")) : 0;
+        int records = request.params.containsKey("records") ? Integer.parseInt(request.params.get("records")) : 30;
+
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int id = count; id >= 1; id--) {
+            Date datetime = datetimeOf(id);
+            if ((from == null || !datetime.before(from)) && (till == null || datetime.before(till) || inclusiveTill && datetime.equals(till))) {
+                ids.add(id);
+            }
+        }
+
+        SimpleDateFormat rfc3339 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+        rfc3339.setTimeZone(TimeZone.getTimeZone("Europe/Moscow"));
+        StringBuilder body = new StringBuilder("{");
+        int end = Math.min(start + records, ids.size());
+        if (end < ids.size()) {
+            body.append("\"next_record\":\"").append(end).append("\",");
+        }
+        if (start >= end && omitEmptyOperations) {
+            return new StubApiServer.Response(200, "{}");
+        }
+        body.append("\"operations\":[");
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                body.append(',');
+            }
+            int id = ids.get(i);
+            body.append("{\"operation_id\":\"").append(id)
+                    .append("\",\"status\":\"success\",\"direction\":\"in\",\"amount\":").append(id)
+                    .append(",\"datetime\":\"").append(rfc3339.format(datetimeOf(id)))
+                    .append("\",\"title\":\"Операция ").append(id).append("\"}");
+        }
+        body.append("]}");
+        return new StubApiServer.Response(200, body.toString());
+    }
+}
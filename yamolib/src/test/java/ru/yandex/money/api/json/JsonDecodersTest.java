@@ -0,0 +1,97 @@
+package ru.yandex.money.api.json;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.AsyncApiCommandsFacade;
+import ru.yandex.money.api.TokenRequester;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.FundraisingStatsResponse;
+import ru.yandex.money.api.response.OperationDetailResponse;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+import ru.yandex.money.api.response.ReceiveOAuthTokenResponse;
+import ru.yandex.money.api.response.RequestPaymentResponse;
+
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static ru.yandex.money.api.json.ReflectionAssert.assertSameFields;
+
+public class JsonDecodersTest {
+
+    private final Gson reflectiveGson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .registerTypeAdapter(Date.class, new Rfc3339DateAdapter())
+            .create();
+
+    @Test
+    public void testEveryResponseTypeHasDecoder() {
+        for (Class<?> api : new Class<?>[]{ApiCommandsFacade.class, AsyncApiCommandsFacade.class, TokenRequester.class}) {
+            for (Method method : api.getMethods()) {
+                Type type = method.getGenericReturnType();
+                if (type instanceof ParameterizedType) {
+                    type = ((ParameterizedType) type).getActualTypeArguments()[0];
+                }
+                if (type instanceof Class && ((Class<?>) type).getName().startsWith("ru.yandex.money.api.response")) {
+                    assertNotNull(api.getSimpleName() + "." + method.getName() + ": " + type,
+                            JsonDecoders.get((Class<?>) type));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultAsReflection() throws Exception {
+        assertSameAsReflection(ResponseSamples.ACCOUNT_INFO, AccountInfoResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_HISTORY, OperationHistoryResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_HISTORY_ERROR, OperationHistoryResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_DETAIL, OperationDetailResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_DETAIL_ERROR, OperationDetailResponse.class);
+        assertSameAsReflection(ResponseSamples.REQUEST_PAYMENT, RequestPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.REQUEST_PAYMENT_ERROR, RequestPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.PROCESS_PAYMENT, ProcessPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.PROCESS_PAYMENT_ERROR, ProcessPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.FUNDRAISING_STATS, FundraisingStatsResponse.class);
+        assertSameAsReflection(ResponseSamples.RECEIVE_TOKEN, ReceiveOAuthTokenResponse.class);
+        assertSameAsReflection(ResponseSamples.RECEIVE_TOKEN_ERROR, ReceiveOAuthTokenResponse.class);
+    }
+
+    @Test
+    public void testEmptyDocument() {
+        assertNull(JsonDecoders.decode(new StringReader(""), AccountInfoResponse.class));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testTruncatedDocument() {
+        JsonDecoders.decode(new StringReader("{\"account\":\"41001"), AccountInfoResponse.class);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testTrailingContent() {
+        JsonDecoders.decode(new StringReader("{\"account\":\"41001\"} {}"), AccountInfoResponse.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnknownTypeFallsBackToGson() {
+        Map<String, String> result = JsonDecoders.decode(new StringReader("{\"a\":\"b\"}"), Map.class);
+
+        assertEquals("b", result.get("a"));
+    }
+
+    private <T> void assertSameAsReflection(String json, Class<T> classOfT) throws Exception {
+        T expected = reflectiveGson.fromJson(json, classOfT);
+        T actual = JsonDecoders.decode(new StringReader(json), classOfT);
+        assertSameFields(expected, actual);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.money.api.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Сравнение response-объектов поле за полем
+ */
+final class ReflectionAssert {
+
+    private ReflectionAssert() {
+    }
+
+    static void assertSameFields(Object expected, Object actual) throws IllegalAccessException {
+        assertSameFields("", expected, actual);
+    }
+
+    private static void assertSameFields(String path, Object expected, Object actual) throws IllegalAccessException {
+        if (expected == null) {
+            assertNull(path, actual);
+            return;
+        }
+        assertNotNull(path, actual);
+        if (expected instanceof Map) {
+            assertEquals(path, expected, actual);
+            return;
+        }
+        assertEquals(path, expected.getClass(), actual.getClass());
+        if (isValue(expected)) {
+            assertEquals(path, expected, actual);
+            return;
+        }
+        if (expected instanceof List) {
+            List<?> expectedList = (List<?>) expected;
+            List<?> actualList = (List<?>) actual;
+            assertEquals(path, expectedList.size(), actualList.size());
+            for (int i = 0; i < expectedList.size(); i++) {
+                assertSameFields(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+            }
+            return;
+        }
+        for (Class<?> type = expected.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                assertSameFields(path + "." + field.getName(), field.get(expected), field.get(actual));
+            }
+        }
+    }
+
+    private static boolean isValue(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Date || value instanceof Enum || value instanceof BigDecimal;
+    }
+}
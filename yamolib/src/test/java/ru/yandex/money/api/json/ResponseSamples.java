@@ -0,0 +1,55 @@
+package ru.yandex.money.api.json;
+
+/**
+ * Примеры ответов API для тестов разбора json
+ */
+final class ResponseSamples {
+
+    static final String ACCOUNT_INFO = "{\"account\":\"4100175017397\",\"balance\":1234.56,\"currency\":\"643\"," +
+            "\"identified\":true,\"account_type\":\"professional\",\"balance_details\":{\"total\":1234.56}}";
+
+    static final String OPERATION = "{\"operation_id\":\"1234567\",\"pattern_id\":\"p2p\",\"status\":\"success\"," +
+            "\"direction\":\"out\",\"amount\":\"500.25\",\"datetime\":\"2013-10-11T19:00:00.000Z\"," +
+            "\"title\":\"Перевод на счет 4100123456789\",\"sender\":\"4100175017397\",\"recipient\":\"4100123456789\"," +
+            "\"recipient_type\":\"account\",\"message\":\"Привет\",\"codepro\":false,\"details\":\"Детали \\\"платежа\\\"\"," +
+            "\"label\":\"order-1\",\"type\":\"outgoing-transfer\"}";
+
+    static final String OPERATION_HISTORY = "{\"next_record\":\"3\",\"operations\":[" + OPERATION + "," +
+            "{\"operation_id\":\"1234568\",\"status\":\"in_progress\",\"direction\":\"in\",\"amount\":10," +
+            "\"datetime\":\"2013-10-12T08:30:00Z\",\"title\":\"Пополнение\",\"codepro\":\"true\"}]}";
+
+    static final String OPERATION_HISTORY_ERROR = "{\"error\":\"illegal_param_type\"}";
+
+    static final String OPERATION_DETAIL = OPERATION;
+
+    static final String OPERATION_DETAIL_ERROR = "{\"error\":\"illegal_param_operation_id\"}";
+
+    static final String REQUEST_PAYMENT = "{\"status\":\"success\",\"request_id\":\"3931303833373438395f34343\"," +
+            "\"contract\":\"Оплата услуг\",\"balance\":1000.00,\"recipient_identified\":false," +
+            "\"recipient_account_type\":\"personal\",\"test_payment\":\"true\"," +
+            "\"contract_details\":{\"FIO\":\"Иванов\",\"sum\":100}," +
+            "\"money_source\":{\"wallet\":{\"allowed\":true}," +
+            "\"card\":{\"allowed\":\"true\",\"csc_required\":false,\"pan_fragment\":\"5280****7918\",\"type\":\"MasterCard\"}}}";
+
+    static final String REQUEST_PAYMENT_ERROR = "{\"status\":\"refused\",\"error\":\"ext_action_required\"," +
+            "\"error_description\":\"Нужно подтвердить платеж\",\"ext_action_uri\":\"https://money.yandex.ru/ext\"}";
+
+    static final String PROCESS_PAYMENT = "{\"status\":\"success\",\"payment_id\":\"2ABCDE123456789\"," +
+            "\"balance\":1000.00,\"payer\":\"4100175017397\",\"payee\":\"4100123456789\",\"credit_amount\":99.5," +
+            "\"invoice_id\":\"2000000123\",\"test_payment\":false}";
+
+    static final String PROCESS_PAYMENT_ERROR = "{\"status\":\"refused\",\"error\":\"not_enough_funds\"," +
+            "\"error_description\":\"Недостаточно средств\",\"status_details\":[1,2,{\"a\":null}]}";
+
+    static final String PROCESS_PAYMENT_IN_PROGRESS = "{\"status\":\"in_progress\",\"next_retry\":5000}";
+
+    static final String FUNDRAISING_STATS = "{\"sum\":1500.5,\"count\":12," +
+            "\"first_ts\":\"2013-10-01T10:00:00.000Z\",\"last_ts\":\"2013-10-11T19:00:00.000Z\"}";
+
+    static final String RECEIVE_TOKEN = "{\"access_token\":\"410012345678901.0123456789ABCDEF\"}";
+
+    static final String RECEIVE_TOKEN_ERROR = "{\"error\":\"invalid_grant\"}";
+
+    private ResponseSamples() {
+    }
+}
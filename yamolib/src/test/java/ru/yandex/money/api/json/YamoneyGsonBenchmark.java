@@ -0,0 +1,87 @@
+package ru.yandex.money.api.json;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Ignore;
+import org.junit.Test;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+import ru.yandex.money.api.response.RequestPaymentResponse;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+
+/**
+ * Сравнение разбора ответов: новый {@link Gson} на каждый ответ
+ * (как было в {@link ru.yandex.money.api.YamoneyApiClient}), общий {@link YamoneyGson}
+ * и прямой вызов декодеров из {@link JsonDecoders}.
+ * Печатает среднее время и объем выделенной памяти на один разбор.
+ */
+@Ignore("Для ручного запуска")
+public class YamoneyGsonBenchmark {
+
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void compare() {
+        run("account-info", ResponseSamples.ACCOUNT_INFO, AccountInfoResponse.class);
+        run("operation-history", ResponseSamples.OPERATION_HISTORY, OperationHistoryResponse.class);
+        run("request-payment", ResponseSamples.REQUEST_PAYMENT, RequestPaymentResponse.class);
+        run("process-payment", ResponseSamples.PROCESS_PAYMENT, ProcessPaymentResponse.class);
+    }
+
+    private <T> void run(String name, final String json, final Class<T> classOfT) {
+        Decoder perCall = new Decoder() {
+            @Override
+            public Object decode() {
+                // без адаптера дат старый вариант не разбирает даты из ответов API
+                Gson gson = new GsonBuilder().setFieldNamingPolicy(
+                        FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                        .registerTypeAdapter(Date.class, new Rfc3339DateAdapter())
+                        .create();
+                return gson.fromJson(json, classOfT);
+            }
+        };
+        Decoder shared = new Decoder() {
+            @Override
+            public Object decode() {
+                return YamoneyGson.get().fromJson(json, classOfT);
+            }
+        };
+        Decoder direct = new Decoder() {
+            @Override
+            public Object decode() {
+                return JsonDecoders.decode(new StringReader(json), classOfT);
+            }
+        };
+        System.out.println(name + ", new Gson per call: " + measure(perCall));
+        System.out.println(name + ", shared YamoneyGson: " + measure(shared));
+        System.out.println(name + ", JsonDecoders: " + measure(direct));
+    }
+
+    private String measure(Decoder decoder) {
+        for (int i = 0; i < WARMUP; i++) {
+            decoder.decode();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decoder.decode();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return String.format("%.2f us/op, %d bytes/op", nanos / 1000.0 / ITERATIONS, bytes / ITERATIONS);
+    }
+
+    private interface Decoder {
+        Object decode();
+    }
+}
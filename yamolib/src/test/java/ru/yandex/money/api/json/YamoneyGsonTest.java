@@ -0,0 +1,119 @@
+package ru.yandex.money.api.json;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+import ru.yandex.money.api.enums.MoneyDirection;
+import ru.yandex.money.api.enums.Status;
+import ru.yandex.money.api.response.AccountInfoResponse;
+import ru.yandex.money.api.response.FundraisingStatsResponse;
+import ru.yandex.money.api.response.OperationDetailResponse;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+import ru.yandex.money.api.response.ReceiveOAuthTokenResponse;
+import ru.yandex.money.api.response.RequestPaymentResponse;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.response.util.ProcessPaymentError;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+import static ru.yandex.money.api.json.ReflectionAssert.assertSameFields;
+
+public class YamoneyGsonTest {
+
+    /**
+     * Разбор только через рефлексию, как до появления адаптеров
+     */
+    private final Gson reflectiveGson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .registerTypeAdapter(Date.class, new Rfc3339DateAdapter())
+            .create();
+
+    @Test
+    public void testSameResultAsReflection() throws Exception {
+        assertSameAsReflection(ResponseSamples.ACCOUNT_INFO, AccountInfoResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_HISTORY, OperationHistoryResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_HISTORY_ERROR, OperationHistoryResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_DETAIL, OperationDetailResponse.class);
+        assertSameAsReflection(ResponseSamples.OPERATION_DETAIL_ERROR, OperationDetailResponse.class);
+        assertSameAsReflection(ResponseSamples.REQUEST_PAYMENT, RequestPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.REQUEST_PAYMENT_ERROR, RequestPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.PROCESS_PAYMENT, ProcessPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.PROCESS_PAYMENT_ERROR, ProcessPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.PROCESS_PAYMENT_IN_PROGRESS, ProcessPaymentResponse.class);
+        assertSameAsReflection(ResponseSamples.FUNDRAISING_STATS, FundraisingStatsResponse.class);
+        assertSameAsReflection(ResponseSamples.RECEIVE_TOKEN, ReceiveOAuthTokenResponse.class);
+        assertSameAsReflection(ResponseSamples.RECEIVE_TOKEN_ERROR, ReceiveOAuthTokenResponse.class);
+    }
+
+    @Test
+    public void testOperationHistory() {
+        OperationHistoryResponse response = YamoneyGson.get().fromJson(
+                ResponseSamples.OPERATION_HISTORY, OperationHistoryResponse.class);
+
+        assertTrue(response.isSuccess());
+        assertEquals(Integer.valueOf(3), response.getNextRecord());
+        assertEquals(2, response.getOperations().size());
+
+        Operation operation = response.getOperations().get(0);
+        assertEquals("1234567", operation.getOperationId());
+        assertEquals(MoneyDirection.out, operation.getDirection());
+        assertEquals(new BigDecimal("500.25"), operation.getAmount());
+        assertEquals(1381518000000L, operation.getDatetime().getTime());
+        assertEquals("Детали \"платежа\"", operation.getDetails());
+        assertEquals(Boolean.TRUE, response.getOperations().get(1).getCodepro());
+    }
+
+    @Test
+    public void testRequestPayment() {
+        RequestPaymentResponse response = YamoneyGson.get().fromJson(
+                ResponseSamples.REQUEST_PAYMENT, RequestPaymentResponse.class);
+
+        assertEquals(Status.success, response.getStatus());
+        assertTrue(response.getMoneySource().getWallet().getAllowed());
+        assertFalse(response.getMoneySource().getCard().isCscRequired());
+        assertEquals("5280****7918", response.getMoneySource().getCard().getPanFragment());
+        assertEquals("100", response.getContractDetails().get("sum"));
+        assertEquals(Boolean.TRUE, response.isTestPayment());
+    }
+
+    @Test
+    public void testProcessPaymentError() {
+        ProcessPaymentResponse response = YamoneyGson.get().fromJson(
+                ResponseSamples.PROCESS_PAYMENT_ERROR, ProcessPaymentResponse.class);
+
+        assertFalse(response.isSuccess());
+        assertEquals(ProcessPaymentError.NOT_ENOUGH_FUNDS, response.getError());
+    }
+
+    @Test
+    public void testDateWithOffset() {
+        FundraisingStatsResponse response = YamoneyGson.get().fromJson(
+                "{\"first_ts\":\"2013-10-11T23:00:00.000+04:00\"}", FundraisingStatsResponse.class);
+
+        assertEquals(1381518000000L, response.getFirstTs().getTime());
+    }
+
+    @Test
+    public void testUnknownEnumValue() {
+        ProcessPaymentResponse response = YamoneyGson.get().fromJson(
+                "{\"status\":\"hold_for_pickup\"}", ProcessPaymentResponse.class);
+
+        assertNull(response.getStatus());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testInvalidNumber() {
+        YamoneyGson.get().fromJson("{\"balance\":\"много\"}", AccountInfoResponse.class);
+    }
+
+    private <T> void assertSameAsReflection(String json, Class<T> classOfT) throws Exception {
+        T expected = reflectiveGson.fromJson(json, classOfT);
+        T actual = YamoneyGson.get().fromJson(json, classOfT);
+        assertSameFields(expected, actual);
+    }
+}
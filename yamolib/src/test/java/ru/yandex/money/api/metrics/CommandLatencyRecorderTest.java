@@ -0,0 +1,138 @@
+package ru.yandex.money.api.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacade;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.ApiMetricsListener;
+import ru.yandex.money.api.ApiRateLimiter;
+import ru.yandex.money.api.CommandMetrics;
+import ru.yandex.money.api.InvalidTokenException;
+import ru.yandex.money.api.RateLimitExceededException;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyApiClient;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CommandLatencyRecorderTest {
+
+    private static final String ACCOUNT_INFO = "{\"account\":\"4100175017397\",\"balance\":1.00,\"currency\":\"643\"}";
+
+    private StubApiServer server;
+    private YamoneyApiClient<?, ?> client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        client = new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testCommandMetrics() throws Exception {
+        server.respond("account-info", 200, ACCOUNT_INFO);
+        server.respond("operation-details", 401, "");
+        final List<CommandMetrics> metrics = new ArrayList<CommandMetrics>();
+        client.setMetricsListener(new ApiMetricsListener() {
+            @Override
+            public void onCommand(CommandMetrics command) {
+                metrics.add(command);
+            }
+        });
+        ApiCommandsFacade facade = new ApiCommandsFacadeImpl(client, server.getUrl());
+
+        facade.accountInfo("token");
+        try {
+            facade.operationDetail("token", "1");
+            fail("exception expected");
+        } catch (InvalidTokenException expected) {
+        }
+
+        assertEquals(2, metrics.size());
+        CommandMetrics accountInfo = metrics.get(0);
+        assertEquals("account-info", accountInfo.getCommandName());
+        assertEquals(200, accountInfo.getHttpStatus());
+        assertEquals(ACCOUNT_INFO.length(), accountInfo.getBytesRead());
+        assertNull(accountInfo.getErrorType());
+        assertTrue(accountInfo.getLatency(TimeUnit.NANOSECONDS) >= accountInfo.getResponseTime(TimeUnit.NANOSECONDS));
+        assertTrue(accountInfo.getResponseTime(TimeUnit.NANOSECONDS) > 0);
+
+        CommandMetrics operationDetail = metrics.get(1);
+        assertEquals(401, operationDetail.getHttpStatus());
+        assertEquals(InvalidTokenException.class, operationDetail.getErrorType());
+        assertTrue(operationDetail.isSent());
+    }
+
+    @Test
+    public void testRecorder() throws Exception {
+        server.respond("account-info", 200, ACCOUNT_INFO);
+        CommandLatencyRecorder recorder = new CommandLatencyRecorder();
+        client.setMetricsListener(recorder);
+        client.setRateLimiter(ApiRateLimiter.builder()
+                .perCommand("account-info", 0.001, 3)
+                .mode(ApiRateLimiter.Mode.FAIL_FAST)
+                .build());
+        ApiCommandsFacade facade = new ApiCommandsFacadeImpl(client, server.getUrl());
+
+        for (int i = 0; i < 5; i++) {
+            try {
+                facade.accountInfo("token");
+            } catch (RateLimitExceededException expected) {
+            }
+        }
+
+        LatencySnapshot snapshot = recorder.snapshot("account-info");
+        assertEquals(5, snapshot.getCount());
+        assertEquals(2, snapshot.getErrorCount());
+        assertEquals(2, snapshot.getRejectedCount());
+        assertEquals(3 * ACCOUNT_INFO.length(), snapshot.getBytesRead());
+        assertTrue(snapshot.getP50(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(snapshot.getP999(TimeUnit.NANOSECONDS) <= snapshot.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(1, recorder.snapshots().size());
+        assertNull(recorder.snapshot("operation-details"));
+
+        recorder.reset();
+        assertTrue(recorder.snapshots().isEmpty());
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        LatencySnapshot snapshot = new LatencySnapshot("account-info", 10000, 0, 0, 0, histogram);
+
+        assertEquals(5000, snapshot.getP50(TimeUnit.MICROSECONDS), 50);
+        assertEquals(9900, snapshot.getP99(TimeUnit.MICROSECONDS), 99);
+        assertEquals(9990, snapshot.getP999(TimeUnit.MICROSECONDS), 100);
+        assertEquals(10000, snapshot.getMax(TimeUnit.MICROSECONDS));
+        assertEquals(5000, snapshot.getMean(TimeUnit.MICROSECONDS), 1);
+        assertEquals(10000, snapshot.getPercentile(100, TimeUnit.MICROSECONDS));
+    }
+
+    @Test
+    public void testBucketPrecision() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() >>> (21 + random.nextInt(43));
+            int index = LatencyHistogram.index(value);
+            long highest = LatencyHistogram.highestValue(index);
+            assertTrue(value + " -> " + highest, highest >= value);
+            assertTrue(value + " -> " + highest, highest - value <= value / 128);
+            assertEquals(index, LatencyHistogram.index(highest));
+        }
+    }
+}
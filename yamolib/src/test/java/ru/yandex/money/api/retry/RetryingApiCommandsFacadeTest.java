@@ -0,0 +1,153 @@
+package ru.yandex.money.api.retry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.ApiCommandsFacadeImpl;
+import ru.yandex.money.api.InternalServerErrorException;
+import ru.yandex.money.api.StubApiServer;
+import ru.yandex.money.api.YamoneyJdkHttpApiClient;
+import ru.yandex.money.api.enums.Status;
+import ru.yandex.money.api.response.ProcessPaymentResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RetryingApiCommandsFacadeTest {
+
+    private StubApiServer server;
+    private ApiCommandsFacadeImpl facade;
+    private final List<Long> sleeps = new ArrayList<Long>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        facade = new ApiCommandsFacadeImpl(
+                new YamoneyJdkHttpApiClient(YamoneyJdkHttpApiClient.createHttpClient(), 4000), server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    private RetryingApiCommandsFacade retrying(RetryPolicy policy, RetryBudget budget) {
+        return new RetryingApiCommandsFacade(facade, policy, budget) {
+            @Override
+            void sleep(long millis) {
+                sleeps.add(millis);
+            }
+        };
+    }
+
+    @Test
+    public void testReadOnlyCommandIsRetriedWithBackoff() throws Exception {
+        server.respond("account-info", failing(2, "{\"account\":\"4100175017397\"}"));
+
+        String account = retrying(RetryPolicy.defaults().withJitter(0), new RetryBudget(0.1, 10))
+                .accountInfo("token").getAccount();
+
+        assertEquals("4100175017397", account);
+        assertEquals(3, server.getRequestCount("account-info"));
+        assertEquals(2, sleeps.size());
+        assertEquals(200L, (long) sleeps.get(0));
+        assertEquals(400L, (long) sleeps.get(1));
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        server.respond("operation-details", 500, "");
+
+        try {
+            retrying(RetryPolicy.defaults().withMaxAttempts(2), new RetryBudget(0.1, 10)).operationDetail("token", "1");
+            fail("exception expected");
+        } catch (InternalServerErrorException expected) {
+        }
+        assertEquals(2, server.getRequestCount("operation-details"));
+    }
+
+    @Test
+    public void testBudgetLimitsRetries() throws Exception {
+        server.respond("account-info", 500, "");
+        RetryingApiCommandsFacade retrying = retrying(RetryPolicy.defaults(), new RetryBudget(0, 1));
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                retrying.accountInfo("token");
+                fail("exception expected");
+            } catch (InternalServerErrorException expected) {
+            }
+        }
+        assertEquals(4, server.getRequestCount("account-info"));
+    }
+
+    @Test
+    public void testPaymentIsRepeatedWithSameRequestId() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        server.respond("process-payment", new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) {
+                switch (calls.incrementAndGet()) {
+                    case 1:
+                        return new StubApiServer.Response(500, "");
+                    case 2:
+                        return new StubApiServer.Response(200, "{\"status\":\"in_progress\",\"next_retry\":1234}");
+                    default:
+                        return new StubApiServer.Response(200, "{\"status\":\"success\",\"payment_id\":\"p1\"}");
+                }
+            }
+        });
+
+        ProcessPaymentResponse response = retrying(RetryPolicy.defaults(), new RetryBudget(0.1, 10))
+                .processPaymentByWallet("token", "request-1");
+
+        assertEquals(Status.success, response.getStatus());
+        assertEquals("p1", response.getPaymentId());
+        assertEquals(3, server.getRequestCount("process-payment"));
+        for (StubApiServer.Request request : server.getRequests()) {
+            assertEquals("request-1", request.params.get("request_id"));
+        }
+        assertEquals(1234L, (long) sleeps.get(1));
+    }
+
+    @Test
+    public void testInProgressAttemptsAreLimited() throws Exception {
+        server.respond("process-payment", 200, "{\"status\":\"in_progress\",\"next_retry\":10}");
+
+        ProcessPaymentResponse response = retrying(RetryPolicy.defaults().withInProgressAttempts(4),
+                new RetryBudget(0, 1)).processPaymentByCard("token", "request-1", "123");
+
+        assertEquals(Status.in_progress, response.getStatus());
+        assertEquals(Long.valueOf(10), response.getNextRetry());
+        assertEquals(4, server.getRequestCount("process-payment"));
+    }
+
+    @Test
+    public void testRequestPaymentIsNotRetried() throws Exception {
+        server.respond("request-payment", 500, "");
+
+        try {
+            retrying(RetryPolicy.defaults(), new RetryBudget(0.1, 10))
+                    .requestPaymentToPhone("token", "79000000000", BigDecimal.TEN);
+            fail("exception expected");
+        } catch (InternalServerErrorException expected) {
+        }
+        assertEquals(1, server.getRequestCount("request-payment"));
+    }
+
+    private static StubApiServer.Responder failing(final int failures, final String body) {
+        final AtomicInteger calls = new AtomicInteger();
+        return new StubApiServer.Responder() {
+            @Override
+            public StubApiServer.Response answer(StubApiServer.Request request) {
+                return calls.incrementAndGet() <= failures
+                        ? new StubApiServer.Response(500, "")
+                        : new StubApiServer.Response(200, body);
+            }
+        };
+    }
+}
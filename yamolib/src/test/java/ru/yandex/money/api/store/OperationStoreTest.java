@@ -0,0 +1,182 @@
+package ru.yandex.money.api.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.yandex.money.api.enums.MoneyDirection;
+import ru.yandex.money.api.json.YamoneyGson;
+import ru.yandex.money.api.response.util.Operation;
+import ru.yandex.money.api.rights.IdentifierType;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OperationStoreTest {
+
+    private static final long START = 1381500000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private OperationStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("store");
+        store = OperationStore.open(directory);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Operation operation = YamoneyGson.get().fromJson("{\"operation_id\":\"1\",\"pattern_id\":\"p2p\"," +
+                "\"status\":\"in_progress\",\"direction\":\"out\",\"amount\":\"-1234.50\"," +
+                "\"datetime\":\"2013-10-11T23:00:00.000+04:00\",\"title\":\"Перевод\",\"sender\":\"41001\"," +
+                "\"recipient\":\"41002\",\"recipient_type\":\"account\",\"message\":\"Привет\",\"codepro\":true," +
+                "\"details\":\"детали\",\"label\":\"order-1\"}", Operation.class);
+        store.append(operation);
+
+        Operation stored = store.get("1");
+
+        assertEquals(operation.toString(), stored.toString());
+        assertEquals(new BigDecimal("-1234.50"), stored.getAmount());
+        assertEquals(Operation.Status.in_progress, stored.getStatus());
+        assertEquals(MoneyDirection.out, stored.getDirection());
+        assertEquals(IdentifierType.account, stored.getRecipientType());
+        assertEquals("детали", stored.getDetails());
+        assertNull(store.get("2"));
+    }
+
+    @Test
+    public void testQueries() throws Exception {
+        for (int id = 1; id <= 100; id++) {
+            store.append(operation(id, id % 2 == 0 ? "even" : "odd", "success"));
+        }
+
+        List<Operation> even = store.findByLabel("even");
+        assertEquals(50, even.size());
+        assertEquals("100", even.get(0).getOperationId());
+        assertEquals("2", even.get(49).getOperationId());
+
+        List<Operation> period = store.findByDatetime(datetime(10), datetime(20));
+        assertEquals(10, period.size());
+        assertEquals("19", period.get(0).getOperationId());
+        assertEquals("10", period.get(9).getOperationId());
+
+        assertTrue(store.findByLabel("none").isEmpty());
+    }
+
+    @Test
+    public void testLatestRecordWins() throws Exception {
+        store.append(operation(1, "order", "in_progress"));
+        store.append(operation(2, "order", "success"));
+        store.append(operation(1, "order", "success"));
+
+        assertEquals(2, store.size());
+        assertEquals(Operation.Status.success, store.get("1").getStatus());
+        assertEquals(2, store.findByLabel("order").size());
+        assertEquals(2, store.findByDatetime(datetime(0), datetime(3)).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testDirectoryIsLocked() throws Exception {
+        OperationStore.open(directory);
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        for (int id = 1; id <= 3000; id++) {
+            store.append(operation(id, "label-" + id % 10, "success"));
+        }
+        store.append(operation(5, "label-5", "refused"));
+        store.close();
+
+        store = OperationStore.open(directory);
+
+        assertEquals(3000, store.size());
+        assertEquals("2999", store.get("2999").getOperationId());
+        assertEquals(Operation.Status.refused, store.get("5").getStatus());
+        assertEquals(300, store.findByLabel("label-7").size());
+        List<Operation> period = store.findByDatetime(datetime(1), datetime(11));
+        assertEquals(10, period.size());
+        assertEquals("10", period.get(0).getOperationId());
+        assertEquals(Operation.Status.refused, period.get(5).getStatus());
+        assertEquals(3000, store.findByDatetime(datetime(0), datetime(3001)).size());
+    }
+
+    @Test
+    public void testRecoveryAfterCrash() throws Exception {
+        store.append(operation(1, "order", "success"));
+        store.flush();
+        byte[] staleIndex = Files.readAllBytes(new File(directory, OperationStore.INDEX_FILE).toPath());
+        store.append(operation(2, "order", "success"));
+        store.close();
+
+        // индекс не успел обновиться после второй записи, а третья запись дописана не до конца
+        Files.write(new File(directory, OperationStore.INDEX_FILE).toPath(), staleIndex);
+        File log = new File(directory, OperationStore.LOG_FILE);
+        long validLength = log.length();
+        FileOutputStream outputStream = new FileOutputStream(log, true);
+        outputStream.write(new byte[]{0, 0, 0, 100, 1, 2, 3});
+        outputStream.close();
+
+        store = OperationStore.open(directory);
+
+        assertEquals(2, store.size());
+        assertEquals("2", store.get("2").getOperationId());
+        assertEquals(validLength, log.length());
+        store.append(operation(3, "order", "success"));
+        assertEquals(3, store.findByLabel("order").size());
+    }
+
+    @Test
+    public void testIndexAheadOfLog() throws Exception {
+        for (int id = 1; id <= 10; id++) {
+            store.append(operation(id, "order", "success"));
+        }
+        store.close();
+
+        // после сбоя системы на диске оказался индекс, а конец журнала потерян
+        File log = new File(directory, OperationStore.LOG_FILE);
+        RandomAccessFile file = new RandomAccessFile(log, "rw");
+        file.setLength(file.length() * 3 / 4);
+        file.close();
+
+        store = OperationStore.open(directory);
+
+        int size = store.size();
+        assertTrue(size > 0 && size < 10);
+        assertNull(store.get("10"));
+        assertEquals(size, store.findByLabel("order").size());
+        assertEquals(size, store.findByDatetime(datetime(0), datetime(11)).size());
+        store.append(operation(10, "order", "success"));
+        assertEquals(size + 1, store.findByLabel("order").size());
+    }
+
+    private static Operation operation(int id, String label, String status) {
+        return YamoneyGson.get().fromJson("{\"operation_id\":\"" + id + "\",\"status\":\"" + status + "\"," +
+                "\"amount\":" + id + ".10,\"datetime\":\"" + new SimpleDateFormat(
+                "yyyy-MM-dd'T'HH:mm:ss.SSSXXX").format(datetime(id)) + "\",\"label\":\"" + label + "\"}",
+                Operation.class);
+    }
+
+    private static Date datetime(int id) {
+        return new Date(START + id * 60000L);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.money.api.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.enums.MoneyDirection;
+import ru.yandex.money.api.json.YamoneyGson;
+import ru.yandex.money.api.response.util.Operation;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class OperationTableTest {
+
+    private static final long START = 1381500000000L;
+
+    private OperationTable table;
+
+    @Before
+    public void setUp() {
+        table = new OperationTable(16);
+        for (int id = 1; id <= 1000; id++) {
+            table.add(YamoneyGson.get().fromJson("{\"operation_id\":\"" + id + "\"," +
+                    "\"pattern_id\":\"" + (id % 3 == 0 ? "p2p" : "shop-" + id % 2) + "\"," +
+                    "\"status\":\"" + (id % 10 == 0 ? "refused" : "success") + "\"," +
+                    "\"direction\":\"" + (id % 2 == 0 ? "in" : "out") + "\"," +
+                    "\"amount\":\"" + id + ".25\"," +
+                    "\"datetime\":\"2013-10-11T14:00:00.000Z\"," +
+                    "\"title\":\"Магазин " + id % 5 + "\"," +
+                    "\"label\":\"" + (id <= 10 ? "first" : "rest") + "\"}", Operation.class));
+        }
+    }
+
+    @Test
+    public void testOperationView() {
+        Operation operation = table.get(41);
+
+        assertEquals("42", operation.getOperationId());
+        assertEquals("p2p", operation.getPatternId());
+        assertEquals(new BigDecimal("42.25"), operation.getAmount());
+        assertEquals(MoneyDirection.in, operation.getDirection());
+        assertEquals(Operation.Status.success, operation.getStatus());
+        assertEquals("Магазин 2", operation.getTitle());
+        assertEquals("rest", operation.getLabel());
+        assertNull(operation.getSender());
+        assertNull(operation.getCodepro());
+        assertEquals(4225, table.getAmountKopecks(41));
+    }
+
+    @Test
+    public void testAggregates() {
+        assertEquals(1000, table.size());
+        assertEquals(100, table.count(table.status(Operation.Status.refused)));
+        assertEquals(10, table.count(table.label("first")));
+        assertEquals(0, table.count(table.label("none")));
+
+        // 2 + 4 + ... + 1000 рублей и по 25 копеек на каждую из 500 операций
+        assertEquals(250500 * 100 + 500 * 25, table.sumKopecks(table.direction(MoneyDirection.in)));
+
+        Map<String, Long> byPattern = table.sumKopecksByPatternId(table.all());
+        assertEquals(3, byPattern.size());
+        long total = 0;
+        for (long sum : byPattern.values()) {
+            total += sum;
+        }
+        assertEquals(table.sumKopecks(table.all()), total);
+
+        int[] rows = table.filter(table.patternId("p2p").and(table.direction(MoneyDirection.out)));
+        assertEquals(167, rows.length);
+        assertEquals("3", table.getOperationId(rows[0]));
+    }
+
+    @Test
+    public void testSelectByPeriod() {
+        List<Operation> operations = table.select(table.between(new Date(START), new Date(START + 1)));
+
+        assertEquals(1000, operations.size());
+        assertTrue(table.select(table.between(new Date(0), new Date(START))).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFractionalKopecks() {
+        table.add(YamoneyGson.get().fromJson("{\"operation_id\":\"x\",\"amount\":\"0.001\"}", Operation.class));
+    }
+}
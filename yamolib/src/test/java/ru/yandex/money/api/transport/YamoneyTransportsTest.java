@@ -0,0 +1,75 @@
+package ru.yandex.money.api.transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.yandex.money.api.*;
+import ru.yandex.money.api.response.OperationHistoryResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class YamoneyTransportsTest {
+
+    private StubApiServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubApiServer();
+        server.respond("operation-history", 200, "{\"next_record\":\"3\",\"operations\":[]}");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        System.clearProperty(YamoneyTransports.TRANSPORT_PROPERTY);
+    }
+
+    @Test
+    public void testProvidersOrderedByPriority() {
+        List<String> names = new ArrayList<String>();
+        for (YamoneyTransportProvider provider : YamoneyTransports.getProviders()) {
+            names.add(provider.getName());
+        }
+        assertEquals(Arrays.asList("jdk", "okhttp", "apache-async", "apache"), names);
+    }
+
+    @Test
+    public void testTransportFromSystemProperty() throws Exception {
+        System.setProperty(YamoneyTransports.TRANSPORT_PROPERTY, "okhttp");
+        YamoneyApiClient<?, ?> client = YamoneyTransports.create(4000);
+        try {
+            assertTrue(client instanceof YamoneyOkApiClient);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownTransport() {
+        YamoneyTransports.create("carrier-pigeon", 4000);
+    }
+
+    @Test
+    public void testEveryTransportExecutesCommands() throws Exception {
+        for (YamoneyTransportProvider provider : YamoneyTransports.getProviders()) {
+            YamoneyApiClient<?, ?> client = provider.createClient(4000);
+            try {
+                ApiCommandsFacade facade = new ApiCommandsFacadeImpl(client, server.getUrl());
+                OperationHistoryResponse response = facade.operationHistory("token", 0, 3, null, null, null, null, "a&b c");
+
+                assertEquals(provider.getName(), Integer.valueOf(3), response.getNextRecord());
+                StubApiServer.Request request = server.getRequests().get(server.getRequests().size() - 1);
+                assertEquals(provider.getName(), "a&b c", request.params.get("label"));
+                assertEquals(provider.getName(), "3", request.params.get("records"));
+                assertEquals(provider.getName(), "Bearer token", request.authorization);
+            } finally {
+                client.close();
+            }
+        }
+    }
+}